@@ -0,0 +1,54 @@
+package org.example.smartshopv2.config;
+
+import lombok.Data;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Discount rules as configured under {@code smartshop.discounts}.
+ *
+ * This is only the source; DiscountEngine compiles it into lookup tables.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "smartshop.discounts")
+public class DiscountProperties {
+
+    private List<LoyaltyRule> loyalty = new ArrayList<>();
+    private List<ProductRule> products = new ArrayList<>();
+    private List<QuantityRule> quantities = new ArrayList<>();
+
+    /**
+     * Percentage off the whole order for a loyalty level, from a minimum subtotal.
+     */
+    @Data
+    public static class LoyaltyRule {
+        private LoyaltyLevel level;
+        private BigDecimal minSubtotal = BigDecimal.ZERO;
+        private int percent;
+    }
+
+    /**
+     * Percentage off one product's line, when the line has at least minQuantity units.
+     */
+    @Data
+    public static class ProductRule {
+        private Long productId;
+        private int minQuantity = 1;
+        private int percent;
+    }
+
+    /**
+     * Percentage off the whole order when it has at least minQuantity units in total.
+     */
+    @Data
+    public static class QuantityRule {
+        private int minQuantity;
+        private int percent;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.smartshopv2.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.example.smartshopv2.util.Money;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link Money} as a JSON number with two decimals (2700.00) and reads it back.
+ */
+@JsonComponent
+public class MoneyJsonComponent {
+
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.toBigDecimal());
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return Money.of(p.getDecimalValue());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.smartshopv2.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Partial index over PENDING orders, the only ones the ledger snapshot job
+ * looks at. Hibernate cannot declare partial indexes, so it is created here
+ * on PostgreSQL; other databases do without it.
+ */
+@Component
+@RequiredArgsConstructor
+public class PendingOrdersIndexInitializer implements CommandLineRunner {
+
+    private static final String PENDING_ORDERS_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_orders_pending_ledger ON orders (id, ledger_entry_id) " +
+            "WHERE status = 'PENDING'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            jdbcTemplate.execute(PENDING_ORDERS_INDEX_SQL);
+        }
+    }
+}
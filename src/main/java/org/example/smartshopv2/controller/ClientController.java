@@ -5,13 +5,21 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.smartshopv2.dto.ClientRequest;
 import org.example.smartshopv2.dto.ClientResponse;
+import org.example.smartshopv2.dto.LoyaltyRecomputeStatus;
 import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.dto.PagedResponse;
 import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.ClientLeaderboardService;
+import org.example.smartshopv2.service.ClientProfileCache;
 import org.example.smartshopv2.service.ClientService;
+import org.example.smartshopv2.service.LoyaltyRecomputeService;
+import org.example.smartshopv2.service.OrderService;
+import org.example.smartshopv2.util.KeysetCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,6 +28,10 @@ import java.util.Map;
 public class ClientController {
     
     private final ClientService clientService;
+    private final OrderService orderService;
+    private final LoyaltyRecomputeService loyaltyRecomputeService;
+    private final ClientLeaderboardService leaderboardService;
+    private final ClientProfileCache clientProfileCache;
     private final AuthorizationService authService;
     
     @PostMapping
@@ -34,6 +46,22 @@ public class ClientController {
         }
     }
     
+    @GetMapping("/search")
+    public ResponseEntity<?> searchClients(@RequestParam("q") String query,
+                                           @RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           HttpSession session) {
+        try {
+            // Only ADMIN can search clients
+            authService.requireAdmin(session);
+            PageRequest pageable = PageRequest.of(Math.max(page, 0), KeysetCursor.pageSize(size));
+            Page<ClientResponse> clients = clientService.searchClients(query, pageable);
+            return ResponseEntity.ok(PagedResponse.of(clients));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<?> getClient(@PathVariable Long id, HttpSession session) {
         try {
@@ -47,11 +75,14 @@ public class ClientController {
     }
     
     @GetMapping
-    public ResponseEntity<?> getAllClients(HttpSession session) {
+    public ResponseEntity<?> getAllClients(@RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           @RequestParam(defaultValue = "false") boolean includeTotal,
+                                           HttpSession session) {
         try {
             // Only ADMIN can view all clients
             authService.requireAdmin(session);
-            List<ClientResponse> clients = clientService.getAllClients();
+            PagedResponse<ClientResponse> clients = clientService.getClients(cursor, size, includeTotal);
             return ResponseEntity.ok(clients);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -85,14 +116,85 @@ public class ClientController {
     }
     
     @GetMapping("/{id}/orders")
-    public ResponseEntity<?> getClientOrders(@PathVariable Long id, HttpSession session) {
+    public ResponseEntity<?> getClientOrders(@PathVariable Long id,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "20") int size,
+                                             @RequestParam(defaultValue = "false") boolean includeTotal,
+                                             HttpSession session) {
         try {
             // Only owner or ADMIN can view client orders
             authService.requireOwnerOrAdmin(session, id);
-            List<OrderResponse> orders = clientService.getClientOrders(id);
+            PagedResponse<OrderResponse> orders = orderService.getClientOrders(id, cursor, size, includeTotal);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    @PostMapping("/loyalty/recompute")
+    public ResponseEntity<?> startLoyaltyRecompute(HttpSession session) {
+        try {
+            // Only ADMIN can recompute loyalty levels
+            authService.requireAdmin(session);
+            LoyaltyRecomputeStatus status = loyaltyRecomputeService.start();
+            return ResponseEntity.accepted().body(status);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/loyalty/recompute")
+    public ResponseEntity<?> getLoyaltyRecompute(HttpSession session) {
+        try {
+            // Only ADMIN can follow the recompute
+            authService.requireAdmin(session);
+            return ResponseEntity.ok(loyaltyRecomputeService.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> getLeaderboard(@RequestParam(defaultValue = "10") int limit, HttpSession session) {
+        try {
+            // Only ADMIN can view the leaderboard
+            authService.requireAdmin(session);
+            return ResponseEntity.ok(leaderboardService.getTop(Math.min(Math.max(limit, 1), 1000)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{id}/rank")
+    public ResponseEntity<?> getClientRank(@PathVariable Long id, HttpSession session) {
+        try {
+            // Only owner or ADMIN can view the client's rank
+            authService.requireOwnerOrAdmin(session, id);
+            return ResponseEntity.ok(leaderboardService.getRank(id));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/loyalty/distribution")
+    public ResponseEntity<?> getLoyaltyDistribution(HttpSession session) {
+        try {
+            // Only ADMIN can view the loyalty distribution
+            authService.requireAdmin(session);
+            return ResponseEntity.ok(leaderboardService.getDistribution());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/profile-cache/stats")
+    public ResponseEntity<?> getProfileCacheStats(HttpSession session) {
+        try {
+            // Only ADMIN can view cache metrics
+            authService.requireAdmin(session);
+            return ResponseEntity.ok(clientProfileCache.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package org.example.smartshopv2.controller;
+
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.config.DiscountProperties;
+import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.DiscountEngine;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/discounts")
+@RequiredArgsConstructor
+public class DiscountController {
+
+    private final DiscountEngine discountEngine;
+    private final AuthorizationService authService;
+
+    @GetMapping("/rules")
+    public ResponseEntity<?> getRules(HttpSession session) {
+        try {
+            // Only ADMIN can view discount rules
+            authService.requireAdmin(session);
+            return ResponseEntity.ok(discountEngine.getRules());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/rules")
+    public ResponseEntity<?> replaceRules(@RequestBody DiscountProperties rules, HttpSession session) {
+        try {
+            // Only ADMIN can change discount rules; the new rules apply to the next order
+            authService.requireAdmin(session);
+            discountEngine.load(rules);
+            return ResponseEntity.ok(discountEngine.getRules());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -5,12 +5,17 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.smartshopv2.dto.OrderRequest;
 import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.dto.PagedResponse;
+import org.example.smartshopv2.enums.ExportFormat;
 import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.OrderExportService;
 import org.example.smartshopv2.service.OrderService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -19,6 +24,7 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
     private final AuthorizationService authService;
     
     @PostMapping
@@ -58,17 +64,42 @@ public class OrderController {
     }
     
     @GetMapping
-    public ResponseEntity<?> getAllOrders(HttpSession session) {
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "20") int size,
+                                          @RequestParam(defaultValue = "false") boolean includeTotal,
+                                          HttpSession session) {
         try {
             // Only ADMIN can view all orders
             authService.requireAdmin(session);
-            List<OrderResponse> orders = orderService.getAllOrders();
+            PagedResponse<OrderResponse> orders = orderService.getOrders(cursor, size, includeTotal);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
+    @GetMapping("/export")
+    public ResponseEntity<?> exportOrders(@RequestParam(defaultValue = "ndjson") String format, HttpSession session) {
+        try {
+            // Only ADMIN can export orders
+            authService.requireAdmin(session);
+            ExportFormat exportFormat = ExportFormat.valueOf(format.toUpperCase());
+            StreamingResponseBody body = out -> orderExportService.exportOrders(exportFormat, out);
+
+            return ResponseEntity.ok()
+                    .contentType(exportFormat == ExportFormat.CSV
+                            ? MediaType.parseMediaType("text/csv")
+                            : MediaType.parseMediaType("application/x-ndjson"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"orders." + exportFormat.name().toLowerCase() + "\"")
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported export format: " + format));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @PostMapping("/{id}/confirm")
     public ResponseEntity<?> confirmOrder(@PathVariable Long id, HttpSession session) {
         try {
@@ -3,14 +3,24 @@ package org.example.smartshopv2.controller;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.BulkPaymentRequest;
+import org.example.smartshopv2.dto.BulkPaymentResult;
+import org.example.smartshopv2.dto.PagedResponse;
 import org.example.smartshopv2.dto.PaymentRequest;
 import org.example.smartshopv2.dto.PaymentResponse;
+import org.example.smartshopv2.dto.ReconciliationReport;
 import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.PaymentBatchService;
 import org.example.smartshopv2.service.PaymentService;
+import org.example.smartshopv2.service.StatementReconciliationService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @RestController
@@ -19,6 +29,8 @@ import java.util.Map;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final PaymentBatchService paymentBatchService;
+    private final StatementReconciliationService reconciliationService;
     private final AuthorizationService authService;
     
     @PostMapping
@@ -57,12 +69,72 @@ public class PaymentController {
         }
     }
     
+    @PostMapping("/bulk/encaisser")
+    public ResponseEntity<?> encaisserPayments(@Valid @RequestBody BulkPaymentRequest request, HttpSession session) {
+        try {
+            // Only ADMIN can encaisser payments
+            authService.requireAdmin(session);
+            BulkPaymentResult result = paymentBatchService.encaisserPayments(request.getPaymentIds());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/bulk/rejeter")
+    public ResponseEntity<?> rejeterPayments(@Valid @RequestBody BulkPaymentRequest request, HttpSession session) {
+        try {
+            // Only ADMIN can reject payments
+            authService.requireAdmin(session);
+            BulkPaymentResult result = paymentBatchService.rejeterPayments(request.getPaymentIds());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/due/encaisser")
+    public ResponseEntity<?> encaisserDuePayments(HttpSession session) {
+        try {
+            // Only ADMIN can run the due payments job by hand
+            authService.requireAdmin(session);
+            BulkPaymentResult result = paymentBatchService.encaisserDuePayments(LocalDateTime.now());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/reconcile", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> reconcile(@RequestParam("file") MultipartFile file, HttpSession session) {
+        Path statement = null;
+        try {
+            // Only ADMIN can reconcile bank statements
+            authService.requireAdmin(session);
+            // The upload is copied to a local file so it can be memory-mapped
+            statement = Files.createTempFile("statement-", ".csv");
+            file.transferTo(statement);
+            ReconciliationReport report = reconciliationService.reconcile(statement);
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } finally {
+            if (statement != null) {
+                statement.toFile().delete();
+            }
+        }
+    }
+    
     @GetMapping("/order/{orderId}")
-    public ResponseEntity<?> getOrderPayments(@PathVariable Long orderId, HttpSession session) {
+    public ResponseEntity<?> getOrderPayments(@PathVariable Long orderId,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              @RequestParam(defaultValue = "false") boolean includeTotal,
+                                              HttpSession session) {
         try {
             // Only ADMIN can view order payments
             authService.requireAdmin(session);
-            List<PaymentResponse> payments = paymentService.getOrderPayments(orderId);
+            PagedResponse<PaymentResponse> payments = paymentService.getOrderPayments(orderId, cursor, size, includeTotal);
             return ResponseEntity.ok(payments);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
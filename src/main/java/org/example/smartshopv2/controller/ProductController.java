@@ -3,17 +3,30 @@ package org.example.smartshopv2.controller;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.CatalogChangesResponse;
+import org.example.smartshopv2.dto.InventoryAdjustmentStats;
 import org.example.smartshopv2.dto.PagedResponse;
+import org.example.smartshopv2.dto.ProductImportResult;
 import org.example.smartshopv2.dto.ProductRequest;
 import org.example.smartshopv2.dto.ProductResponse;
+import org.example.smartshopv2.dto.StockAdjustmentRequest;
+import org.example.smartshopv2.dto.StockReservationStats;
 import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.InventoryAdjustmentService;
+import org.example.smartshopv2.service.ProductImportService;
 import org.example.smartshopv2.service.ProductService;
+import org.example.smartshopv2.service.StockReservationService;
+import org.example.smartshopv2.util.KeysetCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.InputStream;
 import java.util.Map;
 
 @RestController
@@ -22,6 +35,9 @@ import java.util.Map;
 public class ProductController {
     
     private final ProductService productService;
+    private final StockReservationService stockReservationService;
+    private final InventoryAdjustmentService inventoryAdjustmentService;
+    private final ProductImportService productImportService;
     private final AuthorizationService authService;
     
     @PostMapping
@@ -36,12 +52,73 @@ public class ProductController {
         }
     }
     
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importProductsJson(InputStream body, HttpSession session) {
+        try {
+            // Only ADMIN can import products
+            authService.requireAdmin(session);
+            ProductImportResult result = productImportService.importJson(body);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<?> importProductsCsv(InputStream body, HttpSession session) {
+        try {
+            // Only ADMIN can import products
+            authService.requireAdmin(session);
+            ProductImportResult result = productImportService.importCsv(body);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(@RequestParam("q") String query,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size,
+                                            HttpSession session) {
+        try {
+            // Anyone authenticated can search products
+            authService.requireAuthenticated(session);
+            PageRequest pageable = PageRequest.of(Math.max(page, 0), KeysetCursor.pageSize(size));
+            Page<ProductResponse> products = productService.searchProducts(query, pageable);
+            return ResponseEntity.ok(PagedResponse.of(products));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/changes-since")
+    public ResponseEntity<?> getChangesSince(@RequestParam(defaultValue = "-1") long version,
+                                             @RequestParam(defaultValue = "500") int limit,
+                                             HttpSession session) {
+        try {
+            // Anyone authenticated can sync the catalog; without a version, every product is sent
+            authService.requireAuthenticated(session);
+            CatalogChangesResponse changes = productService.getChangesSince(version,
+                    Math.min(Math.max(limit, 1), 1000));
+            return ResponseEntity.ok(changes);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProduct(@PathVariable Long id, HttpSession session) {
+    public ResponseEntity<?> getProduct(@PathVariable Long id, WebRequest webRequest, HttpSession session) {
         try {
             // Anyone authenticated can view products
             authService.requireAuthenticated(session);
+            // Validators before content, so they never describe a newer catalog than the body
+            String eTag = productService.getCatalogETag();
+            long lastModified = productService.getCatalogLastModified();
             ProductResponse response = productService.getProduct(id);
+            if (webRequest.checkNotModified(eTag, lastModified)) {
+                return null;
+            }
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -51,11 +128,22 @@ public class ProductController {
     @GetMapping
     public ResponseEntity<?> getAllProducts(@RequestParam(defaultValue = "0") int page,
                                            @RequestParam(defaultValue = "10") int size,
+                                           @RequestParam(defaultValue = "id") String sort,
+                                           WebRequest webRequest,
                                            HttpSession session) {
         try {
             // Anyone authenticated can view products
             authService.requireAuthenticated(session);
-            Pageable pageable = PageRequest.of(page, size);
+            // Validators before content, so they never describe a newer catalog than the body
+            if (webRequest.checkNotModified(productService.getCatalogETag(),
+                    productService.getCatalogLastModified())) {
+                return null;
+            }
+            // sort=property[,asc|desc], property being id, name or priceHT
+            String[] sortParts = sort.split(",");
+            Sort.Direction direction = sortParts.length > 1 && sortParts[1].equalsIgnoreCase("desc")
+                    ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortParts[0]));
             Page<ProductResponse> products = productService.getAllProducts(pageable);
             
             // Wrap in user-friendly response
@@ -91,4 +179,40 @@ public class ProductController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    @PostMapping("/stock-adjustments")
+    public ResponseEntity<?> adjustStock(@Valid @RequestBody StockAdjustmentRequest request, HttpSession session) {
+        try {
+            // Only ADMIN can adjust stock
+            authService.requireAdmin(session);
+            Map<Long, Integer> stock = inventoryAdjustmentService.adjust(request.getDeltas());
+            return ResponseEntity.ok(stock);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/stock-adjustments/stats")
+    public ResponseEntity<?> getStockAdjustmentStats(HttpSession session) {
+        try {
+            // Only ADMIN can view stock adjustment counters
+            authService.requireAdmin(session);
+            InventoryAdjustmentStats stats = inventoryAdjustmentService.getStats();
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/reservations/stats")
+    public ResponseEntity<?> getReservationStats(HttpSession session) {
+        try {
+            // Only ADMIN can view stock reservation counters
+            authService.requireAdmin(session);
+            StockReservationStats stats = stockReservationService.getStats();
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
@@ -4,12 +4,14 @@ import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.example.smartshopv2.dto.ClientResponse;
 import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.dto.PagedResponse;
 import org.example.smartshopv2.service.AuthorizationService;
 import org.example.smartshopv2.service.ClientService;
+import org.example.smartshopv2.service.OrderService;
+import org.example.smartshopv2.util.Money;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -22,6 +24,7 @@ import java.util.Map;
 public class ProfileController {
 
     private final ClientService clientService;
+    private final OrderService orderService;
     private final AuthorizationService authService;
 
     /**
@@ -46,11 +49,14 @@ public class ProfileController {
     }
 
     /**
-     * Get current client's order history
-     * GET /api/me/orders
+     * Get current client's order history, newest first (cursor-paginated)
+     * GET /api/me/orders?cursor=&size=
      */
     @GetMapping("/orders")
-    public ResponseEntity<?> getMyOrders(HttpSession session) {
+    public ResponseEntity<?> getMyOrders(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size,
+                                         @RequestParam(defaultValue = "false") boolean includeTotal,
+                                         HttpSession session) {
         try {
             authService.requireClient(session);
             Long clientId = authService.getClientId(session);
@@ -59,7 +65,7 @@ public class ProfileController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Client profile not found for this user"));
             }
 
-            List<OrderResponse> orders = clientService.getClientOrders(clientId);
+            PagedResponse<OrderResponse> orders = orderService.getClientOrders(clientId, cursor, size, includeTotal);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -80,17 +86,18 @@ public class ProfileController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Client profile not found for this user"));
             }
 
-            ClientResponse client = clientService.getClient(clientId);
+            // Same cached profile as /profile (statistics from the client_stats projection)
+            ClientResponse profile = clientService.getClient(clientId);
 
             // Return a focused stats view
             return ResponseEntity.ok(Map.of(
-                    "companyName", client.getCompanyName(),
-                    "loyaltyLevel", client.getLoyaltyLevel(),
-                    "totalOrders", client.getTotalOrders(),
-                    "totalSpent", client.getTotalSpent(),
-                    "firstOrderDate", client.getFirstOrderDate() != null ? client.getFirstOrderDate() : "No orders yet",
-                    "lastOrderDate", client.getLastOrderDate() != null ? client.getLastOrderDate() : "No orders yet",
-                    "memberSince", client.getCreatedAt()));
+                    "companyName", profile.getCompanyName(),
+                    "loyaltyLevel", profile.getLoyaltyLevel(),
+                    "totalOrders", profile.getTotalOrders() != null ? profile.getTotalOrders() : 0,
+                    "totalSpent", profile.getTotalSpent() != null ? Money.of(profile.getTotalSpent()) : Money.ZERO,
+                    "firstOrderDate", profile.getFirstOrderDate() != null ? profile.getFirstOrderDate() : "No orders yet",
+                    "lastOrderDate", profile.getLastOrderDate() != null ? profile.getLastOrderDate() : "No orders yet",
+                    "memberSince", profile.getCreatedAt()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -0,0 +1,59 @@
+package org.example.smartshopv2.controller;
+
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.PromoCodeRequest;
+import org.example.smartshopv2.dto.PromoCodeResponse;
+import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.PromoCodeService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/promo-codes")
+@RequiredArgsConstructor
+public class PromoCodeController {
+
+    private final PromoCodeService promoCodeService;
+    private final AuthorizationService authService;
+
+    @PostMapping
+    public ResponseEntity<?> createPromoCode(@Valid @RequestBody PromoCodeRequest request, HttpSession session) {
+        try {
+            // Only ADMIN can create promo codes
+            authService.requireAdmin(session);
+            PromoCodeResponse response = promoCodeService.createPromoCode(request);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getPromoCodes(HttpSession session) {
+        try {
+            // Only ADMIN can list promo codes
+            authService.requireAdmin(session);
+            List<PromoCodeResponse> promoCodes = promoCodeService.getPromoCodes();
+            return ResponseEntity.ok(promoCodes);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deactivatePromoCode(@PathVariable Long id, HttpSession session) {
+        try {
+            // Only ADMIN can deactivate promo codes; orders that used it keep it
+            authService.requireAdmin(session);
+            PromoCodeResponse response = promoCodeService.deactivatePromoCode(id);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
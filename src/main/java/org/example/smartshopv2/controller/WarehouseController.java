@@ -0,0 +1,87 @@
+package org.example.smartshopv2.controller;
+
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.StockAllocationResponse;
+import org.example.smartshopv2.dto.StockLevelRequest;
+import org.example.smartshopv2.dto.WarehouseRequest;
+import org.example.smartshopv2.dto.WarehouseResponse;
+import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.WarehouseService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/warehouses")
+@RequiredArgsConstructor
+public class WarehouseController {
+
+    private final WarehouseService warehouseService;
+    private final AuthorizationService authService;
+
+    @PostMapping
+    public ResponseEntity<?> createWarehouse(@Valid @RequestBody WarehouseRequest request, HttpSession session) {
+        try {
+            // Only ADMIN can create warehouses
+            authService.requireAdmin(session);
+            WarehouseResponse response = warehouseService.createWarehouse(request);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getWarehouses(HttpSession session) {
+        try {
+            // Only ADMIN can list warehouses
+            authService.requireAdmin(session);
+            List<WarehouseResponse> warehouses = warehouseService.getWarehouses();
+            return ResponseEntity.ok(warehouses);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<?> getStockLevels(@PathVariable Long id, HttpSession session) {
+        try {
+            // Only ADMIN can view warehouse stock
+            authService.requireAdmin(session);
+            Map<Long, Integer> levels = warehouseService.getStockLevels(id);
+            return ResponseEntity.ok(levels);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{id}/stock")
+    public ResponseEntity<?> setStockLevels(@PathVariable Long id,
+                                            @Valid @RequestBody StockLevelRequest request,
+                                            HttpSession session) {
+        try {
+            // Only ADMIN can set warehouse stock; products' total stock follows
+            authService.requireAdmin(session);
+            Map<Long, Integer> stock = warehouseService.setStockLevels(id, request.getLevels());
+            return ResponseEntity.ok(stock);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/allocations")
+    public ResponseEntity<?> getAllocations(@RequestParam Long orderId, HttpSession session) {
+        try {
+            // Only ADMIN can see where orders ship from
+            authService.requireAdmin(session);
+            List<StockAllocationResponse> allocations = warehouseService.getAllocations(orderId);
+            return ResponseEntity.ok(allocations);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
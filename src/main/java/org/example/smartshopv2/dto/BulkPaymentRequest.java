@@ -0,0 +1,12 @@
+package org.example.smartshopv2.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkPaymentRequest {
+    @NotEmpty(message = "Payment IDs are required")
+    private List<Long> paymentIds;
+}
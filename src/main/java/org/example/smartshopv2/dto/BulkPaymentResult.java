@@ -0,0 +1,19 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentResult {
+    private long requested;
+    // EN_ATTENTE payments that changed status
+    private long updated;
+    // Unknown IDs and payments that were no longer EN_ATTENTE
+    private long skipped;
+    private int chunks;
+}
@@ -0,0 +1,22 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Products changed after a catalog version, oldest change first. Pass version
+ * back as ?version= to get the next changes; hasMore tells there are some already.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangesResponse {
+    private Long version;
+    private boolean hasMore;
+    private List<ProductChangeResponse> changes;
+}
@@ -19,6 +19,8 @@ public class ClientResponse {
     private String email;
     private String phone;
     private String address;
+    private Double latitude;
+    private Double longitude;
     private LoyaltyLevel loyaltyLevel;
     private Integer totalOrders;
     private Double totalSpent;
@@ -0,0 +1,25 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientStatsResponse {
+    private Long clientId;
+    private String companyName;
+    private LoyaltyLevel loyaltyLevel;
+    private Integer totalOrders;
+    private Money totalSpent;
+    private LocalDateTime firstOrderDate;
+    private LocalDateTime lastOrderDate;
+    private LocalDateTime memberSince;
+}
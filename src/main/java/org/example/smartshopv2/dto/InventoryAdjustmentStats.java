@@ -0,0 +1,17 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAdjustmentStats {
+    private long adjustments;
+    private long deltas;
+    private long flushes;
+    private long rowsWritten;
+}
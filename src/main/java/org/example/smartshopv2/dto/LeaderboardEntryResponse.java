@@ -0,0 +1,22 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryResponse {
+    // 1 for the top spender
+    private int rank;
+    private Long clientId;
+    private String companyName;
+    private LoyaltyLevel loyaltyLevel;
+    private Integer totalOrders;
+    private Money totalSpent;
+}
@@ -0,0 +1,27 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoyaltyRecomputeStatus {
+    private boolean running;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    // Elapsed so far while running
+    private long durationMs;
+    private int rangesTotal;
+    private int rangesDone;
+    // client_stats rows whose level changed
+    private long clientsChanged;
+    // clients rows whose level was brought in line with client_stats
+    private long clientsSynced;
+    private String error;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.smartshopv2.util.Money;
 
 @Data
 @Builder
@@ -14,6 +15,6 @@ public class OrderItemResponse {
     private Long productId;
     private String productName;
     private Integer quantity;
-    private Double priceHT;
-    private Double subtotal;
+    private Money priceHT;
+    private Money subtotal;
 }
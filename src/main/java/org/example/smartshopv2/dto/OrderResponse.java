@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.util.Money;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,13 +19,13 @@ public class OrderResponse {
     private Long clientId;
     private String clientName;
     private List<OrderItemResponse> items;
-    private Double subtotalHT;
+    private Money subtotalHT;
     private String promoCode;
-    private Double discountAmount;
-    private Double amountAfterDiscount;
-    private Double tva;
-    private Double totalTTC;
-    private Double montantRestant;
+    private Money discountAmount;
+    private Money amountAfterDiscount;
+    private Money tva;
+    private Money totalTTC;
+    private Money montantRestant;
     private List<PaymentResponse> payments;
     private OrderStatus status;
     private LocalDateTime createdAt;
@@ -22,6 +22,7 @@ public class PagedResponse<T> {
     private List<T> data;
     private String message;  
     private PaginationInfo pagination;
+    private CursorInfo cursor;
     
     /**
      * Create from Spring Data Page object
@@ -40,7 +41,8 @@ public class PagedResponse<T> {
             true,
             page.getContent(),
             message,
-            pagination
+            pagination,
+            null
         );
     }
     
@@ -53,6 +55,15 @@ public class PagedResponse<T> {
         return response;
     }
     
+    /**
+     * Create a keyset (cursor) page. totalItems is only set when the caller asked for it.
+     */
+    public static <T> PagedResponse<T> ofCursor(List<T> data, int pageSize, String nextCursor, Long totalItems) {
+        CursorInfo cursor = new CursorInfo(pageSize, nextCursor, nextCursor != null, totalItems);
+        String message = data.isEmpty() ? "No items found" : null;
+        return new PagedResponse<>(true, data, message, null, cursor);
+    }
+    
     /**
      * Simplified pagination info
      */
@@ -65,4 +76,18 @@ public class PagedResponse<T> {
         private int pageSize;
         private long totalItems;
     }
+    
+    /**
+     * Keyset pagination info: pass nextCursor back as ?cursor= to get the next page
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CursorInfo {
+        private int pageSize;
+        private String nextCursor;
+        private boolean hasNext;
+        private Long totalItems;   // only when includeTotal=true
+    }
 }
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.smartshopv2.enums.PaymentStatus;
+import org.example.smartshopv2.util.Money;
 
 import java.time.LocalDateTime;
 
@@ -16,7 +17,7 @@ public class PaymentResponse {
     private Long id;
     private Long orderId;
     private Integer numeroPaiement;
-    private Double montant;
+    private Money montant;
     private String typePaiement;
     private String reference;
     private String banque;
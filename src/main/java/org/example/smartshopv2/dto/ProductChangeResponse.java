@@ -0,0 +1,26 @@
+package org.example.smartshopv2.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product as of its last catalog change; deleted ones only tell the client to drop them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChangeResponse {
+    private Long id;
+    private Long catalogVersion;
+    private Boolean deleted;
+    private String sku;
+    private String name;
+    private String description;
+    private Double priceHT;
+    private Integer stockQuantity;
+}
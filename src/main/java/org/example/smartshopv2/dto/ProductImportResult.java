@@ -0,0 +1,33 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResult {
+    private long rows;
+    private long created;
+    // Existing SKUs, deleted products included (they are restored)
+    private long updated;
+    private long failed;
+    // The first failed rows, in order
+    private List<RowError> errors;
+    private long durationMs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // Line of the CSV record, or position in the JSON array (from 1)
+        private long row;
+        private String sku;
+        private String error;
+    }
+}
@@ -3,10 +3,15 @@ package org.example.smartshopv2.dto;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
 public class ProductRequest {
+    // Required by bulk imports only
+    @Size(max = 64, message = "SKU must be at most 64 characters")
+    private String sku;
+    
     @NotBlank(message = "Product name is required")
     private String name;
     
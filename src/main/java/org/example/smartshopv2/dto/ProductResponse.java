@@ -11,8 +11,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class ProductResponse {
     private Long id;
+    private String sku;
     private String name;
     private String description;
     private Double priceHT;
     private Integer stockQuantity;
+    private Integer heldQuantity;
+    private Integer availableQuantity;
 }
@@ -0,0 +1,27 @@
+package org.example.smartshopv2.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class PromoCodeRequest {
+    @NotBlank(message = "Code is required")
+    private String code;
+
+    @NotNull(message = "Percent is required")
+    @Min(value = 1, message = "Percent must be between 1 and 100")
+    @Max(value = 100, message = "Percent must be between 1 and 100")
+    private Integer percent;
+
+    private LocalDate validFrom;
+
+    private LocalDate validUntil;
+
+    @Min(value = 1, message = "Max uses must be positive")
+    private Long maxUses;
+}
@@ -0,0 +1,25 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromoCodeResponse {
+    private Long id;
+    private String code;
+    private Integer percent;
+    private LocalDate validFrom;
+    private LocalDate validUntil;
+    private Long maxUses;
+    private Long usedCount;
+    private Boolean active;
+    private LocalDateTime createdAt;
+}
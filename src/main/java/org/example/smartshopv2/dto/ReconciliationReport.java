@@ -0,0 +1,26 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+    private long lines;
+    // Lines that matched an EN_ATTENTE payment
+    private long matched;
+    private long unmatched;
+    // Lines that could not be parsed (blank lines and the header are not counted)
+    private long malformed;
+    private long encaisses;
+    private long rejetes;
+    // Percentage of parsed lines that matched a payment
+    private double matchRate;
+    private long bytes;
+    private long durationMs;
+    private double megabytesPerSecond;
+}
@@ -0,0 +1,13 @@
+package org.example.smartshopv2.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class StockAdjustmentRequest {
+    // productId -> quantity to add (negative to remove)
+    @NotEmpty(message = "Stock deltas are required")
+    private Map<Long, Integer> deltas;
+}
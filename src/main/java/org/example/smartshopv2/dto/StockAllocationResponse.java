@@ -0,0 +1,16 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAllocationResponse {
+    private Long productId;
+    private Long warehouseId;
+    private Integer quantity;
+}
@@ -0,0 +1,16 @@
+package org.example.smartshopv2.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class StockLevelRequest {
+    // productId -> quantity now held in the warehouse
+    @NotEmpty(message = "Stock levels are required")
+    private Map<Long, @NotNull(message = "Quantity is required")
+            @Min(value = 0, message = "Quantity must be positive") Integer> levels;
+}
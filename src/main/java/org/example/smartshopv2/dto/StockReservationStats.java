@@ -0,0 +1,18 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationStats {
+    private long attempts;
+    private long succeeded;
+    private long failed;
+    private long unitsReserved;
+    private long unitsRolledBack;
+}
@@ -0,0 +1,23 @@
+package org.example.smartshopv2.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class WarehouseRequest {
+    @NotBlank(message = "Code is required")
+    private String code;
+
+    @NotBlank(message = "Warehouse name is required")
+    private String name;
+
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+}
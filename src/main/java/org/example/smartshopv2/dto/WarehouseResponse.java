@@ -0,0 +1,21 @@
+package org.example.smartshopv2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseResponse {
+    private Long id;
+    private String code;
+    private String name;
+    private Double latitude;
+    private Double longitude;
+    private LocalDateTime createdAt;
+}
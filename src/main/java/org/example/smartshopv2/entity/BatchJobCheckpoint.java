@@ -0,0 +1,38 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a batch job, committed together with each chunk it processes.
+ */
+@Entity
+@Table(name = "batch_job_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobCheckpoint {
+
+    @Id
+    private String jobName;
+
+    // Highest ID handled by the current run; 0 when no run is in progress
+    @Column(nullable = false)
+    @Builder.Default
+    private Long lastProcessedId = 0L;
+
+    // Rows handled by the current run
+    @Column(nullable = false)
+    @Builder.Default
+    private Long processedCount = 0L;
+
+    private LocalDateTime runStartedAt;
+
+    private LocalDateTime lastCompletedAt;
+}
@@ -0,0 +1,27 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last catalog version handed out, one row per counter. Incremented in place
+ * by CatalogVersionService.
+ */
+@Entity
+@Table(name = "catalog_counters")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogCounter {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long currentVersion = 0L;
+}
@@ -10,7 +10,7 @@ import org.example.smartshopv2.enums.LoyaltyLevel;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "clients")
+@Table(name = "clients", indexes = @Index(name = "idx_clients_created_at_id", columnList = "created_at, id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Client {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clients_seq")
+    @SequenceGenerator(name = "clients_seq", sequenceName = "clients_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -32,28 +33,22 @@ public class Client {
 
     private String address;
 
-    @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
-    @Builder.Default
-    private LoyaltyLevel loyaltyLevel = LoyaltyLevel.BASIC;
+    // Delivery location, for shipping from the nearest warehouse; null when unknown
+    private Double latitude;
 
-    @Column(nullable = false)
-    @Builder.Default
-    private Integer totalOrders = 0;
+    private Double longitude;
 
+    // Follows ClientStats; set when confirmed orders are counted there
+    @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
-    private Double totalSpent = 0.0;
-
-    private LocalDateTime firstOrderDate;
-
-    private LocalDateTime lastOrderDate;
+    private LoyaltyLevel loyaltyLevel = LoyaltyLevel.BASIC;
 
     @Column(nullable = false)
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 }
@@ -0,0 +1,55 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order statistics of a client, kept apart from the clients table and updated
+ * in batches by ClientStatsService after orders are confirmed.
+ */
+@Entity
+@DynamicUpdate
+@Table(name = "client_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientStats {
+
+    @Id
+    private Long clientId;
+
+    @Column(nullable = false)
+    private String companyName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private LoyaltyLevel loyaltyLevel = LoyaltyLevel.BASIC;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer totalOrders = 0;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private Money totalSpent = Money.ZERO;
+
+    private LocalDateTime firstOrderDate;
+
+    private LocalDateTime lastOrderDate;
+
+    // Creation date of the client
+    @Column(nullable = false)
+    private LocalDateTime memberSince;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,25 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.example.smartshopv2.util.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Stores {@link Money} in DECIMAL(19, 2) columns, as dirhams with two
+ * decimals: the centimes exactly, and sums over them in SQL stay exact too.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.of(value);
+    }
+}
@@ -6,13 +6,18 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.util.Money;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_client_created_at_id", columnList = "client_id, created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,10 +25,11 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     private Client client;
 
@@ -31,31 +37,50 @@ public class Order {
     @Builder.Default
     private List<OrderItem> items = new ArrayList<>();
 
-    @Column(nullable = false)
-    private Double subtotalHT;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money subtotalHT;
 
     private String promoCode;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 19, scale = 2)
     @Builder.Default
-    private Double discountAmount = 0.0;
+    private Money discountAmount = Money.ZERO;
 
-    @Column(nullable = false)
-    private Double amountAfterDiscount;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money amountAfterDiscount;
 
-    @Column(nullable = false)
-    private Double tva;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money tva;
 
-    @Column(nullable = false)
-    private Double totalTTC;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money totalTTC;
 
-    @Column(nullable = false)
-    private Double montantRestant;
+    // Remaining amount as of ledgerEntryId; PaymentLedgerService adds the later entries
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money montantRestant;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
     @Builder.Default
     private List<Payment> payments = new ArrayList<>();
 
+    // Payments made as of ledgerEntryId, so the next number needs no count
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer paymentCount = 0;
+
+    // Set once a CONFIRMED order has been added to its client's ClientStats
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    @Builder.Default
+    private Boolean countedInStats = false;
+
+    // Last payment_ledger entry folded into montantRestant and paymentCount
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long ledgerEntryId = 0L;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
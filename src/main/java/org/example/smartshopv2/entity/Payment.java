@@ -6,11 +6,15 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.smartshopv2.enums.PaymentStatus;
+import org.example.smartshopv2.util.Money;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_order_created_at_id", columnList = "order_id, created_at, id"),
+        @Index(name = "idx_payments_status_id", columnList = "status, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -18,18 +22,19 @@ import java.time.LocalDateTime;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
     @Column(nullable = false)
     private Integer numeroPaiement;
 
-    @Column(nullable = false)
-    private Double montant;
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money montant;
 
     @Column(nullable = false)
     private String typePaiement;
@@ -0,0 +1,53 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.smartshopv2.enums.LedgerEntryType;
+import org.example.smartshopv2.util.Money;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One event in the life of a payment. Entries are only ever inserted; the
+ * remaining amount of an order is its snapshot plus the deltas of the entries
+ * written after it.
+ */
+@Entity
+@Immutable
+@Table(name = "payment_ledger", indexes = @Index(name = "idx_payment_ledger_order_id", columnList = "order_id, id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_ledger_seq")
+    @SequenceGenerator(name = "payment_ledger_seq", sequenceName = "payment_ledger_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerEntryType type;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money montant;
+
+    // Change to the order's remaining amount: -montant for a payment, +montant for a rejection
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money delta;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -5,9 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_catalog_version", columnList = "catalog_version"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -15,9 +16,14 @@ import lombok.NoArgsConstructor;
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
+    // Reference in the ERP, the key of bulk imports
+    @Column(unique = true)
+    private String sku;
+
     @Column(nullable = false)
     private String name;
 
@@ -33,4 +39,10 @@ public class Product {
     @Column(nullable = false)
     @Builder.Default
     private Boolean deleted = false;
+
+    // Catalog version of the last change made through ProductService; 0 for rows written otherwise
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long catalogVersion = 0L;
 }
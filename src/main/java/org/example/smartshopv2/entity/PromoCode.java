@@ -0,0 +1,51 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "promo_codes")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromoCode {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "promo_codes_seq")
+    @SequenceGenerator(name = "promo_codes_seq", sequenceName = "promo_codes_seq", allocationSize = 50)
+    private Long id;
+
+    // Stored upper-case
+    @Column(nullable = false, unique = true)
+    private String code;
+
+    @Column(nullable = false)
+    private Integer percent;
+
+    // Inclusive; null means no limit
+    private LocalDate validFrom;
+
+    private LocalDate validUntil;
+
+    private Long maxUses;
+
+    // Written in batches by PromoCodeService, may lag a few seconds behind
+    @Column(nullable = false)
+    @Builder.Default
+    private Long usedCount = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
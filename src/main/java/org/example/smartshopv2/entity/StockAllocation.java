@@ -0,0 +1,40 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantity of a product an order ships from one warehouse, taken when the
+ * order is confirmed.
+ */
+@Entity
+@Table(name = "stock_allocations", indexes = @Index(name = "idx_stock_allocations_order", columnList = "order_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_allocations_seq")
+    @SequenceGenerator(name = "stock_allocations_seq", sequenceName = "stock_allocations_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
@@ -0,0 +1,35 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "stock_levels", uniqueConstraints = @UniqueConstraint(name = "uk_stock_levels_product_warehouse",
+        columnNames = {"product_id", "warehouse_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_levels_seq")
+    @SequenceGenerator(name = "stock_levels_seq", sequenceName = "stock_levels_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
+    // Part of products.stock_quantity held in this warehouse
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer quantity = 0;
+}
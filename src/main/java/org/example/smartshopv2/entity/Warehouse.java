@@ -0,0 +1,39 @@
+package org.example.smartshopv2.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "warehouses")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Warehouse {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouses_seq")
+    @SequenceGenerator(name = "warehouses_seq", sequenceName = "warehouses_seq", allocationSize = 50)
+    private Long id;
+
+    // Stored upper-case
+    @Column(nullable = false, unique = true)
+    private String code;
+
+    @Column(nullable = false)
+    private String name;
+
+    // Used by the nearest-warehouse allocation; null when unknown
+    private Double latitude;
+
+    private Double longitude;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
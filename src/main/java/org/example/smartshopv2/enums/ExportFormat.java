@@ -0,0 +1,6 @@
+package org.example.smartshopv2.enums;
+
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,7 @@
+package org.example.smartshopv2.enums;
+
+public enum LedgerEntryType {
+    PAIEMENT,
+    ENCAISSEMENT,
+    REJET
+}
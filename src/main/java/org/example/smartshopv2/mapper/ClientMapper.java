@@ -3,9 +3,15 @@ package org.example.smartshopv2.mapper;
 import org.example.smartshopv2.dto.ClientResponse;
 import org.example.smartshopv2.entity.Client;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface ClientMapper {
 
+    // Order statistics come from ClientStats, see ClientService
+    @Mapping(target = "totalOrders", ignore = true)
+    @Mapping(target = "totalSpent", ignore = true)
+    @Mapping(target = "firstOrderDate", ignore = true)
+    @Mapping(target = "lastOrderDate", ignore = true)
     ClientResponse toResponse(Client client);
 }
@@ -0,0 +1,11 @@
+package org.example.smartshopv2.mapper;
+
+import org.example.smartshopv2.dto.ClientStatsResponse;
+import org.example.smartshopv2.entity.ClientStats;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface ClientStatsMapper {
+
+    ClientStatsResponse toResponse(ClientStats stats);
+}
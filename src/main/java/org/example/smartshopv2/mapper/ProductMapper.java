@@ -4,11 +4,14 @@ import org.example.smartshopv2.dto.ProductRequest;
 import org.example.smartshopv2.dto.ProductResponse;
 import org.example.smartshopv2.entity.Product;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface ProductMapper {
 
     Product toEntity(ProductRequest request);
 
+    @Mapping(target = "heldQuantity", ignore = true)
+    @Mapping(target = "availableQuantity", ignore = true)
     ProductResponse toResponse(Product product);
 }
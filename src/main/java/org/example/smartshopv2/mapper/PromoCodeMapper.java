@@ -0,0 +1,11 @@
+package org.example.smartshopv2.mapper;
+
+import org.example.smartshopv2.dto.PromoCodeResponse;
+import org.example.smartshopv2.entity.PromoCode;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface PromoCodeMapper {
+
+    PromoCodeResponse toResponse(PromoCode promoCode);
+}
@@ -0,0 +1,11 @@
+package org.example.smartshopv2.mapper;
+
+import org.example.smartshopv2.dto.WarehouseResponse;
+import org.example.smartshopv2.entity.Warehouse;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface WarehouseMapper {
+
+    WarehouseResponse toResponse(Warehouse warehouse);
+}
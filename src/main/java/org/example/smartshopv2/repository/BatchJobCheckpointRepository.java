@@ -0,0 +1,9 @@
+package org.example.smartshopv2.repository;
+
+import org.example.smartshopv2.entity.BatchJobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BatchJobCheckpointRepository extends JpaRepository<BatchJobCheckpoint, String> {
+}
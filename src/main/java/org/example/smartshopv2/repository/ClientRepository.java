@@ -1,9 +1,25 @@
 package org.example.smartshopv2.repository;
 
 import org.example.smartshopv2.entity.Client;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
+
+    // Keyset pages, newest first. Pass PageRequest.of(0, size + 1) as the limit.
+
+    @Query("SELECT c FROM Client c ORDER BY c.createdAt DESC, c.id DESC")
+    List<Client> findPage(Pageable limit);
+
+    @Query("SELECT c FROM Client c WHERE (c.createdAt, c.id) < (:createdAt, :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Client> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                               Pageable limit);
 }
@@ -0,0 +1,9 @@
+package org.example.smartshopv2.repository;
+
+import org.example.smartshopv2.entity.ClientStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClientStatsRepository extends JpaRepository<ClientStats, Long> {
+}
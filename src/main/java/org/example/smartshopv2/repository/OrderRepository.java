@@ -1,12 +1,91 @@
 package org.example.smartshopv2.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.enums.OrderStatus;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Read methods fetch the client and the lines with their products in one query.
+ * Lists are paged by keyset: a page of IDs first, then the graphs of those IDs.
+ * Payments are a second bag and cannot be joined in the same query, so they are
+ * loaded for a whole list of orders at once with {@link #withPayments(List)}.
+ * Call these inside a transaction so both queries share a persistence context.
+ */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByClientIdOrderByCreatedAtDesc(Long clientId);
+
+    @EntityGraph(attributePaths = {"client", "items", "items.product"})
+    Optional<Order> findWithItemsById(Long id);
+
+    @EntityGraph(attributePaths = {"client", "items", "items.product"})
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset pages, newest first. Pass PageRequest.of(0, size + 1) to detect a next page
+    // without a count query.
+
+    @Query("SELECT o.id FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIds(Pageable limit);
+
+    @Query("SELECT o.id FROM Order o WHERE (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findPageIdsAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                Pageable limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.client.id = :clientId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findClientPageIds(@Param("clientId") Long clientId, Pageable limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.client.id = :clientId AND (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findClientPageIdsAfter(@Param("clientId") Long clientId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, Pageable limit);
+
+    long countByClientId(Long clientId);
+
+    /**
+     * All order IDs, read through a server-side cursor. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT o.id FROM Order o ORDER BY o.id")
+    Stream<Long> streamAllIds();
+
+    @Query("SELECT o.promoCode AS code, COUNT(o) AS uses FROM Order o " +
+           "WHERE o.promoCode IS NOT NULL AND o.status <> :excluded GROUP BY o.promoCode")
+    List<PromoCodeUses> countPromoCodeUses(@Param("excluded") OrderStatus excluded);
+
+    @EntityGraph(attributePaths = {"items"})
+    List<Order> findByStatusAndCreatedAtAfter(OrderStatus status, LocalDateTime createdAt);
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.payments WHERE o.id IN :ids")
+    List<Order> fetchPayments(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Initialize the payments of already loaded orders with one query.
+     */
+    default List<Order> withPayments(List<Order> orders) {
+        if (!orders.isEmpty()) {
+            fetchPayments(orders.stream().map(Order::getId).toList());
+        }
+        return orders;
+    }
+
+    interface PromoCodeUses {
+        String getCode();
+
+        long getUses();
+    }
 }
@@ -0,0 +1,13 @@
+package org.example.smartshopv2.repository;
+
+import org.example.smartshopv2.entity.PaymentLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentLedgerRepository extends JpaRepository<PaymentLedgerEntry, Long> {
+
+    List<PaymentLedgerEntry> findByOrderIdOrderById(Long orderId);
+}
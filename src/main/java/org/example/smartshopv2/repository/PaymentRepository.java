@@ -1,12 +1,30 @@
 package org.example.smartshopv2.repository;
 
 import org.example.smartshopv2.entity.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
-    List<Payment> findByOrderIdOrderByNumeroPaiementAsc(Long orderId);
+    // Keyset pages in payment order (oldest first). Pass PageRequest.of(0, size + 1) as the limit.
+
+    @Query("SELECT p FROM Payment p WHERE p.order.id = :orderId ORDER BY p.createdAt ASC, p.id ASC")
+    List<Payment> findOrderPage(@Param("orderId") Long orderId, Pageable limit);
+
+    @Query("SELECT p FROM Payment p WHERE p.order.id = :orderId AND (p.createdAt, p.id) > (:createdAt, :id) " +
+           "ORDER BY p.createdAt ASC, p.id ASC")
+    List<Payment> findOrderPageAfter(@Param("orderId") Long orderId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Pageable limit);
+
+    long countByOrderId(Long orderId);
+
+    @Query("SELECT p.order.id FROM Payment p WHERE p.id = :id")
+    Optional<Long> findOrderIdById(@Param("id") Long id);
 }
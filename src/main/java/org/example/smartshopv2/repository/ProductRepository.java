@@ -1,12 +1,31 @@
 package org.example.smartshopv2.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.smartshopv2.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> findByDeletedFalse(Pageable pageable);
+
+    List<Product> findByDeletedFalse();
+
+    // Keeps stock moves out until the transaction ends, so the stock read is the one overwritten
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // Deleted products included
+    List<Product> findByCatalogVersionGreaterThan(Long catalogVersion, Pageable pageable);
+
+    List<Product> findByCatalogVersion(Long catalogVersion);
 }
@@ -0,0 +1,20 @@
+package org.example.smartshopv2.repository;
+
+import org.example.smartshopv2.entity.PromoCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PromoCodeRepository extends JpaRepository<PromoCode, Long> {
+
+    List<PromoCode> findByActiveTrue();
+
+    List<PromoCode> findAllByOrderByCreatedAtDesc();
+
+    boolean existsByCode(String code);
+
+    Optional<PromoCode> findByCode(String code);
+}
@@ -0,0 +1,13 @@
+package org.example.smartshopv2.repository;
+
+import org.example.smartshopv2.entity.StockAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockAllocationRepository extends JpaRepository<StockAllocation, Long> {
+
+    List<StockAllocation> findByOrderIdOrderById(Long orderId);
+}
@@ -0,0 +1,16 @@
+package org.example.smartshopv2.repository;
+
+import org.example.smartshopv2.entity.StockLevel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockLevelRepository extends JpaRepository<StockLevel, Long> {
+
+    List<StockLevel> findByWarehouseIdAndProductIdIn(Long warehouseId, Collection<Long> productIds);
+
+    List<StockLevel> findByWarehouseIdOrderByProductId(Long warehouseId);
+}
@@ -0,0 +1,15 @@
+package org.example.smartshopv2.repository;
+
+import org.example.smartshopv2.entity.Warehouse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
+
+    List<Warehouse> findAllByOrderByCode();
+
+    boolean existsByCode(String code);
+}
@@ -0,0 +1,368 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the catalog (non-deleted products).
+ *
+ * Product data lives in an immutable snapshot, with the products pre-sorted
+ * by ID, name and price for listing pages. Product writes publish a new
+ * snapshot (copy-on-write) once their transaction has committed; readers
+ * take the current snapshot without locking. Stock changes far more often
+ * than the catalog, so quantities are kept apart in per-product counters,
+ * moved by confirmed reservations without touching the snapshot. Warehouse
+ * adjustments move them right away and stay pending here until
+ * InventoryAdjustmentService writes them to the products table.
+ *
+ * Each snapshot and each stock move bumps a version, which the HTTP
+ * validators (ETag, Last-Modified) of catalog responses are built from.
+ * Transactions can commit product writes in one order and publish them in
+ * another: a product older than the catalogVersion already published for it
+ * is not published, though the stock its transaction moved still is.
+ */
+@Service
+public class CatalogCache {
+
+    public record CatalogProduct(Long id, String sku, String name, String description, Double priceHT) {
+
+        static CatalogProduct of(Product product) {
+            return new CatalogProduct(product.getId(), product.getSku(), product.getName(), product.getDescription(),
+                    product.getPriceHT());
+        }
+    }
+
+    private static final Comparator<CatalogProduct> BY_ID = Comparator.comparing(CatalogProduct::id);
+    private static final Comparator<CatalogProduct> BY_NAME = Comparator.comparing(CatalogProduct::name,
+            String.CASE_INSENSITIVE_ORDER).thenComparing(BY_ID);
+    private static final Comparator<CatalogProduct> BY_PRICE = Comparator.comparing(CatalogProduct::priceHT)
+            .thenComparing(BY_ID);
+
+    /**
+     * Immutable catalog as of one version.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final Map<Long, CatalogProduct> byId;
+        private final CatalogProduct[] sortedById;
+        private final CatalogProduct[] sortedByName;
+        private final CatalogProduct[] sortedByPrice;
+
+        private Snapshot(long version, Map<Long, CatalogProduct> byId) {
+            this.version = version;
+            this.byId = byId;
+            this.sortedById = byId.values().toArray(CatalogProduct[]::new);
+            Arrays.sort(sortedById, BY_ID);
+            this.sortedByName = sortedById.clone();
+            Arrays.sort(sortedByName, BY_NAME);
+            this.sortedByPrice = sortedById.clone();
+            Arrays.sort(sortedByPrice, BY_PRICE);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return sortedById.length;
+        }
+
+        public CatalogProduct get(Long id) {
+            return byId.get(id);
+        }
+
+        /**
+         * Products from offset on, in the order of a sort property (id, name
+         * or priceHT), ascending or not.
+         */
+        public List<CatalogProduct> page(String property, boolean ascending, long offset, int size) {
+            CatalogProduct[] sorted = switch (property) {
+                case "id" -> sortedById;
+                case "name" -> sortedByName;
+                case "priceHT" -> sortedByPrice;
+                default -> throw new RuntimeException("Products cannot be sorted by " + property);
+            };
+            int from = (int) Math.min(offset, sorted.length);
+            int to = (int) Math.min(offset + size, sorted.length);
+            CatalogProduct[] page = new CatalogProduct[to - from];
+            for (int i = from; i < to; i++) {
+                page[i - from] = ascending ? sorted[i] : sorted[sorted.length - 1 - i];
+            }
+            return List.of(page);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final Map<Long, AtomicInteger> stock = new ConcurrentHashMap<>();
+    // Catalog version of each product as published, kept for deleted ones (guarded by this)
+    private final Map<Long, Long> publishedVersions = new HashMap<>();
+    // Catalog version whose row quantity a stock counter was last set from (guarded by this)
+    private final Map<Long, Long> stockSetVersions = new HashMap<>();
+    // Adjustments applied to the counters but not yet to products.stock_quantity
+    private final Map<Long, Integer> pendingStock = new ConcurrentHashMap<>();
+    // Drained adjustments being written to products.stock_quantity
+    private final Map<Long, Integer> inFlightStock = new ConcurrentHashMap<>();
+    // Moves between pending and in flight, against exact reads
+    private final Object pendingLock = new Object();
+    private final AtomicLong stockVersion = new AtomicLong();
+    // Versions restart with the application: tells this run's validators from the previous ones
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private volatile Snapshot snapshot = new Snapshot(0, Map.of());
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public CatalogCache(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Rebuild the snapshot and the stock counters from the products table
+     * (plus pending adjustments).
+     *
+     * @return the number of products in the catalog
+     */
+    public synchronized int reload() {
+        Map<Long, CatalogProduct> byId = new HashMap<>();
+        for (Product product : productRepository.findByDeletedFalse()) {
+            byId.put(product.getId(), CatalogProduct.of(product));
+            publishedVersions.merge(product.getId(), product.getCatalogVersion(), Math::max);
+            stockSetVersions.merge(product.getId(), product.getCatalogVersion(), Math::max);
+            stock.computeIfAbsent(product.getId(), id -> new AtomicInteger())
+                    .set(product.getStockQuantity() + getPendingStock(product.getId()));
+        }
+        stock.keySet().retainAll(byId.keySet());
+        snapshot = new Snapshot(snapshot.getVersion() + 1, Map.copyOf(byId));
+        lastModified = System.currentTimeMillis();
+        return byId.size();
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Entity tag of the catalog as it is now, products and stock. Read it
+     * before building a response: a change made meanwhile then only makes the
+     * client's next check miss.
+     */
+    public String getETag() {
+        return instance + "-" + snapshot.getVersion() + "-" + stockVersion.get();
+    }
+
+    /**
+     * Time of the last product or stock change, in epoch milliseconds.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public int getStock(Long productId) {
+        AtomicInteger quantity = stock.get(productId);
+        return quantity != null ? quantity.get() : 0;
+    }
+
+    /**
+     * Net adjustment of a product not yet written to the products table,
+     * without locking.
+     *
+     * While a drained adjustment is being written, the row may or may not
+     * hold it yet: it counts only if it takes stock away, so the sum with the
+     * row never shows more stock than there is. For soft checks; a caller
+     * holding the product's row lock uses {@link #getLockedPendingStock}.
+     */
+    public int getPendingStock(Long productId) {
+        return pendingStock.getOrDefault(productId, 0) + Math.min(inFlightStock.getOrDefault(productId, 0), 0);
+    }
+
+    /**
+     * Net adjustment of a product not yet in its row, for a caller holding
+     * the row lock: a drained adjustment is completed before its write
+     * commits, so while it is still in flight the row does not hold it.
+     */
+    public int getLockedPendingStock(Long productId) {
+        synchronized (pendingLock) {
+            return pendingStock.getOrDefault(productId, 0) + inFlightStock.getOrDefault(productId, 0);
+        }
+    }
+
+    /**
+     * Move stock counters now by adjustments (productId -> delta), which stay
+     * pending until drained.
+     */
+    public void applyPendingStock(Map<Long, Integer> deltas) {
+        synchronized (pendingLock) {
+            deltas.forEach((id, delta) -> {
+                pendingStock.merge(id, delta, (current, added) -> current + added == 0 ? null : current + added);
+                AtomicInteger quantity = stock.get(id);
+                if (quantity != null) {
+                    quantity.addAndGet(delta);
+                }
+            });
+        }
+        stockVersion.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    /**
+     * Take the pending adjustments out, to be written to the products table.
+     * They stay in flight until {@link #completePendingStock} or
+     * {@link #restorePendingStock}; the caller drains again only once those
+     * are settled.
+     */
+    public Map<Long, Integer> drainPendingStock() {
+        synchronized (pendingLock) {
+            Map<Long, Integer> drained = new HashMap<>(pendingStock);
+            // In flight before out of pending: a reader without the lock may count both, never neither
+            inFlightStock.putAll(drained);
+            pendingStock.keySet().removeAll(drained.keySet());
+            return drained;
+        }
+    }
+
+    /**
+     * Forget drained adjustments once written, before that write commits
+     * (the row locks it took keep exact readers waiting until then).
+     */
+    public void completePendingStock(Map<Long, Integer> deltas) {
+        synchronized (pendingLock) {
+            inFlightStock.keySet().removeAll(deltas.keySet());
+        }
+    }
+
+    /**
+     * Put back drained adjustments that could not be written. The counters
+     * already include them.
+     */
+    public void restorePendingStock(Map<Long, Integer> deltas) {
+        synchronized (pendingLock) {
+            deltas.forEach((id, delta) -> {
+                pendingStock.merge(id, delta, (current, added) -> current + added == 0 ? null : current + added);
+                inFlightStock.remove(id);
+            });
+        }
+    }
+
+    /**
+     * Publish the product (or drop it if deleted) once the current transaction
+     * has committed. Its stock counter is set to the product's quantity.
+     */
+    public void publishAfterCommit(Product product) {
+        CatalogProduct published = product.getDeleted() ? null : CatalogProduct.of(product);
+        Long id = product.getId();
+        int quantity = product.getStockQuantity();
+        long version = product.getCatalogVersion();
+        afterCommit(() -> publish(List.of(new Change(id, version, published, quantity, null))));
+    }
+
+    /**
+     * Publish an updated product once the current transaction has committed,
+     * moving its stock counter by the change the transaction made, so stock
+     * moves and adjustments committed meanwhile are kept.
+     */
+    public void publishAfterCommit(Product product, int stockDelta) {
+        CatalogProduct published = CatalogProduct.of(product);
+        Long id = product.getId();
+        int quantity = product.getStockQuantity();
+        long version = product.getCatalogVersion();
+        afterCommit(() -> publish(List.of(new Change(id, version, published, quantity, stockDelta))));
+    }
+
+    /**
+     * Publish a batch of products in one snapshot once the current
+     * transaction has committed. Products in stockDeltas (productId -> change
+     * made by the transaction) have their counter moved; the others are set
+     * to their quantity.
+     */
+    public void publishAllAfterCommit(List<Product> products, Map<Long, Integer> stockDeltas) {
+        List<Change> changes = products.stream()
+                .map(product -> new Change(product.getId(), product.getCatalogVersion(),
+                        product.getDeleted() ? null : CatalogProduct.of(product),
+                        product.getStockQuantity(), stockDeltas.get(product.getId())))
+                .toList();
+        afterCommit(() -> publish(changes));
+    }
+
+    /**
+     * Move stock counters by the given quantities (productId -> delta) once the
+     * current transaction has committed.
+     */
+    public void adjustStockAfterCommit(Map<Long, Integer> deltas) {
+        Map<Long, Integer> copy = Map.copyOf(deltas);
+        afterCommit(() -> {
+            copy.forEach((id, delta) -> {
+                AtomicInteger quantity = stock.get(id);
+                if (quantity != null) {
+                    quantity.addAndGet(delta);
+                }
+            });
+            // After the counters moved, so a tag read earlier never goes with the new quantities
+            stockVersion.incrementAndGet();
+            lastModified = System.currentTimeMillis();
+        });
+    }
+
+    // A product to publish (null to drop it) as of a catalog version, and its stock
+    private record Change(Long id, long version, CatalogProduct product, int quantity, Integer stockDelta) {
+    }
+
+    private synchronized void publish(List<Change> changes) {
+        Map<Long, CatalogProduct> byId = new HashMap<>(snapshot.byId);
+        for (Change change : changes) {
+            Long id = change.id();
+            if (publishedVersions.getOrDefault(id, 0L) > change.version()) {
+                // A later write is published already; the stock this one moved still counts,
+                // unless the counter was set from a row that already had it
+                AtomicInteger counter = stock.get(id);
+                if (counter != null && change.stockDelta() != null
+                        && stockSetVersions.getOrDefault(id, 0L) < change.version()) {
+                    counter.addAndGet(change.stockDelta());
+                }
+                continue;
+            }
+            publishedVersions.put(id, change.version());
+            if (change.product() == null) {
+                byId.remove(id);
+                stock.remove(id);
+            } else {
+                byId.put(id, change.product());
+                AtomicInteger counter = stock.get(id);
+                if (counter != null && change.stockDelta() != null) {
+                    counter.addAndGet(change.stockDelta());
+                } else {
+                    stock.computeIfAbsent(id, key -> new AtomicInteger())
+                            .set(change.quantity() + getPendingStock(id));
+                    stockSetVersions.put(id, change.version());
+                }
+            }
+        }
+        snapshot = new Snapshot(snapshot.getVersion() + 1, Map.copyOf(byId));
+        lastModified = System.currentTimeMillis();
+    }
+
+    private static void afterCommit(Runnable change) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
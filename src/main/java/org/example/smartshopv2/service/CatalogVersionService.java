@@ -0,0 +1,73 @@
+package org.example.smartshopv2.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Monotonic version counter of the product catalog.
+ *
+ * Versions are taken by incrementing one counter row in the writer's
+ * transaction, which keeps the row locked until that transaction ends. Writers
+ * therefore commit in version order, and a client that has seen version N
+ * never finds a smaller version committed afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogVersionService {
+
+    private static final String PRODUCTS = "products";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE catalog_counters SET current_version = current_version + ? WHERE name = ?";
+
+    private static final String CURRENT_SQL = "SELECT current_version FROM catalog_counters WHERE name = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO catalog_counters (name, current_version) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createCounter() {
+        if (jdbcTemplate.queryForList(CURRENT_SQL, Long.class, PRODUCTS).isEmpty()) {
+            jdbcTemplate.update(INSERT_SQL, PRODUCTS, 0L);
+        }
+    }
+
+    /**
+     * Take the next version in the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Take count consecutive versions in the caller's transaction.
+     *
+     * @return the last of them; the first is {@code last - count + 1}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next(int count) {
+        if (jdbcTemplate.update(INCREMENT_SQL, count, PRODUCTS) == 0) {
+            // Counter not created yet (first write before startup completed)
+            jdbcTemplate.update(INSERT_SQL, PRODUCTS, (long) count);
+            return count;
+        }
+        return jdbcTemplate.queryForObject(CURRENT_SQL, Long.class, PRODUCTS);
+    }
+
+    /**
+     * Last committed version, 0 before the first write.
+     */
+    public long current() {
+        List<Long> current = jdbcTemplate.queryForList(CURRENT_SQL, Long.class, PRODUCTS);
+        return current.isEmpty() ? 0 : current.get(0);
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.LeaderboardEntryResponse;
+import org.example.smartshopv2.entity.ClientStats;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory ranking of clients by amount spent, with the number of clients
+ * per loyalty level.
+ *
+ * Loaded from client_stats at startup and kept current by ClientStatsService,
+ * which hands over the rows it writes once their transaction has committed.
+ * Each update replaces the client's entry with its new totals, so applying
+ * the same row twice is harmless; a rename only changes the name of the
+ * current entry, keeping its totals. Updates and reloads are serialized; reads
+ * go straight to a skip list ordered by amount spent, so a client being
+ * updated may be missing from a read for that instant.
+ */
+@Service
+public class ClientLeaderboardService {
+
+    private static final String LOAD_SQL =
+            "SELECT client_id, company_name, loyalty_level, total_orders, total_spent FROM client_stats";
+
+    // Highest amount first, ties by client ID
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::totalSpent).reversed()
+            .thenComparingLong(Entry::clientId);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private volatile Index index = new Index();
+
+    public ClientLeaderboardService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private record Entry(long clientId, String companyName, LoyaltyLevel loyaltyLevel,
+                         int totalOrders, long totalSpent) {
+
+        static Entry of(ClientStats stats) {
+            return new Entry(stats.getClientId(), stats.getCompanyName(), stats.getLoyaltyLevel(),
+                    stats.getTotalOrders(), stats.getTotalSpent().getCentimes());
+        }
+    }
+
+    private static final class Index {
+        final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+        final Map<Long, Entry> byClient = new ConcurrentHashMap<>();
+        final AtomicLongArray perLevel = new AtomicLongArray(LoyaltyLevel.values().length);
+
+        void put(Entry entry) {
+            remove(entry.clientId());
+            byClient.put(entry.clientId(), entry);
+            ranking.add(entry);
+            perLevel.incrementAndGet(entry.loyaltyLevel().ordinal());
+        }
+
+        void remove(long clientId) {
+            Entry previous = byClient.remove(clientId);
+            if (previous != null) {
+                ranking.remove(previous);
+                perLevel.decrementAndGet(previous.loyaltyLevel().ordinal());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Rebuild the ranking from client_stats, for instance after levels were
+     * changed in bulk.
+     *
+     * @return the number of clients ranked
+     */
+    public synchronized int reload() {
+        Index fresh = new Index();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            fresh.put(new Entry(rs.getLong("client_id"), rs.getString("company_name"),
+                    LoyaltyLevel.valueOf(rs.getString("loyalty_level")), rs.getInt("total_orders"),
+                    Money.of(rs.getBigDecimal("total_spent")).getCentimes()));
+        });
+        index = fresh;
+        return fresh.byClient.size();
+    }
+
+    /**
+     * Rank the rows as they are now once the current transaction has committed.
+     */
+    public void updateAfterCommit(Collection<ClientStats> rows) {
+        List<Entry> entries = rows.stream().map(Entry::of).toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(entries);
+            }
+        });
+    }
+
+    /**
+     * Rename the client's entry once the current transaction has committed.
+     */
+    public void renameAfterCommit(Long clientId, String companyName) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rename(clientId, companyName);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long clientId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(clientId);
+            }
+        });
+    }
+
+    public List<LeaderboardEntryResponse> getTop(int limit) {
+        List<LeaderboardEntryResponse> top = new ArrayList<>(Math.min(limit, 1000));
+        Iterator<Entry> it = index.ranking.iterator();
+        while (top.size() < limit && it.hasNext()) {
+            top.add(toResponse(it.next(), top.size() + 1));
+        }
+        return top;
+    }
+
+    /**
+     * Rank of one client. Counts the clients ahead of it, so it is cheapest
+     * near the top of the ranking.
+     */
+    public LeaderboardEntryResponse getRank(Long clientId) {
+        Index current = index;
+        Entry entry = current.byClient.get(clientId);
+        if (entry == null) {
+            throw new RuntimeException("Client not found");
+        }
+        return toResponse(entry, current.ranking.headSet(entry).size() + 1);
+    }
+
+    public Map<LoyaltyLevel, Long> getDistribution() {
+        Index current = index;
+        Map<LoyaltyLevel, Long> distribution = new EnumMap<>(LoyaltyLevel.class);
+        for (LoyaltyLevel level : LoyaltyLevel.values()) {
+            distribution.put(level, current.perLevel.get(level.ordinal()));
+        }
+        return distribution;
+    }
+
+    private synchronized void apply(List<Entry> entries) {
+        for (Entry entry : entries) {
+            index.put(entry);
+        }
+    }
+
+    private synchronized void rename(Long clientId, String companyName) {
+        Entry entry = index.byClient.get(clientId);
+        if (entry != null) {
+            index.put(new Entry(entry.clientId(), companyName, entry.loyaltyLevel(),
+                    entry.totalOrders(), entry.totalSpent()));
+        }
+    }
+
+    private synchronized void remove(Long clientId) {
+        index.remove(clientId);
+    }
+
+    private static LeaderboardEntryResponse toResponse(Entry entry, int rank) {
+        return LeaderboardEntryResponse.builder()
+                .rank(rank)
+                .clientId(entry.clientId())
+                .companyName(entry.companyName())
+                .loyaltyLevel(entry.loyaltyLevel())
+                .totalOrders(entry.totalOrders())
+                .totalSpent(Money.ofCentimes(entry.totalSpent()))
+                .build();
+    }
+}
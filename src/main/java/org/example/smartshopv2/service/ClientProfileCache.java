@@ -0,0 +1,57 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ClientResponse;
+import org.example.smartshopv2.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Client profiles (client with its statistics) as served by ClientService.getClient.
+ *
+ * Entries are dropped once the change that affects them has committed: client
+ * updates and deletions, order confirmations, and statistics written by
+ * ClientStatsService. The time to live bounds how stale a profile can get
+ * through any other path.
+ */
+@Service
+public class ClientProfileCache {
+
+    private final BoundedCache<Long, ClientResponse> cache;
+
+    public ClientProfileCache(@Value("${smartshop.client-profile-cache.max-size:10000}") int maxSize,
+                              @Value("${smartshop.client-profile-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = new BoundedCache<>(maxSize, ttl);
+    }
+
+    public ClientResponse get(Long clientId, Function<Long, ClientResponse> loader) {
+        return cache.get(clientId, loader);
+    }
+
+    public void invalidateAfterCommit(Long clientId) {
+        invalidateAfterCommit(List.of(clientId));
+    }
+
+    public void invalidateAfterCommit(Collection<Long> clientIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clientIds.forEach(cache::invalidate);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public BoundedCache.Stats getStats() {
+        return cache.getStats();
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.util.TrigramIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search index over the clients' company name, contact name,
+ * email and phone.
+ *
+ * Loaded from the clients table at startup; ClientService hands over the
+ * clients it creates, updates and deletes once their transaction has
+ * committed. Searches share a read lock, index changes take the write lock.
+ */
+@Service
+public class ClientSearchService {
+
+    private static final String LOAD_SQL = "SELECT id, company_name, contact_name, email, phone FROM clients";
+
+    // Same order as the fields given to the index: companyName, contactName, email, phone
+    private static final int[] FIELD_WEIGHTS = {4, 3, 2, 2};
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TrigramIndex index = new TrigramIndex(FIELD_WEIGHTS);
+
+    public ClientSearchService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Rebuild the index from the clients table.
+     *
+     * @return the number of clients indexed
+     */
+    public int reload() {
+        TrigramIndex fresh = new TrigramIndex(FIELD_WEIGHTS);
+        lock.writeLock().lock();
+        try {
+            // Under the write lock, so no committed change is applied to the index being replaced
+            jdbcTemplate.query(LOAD_SQL, Map.of(), rs -> {
+                fresh.put(rs.getLong("id"), rs.getString("company_name"), rs.getString("contact_name"),
+                        rs.getString("email"), rs.getString("phone"));
+            });
+            index = fresh;
+            return fresh.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index the client as it is now once the current transaction has committed.
+     */
+    public void indexAfterCommit(Client client) {
+        long id = client.getId();
+        String[] values = {client.getCompanyName(), client.getContactName(), client.getEmail(), client.getPhone()};
+        afterCommit(() -> index.put(id, values));
+    }
+
+    public void removeAfterCommit(Long clientId) {
+        afterCommit(() -> index.remove(clientId));
+    }
+
+    /**
+     * Best matches first.
+     *
+     * @param limit number of hits to return, counted from the best one
+     */
+    public TrigramIndex.Result search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lock.writeLock().lock();
+                try {
+                    change.run();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+}
@@ -3,21 +3,26 @@ package org.example.smartshopv2.service;
 import lombok.RequiredArgsConstructor;
 import org.example.smartshopv2.dto.ClientRequest;
 import org.example.smartshopv2.dto.ClientResponse;
-import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.dto.PagedResponse;
 import org.example.smartshopv2.entity.Client;
-import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.ClientStats;
 import org.example.smartshopv2.entity.User;
-import org.example.smartshopv2.enums.LoyaltyLevel;
 import org.example.smartshopv2.enums.Role;
 import org.example.smartshopv2.mapper.ClientMapper;
-import org.example.smartshopv2.mapper.OrderMapper;
 import org.example.smartshopv2.repository.ClientRepository;
-import org.example.smartshopv2.repository.OrderRepository;
 import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.KeysetCursor;
+import org.example.smartshopv2.util.TrigramIndex;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Function;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,9 +31,10 @@ public class ClientService {
 
     private final ClientRepository clientRepository;
     private final UserRepository userRepository;
-    private final OrderRepository orderRepository;
     private final ClientMapper clientMapper;
-    private final OrderMapper orderMapper;
+    private final ClientStatsService clientStatsService;
+    private final ClientSearchService clientSearchService;
+    private final ClientProfileCache clientProfileCache;
 
     @Transactional
     public ClientResponse createClient(ClientRequest request) {
@@ -49,24 +55,41 @@ public class ClientService {
                 .email(request.getEmail())
                 .phone(request.getPhone())
                 .address(request.getAddress())
+                .latitude(request.getLatitude())
+                .longitude(request.getLongitude())
                 .build();
 
         user.setClient(client);
 
         User savedUser = userRepository.save(user);
-        return clientMapper.toResponse(savedUser.getClient());
+        clientStatsService.createStats(savedUser.getClient());
+        clientSearchService.indexAfterCommit(savedUser.getClient());
+        return toResponses(List.of(savedUser.getClient())).get(0);
     }
 
     public ClientResponse getClient(Long id) {
+        return clientProfileCache.get(id, this::loadClient);
+    }
+
+    private ClientResponse loadClient(Long id) {
         Client client = clientRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Client not found"));
-        return clientMapper.toResponse(client);
+        return toResponses(List.of(client)).get(0);
     }
 
-    public List<ClientResponse> getAllClients() {
-        return clientRepository.findAll().stream()
-                .map(clientMapper::toResponse)
-                .collect(Collectors.toList());
+    public PagedResponse<ClientResponse> getClients(String cursor, int size, boolean includeTotal) {
+        int pageSize = KeysetCursor.pageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Client> clients = after == null
+                ? clientRepository.findPage(limit)
+                : clientRepository.findPageAfter(after.getCreatedAt(), after.getId(), limit);
+
+        String nextCursor = KeysetCursor.next(clients, pageSize, Client::getCreatedAt, Client::getId);
+        List<ClientResponse> data = toResponses(clients.stream().limit(pageSize).toList());
+        Long total = includeTotal ? clientRepository.count() : null;
+        return PagedResponse.ofCursor(data, pageSize, nextCursor, total);
     }
 
     @Transactional
@@ -79,9 +102,14 @@ public class ClientService {
         client.setEmail(request.getEmail());
         client.setPhone(request.getPhone());
         client.setAddress(request.getAddress());
+        client.setLatitude(request.getLatitude());
+        client.setLongitude(request.getLongitude());
 
         Client updated = clientRepository.save(client);
-        return clientMapper.toResponse(updated);
+        clientStatsService.renameClient(updated.getId(), updated.getCompanyName());
+        clientSearchService.indexAfterCommit(updated);
+        clientProfileCache.invalidateAfterCommit(updated.getId());
+        return toResponses(List.of(updated)).get(0);
     }
 
     @Transactional
@@ -89,31 +117,45 @@ public class ClientService {
         Client client = clientRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Client not found"));
         userRepository.delete(client.getUser());
+        clientStatsService.deleteStats(id);
+        clientSearchService.removeAfterCommit(id);
+        clientProfileCache.invalidateAfterCommit(id);
     }
 
-    public List<OrderResponse> getClientOrders(Long clientId) {
-        if (!clientRepository.existsById(clientId)) {
-            throw new RuntimeException("Client not found");
-        }
+    /**
+     * Clients matching every word of the query in their company name, contact
+     * name, email or phone, best matches first.
+     */
+    public Page<ClientResponse> searchClients(String query, Pageable pageable) {
+        TrigramIndex.Result result = clientSearchService.search(query, (int) pageable.getOffset() + pageable.getPageSize());
+        List<Long> ids = result.hits().stream()
+                .skip(pageable.getOffset())
+                .map(TrigramIndex.Hit::key)
+                .toList();
+
+        Map<Long, Client> clients = clientRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        // Keep the ranking; a client deleted since the search is left out
+        List<Client> ranked = ids.stream().map(clients::get).filter(client -> client != null).toList();
+        return new PageImpl<>(toResponses(ranked), pageable, result.total());
+    }
 
-        List<Order> orders = orderRepository.findByClientIdOrderByCreatedAtDesc(clientId);
-        return orders.stream()
-                .map(orderMapper::toResponse)
+    // Order statistics live in ClientStats
+    private List<ClientResponse> toResponses(List<Client> clients) {
+        Map<Long, ClientStats> stats = clientStatsService.getStats(clients.stream().map(Client::getId).toList());
+        return clients.stream()
+                .map(client -> toResponse(client, stats.get(client.getId())))
                 .collect(Collectors.toList());
     }
 
-    public void updateLoyaltyLevel(Client client) {
-        Integer totalOrders = client.getTotalOrders();
-        Double totalSpent = client.getTotalSpent();
-
-        if (totalOrders >= 20 || totalSpent >= 15000) {
-            client.setLoyaltyLevel(LoyaltyLevel.PLATINUM);
-        } else if (totalOrders >= 10 || totalSpent >= 5000) {
-            client.setLoyaltyLevel(LoyaltyLevel.GOLD);
-        } else if (totalOrders >= 3 || totalSpent >= 1000) {
-            client.setLoyaltyLevel(LoyaltyLevel.SILVER);
-        } else {
-            client.setLoyaltyLevel(LoyaltyLevel.BASIC);
+    private ClientResponse toResponse(Client client, ClientStats stats) {
+        ClientResponse response = clientMapper.toResponse(client);
+        if (stats != null) {
+            response.setTotalOrders(stats.getTotalOrders());
+            response.setTotalSpent(stats.getTotalSpent().toDouble());
+            response.setFirstOrderDate(stats.getFirstOrderDate());
+            response.setLastOrderDate(stats.getLastOrderDate());
         }
+        return response;
     }
 }
@@ -0,0 +1,317 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ClientStatsResponse;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.ClientStats;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.mapper.ClientStatsMapper;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.ClientStatsRepository;
+import org.example.smartshopv2.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Client statistics projection (client_stats).
+ *
+ * Confirming an order no longer touches the client row: once the order
+ * transaction has committed, an event goes on an in-memory queue, and a
+ * scheduled flush applies the queued events in one transaction, one row
+ * update per client. Each order is flagged (orders.counted_in_stats) in the
+ * same transaction as the increment, so an order is counted exactly once.
+ * Events lost on a restart or a full queue leave their order unflagged; the
+ * reconciliation job counts those and rebuilds every client's row from the
+ * orders table. The loyalty level is recomputed here (see LoyaltyPolicy) and
+ * copied to the clients table when it changes. Rows written here are handed
+ * to ClientLeaderboardService, and their clients' cached profiles dropped,
+ * once their transaction has committed.
+ */
+@Service
+public class ClientStatsService {
+
+    private static final String LOCK_UNCOUNTED_SQL =
+            "SELECT id FROM orders WHERE id IN (:ids) AND counted_in_stats = false FOR UPDATE";
+
+    private static final String MARK_COUNTED_SQL = "UPDATE orders SET counted_in_stats = true WHERE id IN (:ids)";
+
+    private static final String MARK_ALL_COUNTED_SQL =
+            "UPDATE orders SET counted_in_stats = true WHERE status = 'CONFIRMED' AND counted_in_stats = false";
+
+    private static final String REBUILD_SQL =
+            "SELECT c.id, c.company_name, c.created_at, c.loyalty_level, COUNT(o.id) AS total_orders, " +
+            "COALESCE(SUM(o.totalttc), 0) AS total_spent, " +
+            "MIN(o.created_at) AS first_order_date, MAX(o.created_at) AS last_order_date " +
+            "FROM clients c LEFT JOIN orders o ON o.client_id = c.id AND o.status = 'CONFIRMED' " +
+            "AND o.counted_in_stats = true " +
+            "GROUP BY c.id, c.company_name, c.created_at, c.loyalty_level";
+
+    private static final String UPDATE_LOYALTY_SQL = "UPDATE clients SET loyalty_level = :level WHERE id = :id";
+
+    private static final int REBUILD_CHUNK_SIZE = 500;
+
+    private final ClientStatsRepository statsRepository;
+    private final ClientRepository clientRepository;
+    private final ClientStatsMapper statsMapper;
+    private final ClientLeaderboardService leaderboard;
+    private final ClientProfileCache profileCache;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<OrderConfirmed> queue;
+    private final int maxBatch;
+
+    public ClientStatsService(ClientStatsRepository statsRepository,
+                              ClientRepository clientRepository,
+                              ClientStatsMapper statsMapper,
+                              ClientLeaderboardService leaderboard,
+                              ClientProfileCache profileCache,
+                              NamedParameterJdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${smartshop.client-stats.queue-capacity:100000}") int queueCapacity,
+                              @Value("${smartshop.client-stats.max-batch:5000}") int maxBatch) {
+        this.statsRepository = statsRepository;
+        this.clientRepository = clientRepository;
+        this.statsMapper = statsMapper;
+        this.leaderboard = leaderboard;
+        this.profileCache = profileCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+    }
+
+    private record OrderConfirmed(Long orderId, Long clientId, Money totalTTC, LocalDateTime createdAt) {
+    }
+
+    public ClientStatsResponse getStats(Long clientId) {
+        ClientStats stats = statsRepository.findById(clientId)
+                .orElseThrow(() -> new RuntimeException("Client not found"));
+        return statsMapper.toResponse(stats);
+    }
+
+    public Map<Long, ClientStats> getStats(List<Long> clientIds) {
+        return statsRepository.findAllById(clientIds).stream()
+                .collect(Collectors.toMap(ClientStats::getClientId, Function.identity()));
+    }
+
+    /**
+     * Queue the order for the client's statistics once the current transaction
+     * has committed. If the queue is full the event is dropped and the order is
+     * picked up by the next reconciliation.
+     */
+    public void orderConfirmedAfterCommit(Order order) {
+        OrderConfirmed event = new OrderConfirmed(order.getId(), order.getClient().getId(),
+                order.getTotalTTC(), order.getCreatedAt());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queue.offer(event);
+            }
+        });
+    }
+
+    public int getPendingEvents() {
+        return queue.size();
+    }
+
+    @Scheduled(fixedDelayString = "${smartshop.client-stats.flush-interval:PT1S}")
+    public void flushJob() {
+        int flushed;
+        do {
+            flushed = flush();
+        } while (flushed == maxBatch);
+    }
+
+    /**
+     * Apply up to max-batch queued events.
+     *
+     * @return the number of events taken from the queue
+     */
+    public synchronized int flush() {
+        List<OrderConfirmed> events = new ArrayList<>();
+        queue.drainTo(events, maxBatch);
+        if (!events.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> apply(events));
+        }
+        return events.size();
+    }
+
+    private void apply(List<OrderConfirmed> events) {
+        Map<Long, OrderConfirmed> byOrder = events.stream()
+                .collect(Collectors.toMap(OrderConfirmed::orderId, Function.identity(), (a, b) -> a));
+        List<Long> uncounted = jdbcTemplate.queryForList(LOCK_UNCOUNTED_SQL,
+                Map.of("ids", byOrder.keySet()), Long.class);
+        if (uncounted.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(MARK_COUNTED_SQL, Map.of("ids", uncounted));
+
+        Map<Long, List<OrderConfirmed>> byClient = uncounted.stream()
+                .map(byOrder::get)
+                .collect(Collectors.groupingBy(OrderConfirmed::clientId));
+        Map<Long, ClientStats> stats = new HashMap<>(getStats(new ArrayList<>(byClient.keySet())));
+        List<ClientStats> created = new ArrayList<>();
+        List<Long> missing = byClient.keySet().stream().filter(id -> !stats.containsKey(id)).toList();
+        for (Client client : clientRepository.findAllById(missing)) {
+            ClientStats row = newStats(client);
+            stats.put(client.getId(), row);
+            created.add(row);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<MapSqlParameterSource> levelChanges = new ArrayList<>();
+        List<ClientStats> updated = new ArrayList<>();
+        for (Map.Entry<Long, List<OrderConfirmed>> entry : byClient.entrySet()) {
+            ClientStats row = stats.get(entry.getKey());
+            if (row == null) {
+                continue; // client deleted since
+            }
+            for (OrderConfirmed event : entry.getValue()) {
+                row.setTotalOrders(row.getTotalOrders() + 1);
+                row.setTotalSpent(row.getTotalSpent().plus(event.totalTTC()));
+                if (row.getFirstOrderDate() == null || event.createdAt().isBefore(row.getFirstOrderDate())) {
+                    row.setFirstOrderDate(event.createdAt());
+                }
+                if (row.getLastOrderDate() == null || event.createdAt().isAfter(row.getLastOrderDate())) {
+                    row.setLastOrderDate(event.createdAt());
+                }
+            }
+            row.setUpdatedAt(now);
+            updateLoyaltyLevel(row, levelChanges);
+            updated.add(row);
+        }
+        statsRepository.saveAll(created);
+        leaderboard.updateAfterCommit(updated);
+        profileCache.invalidateAfterCommit(byClient.keySet());
+        if (!levelChanges.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LOYALTY_SQL, levelChanges.toArray(MapSqlParameterSource[]::new));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${smartshop.client-stats.reconcile-interval:PT1H}")
+    public void reconcileJob() {
+        reconcile();
+    }
+
+    /**
+     * Count the confirmed orders that never made it through the queue and
+     * rewrite every client's statistics from the orders table.
+     *
+     * @return the number of clients whose row was written
+     */
+    public synchronized int reconcile() {
+        // Runs under the same monitor as flush, so no other transaction flags orders meanwhile
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(MARK_ALL_COUNTED_SQL, Map.of()));
+
+        List<ClientStats> rebuilt = new ArrayList<>();
+        Map<Long, LoyaltyLevel> currentLevels = new HashMap<>();
+        jdbcTemplate.query(REBUILD_SQL, rs -> {
+            long clientId = rs.getLong("id");
+            rebuilt.add(ClientStats.builder()
+                    .clientId(clientId)
+                    .companyName(rs.getString("company_name"))
+                    .memberSince(rs.getTimestamp("created_at").toLocalDateTime())
+                    .totalOrders(rs.getInt("total_orders"))
+                    .totalSpent(Money.of(rs.getBigDecimal("total_spent")))
+                    .firstOrderDate(toLocalDateTime(rs.getTimestamp("first_order_date")))
+                    .lastOrderDate(toLocalDateTime(rs.getTimestamp("last_order_date")))
+                    .build());
+            currentLevels.put(clientId, LoyaltyLevel.valueOf(rs.getString("loyalty_level")));
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < rebuilt.size(); from += REBUILD_CHUNK_SIZE) {
+            List<ClientStats> chunk = rebuilt.subList(from, Math.min(from + REBUILD_CHUNK_SIZE, rebuilt.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, ClientStats> existing = getStats(chunk.stream().map(ClientStats::getClientId).toList());
+                List<ClientStats> created = new ArrayList<>();
+                List<MapSqlParameterSource> levelChanges = new ArrayList<>();
+                List<ClientStats> rows = new ArrayList<>();
+                for (ClientStats fresh : chunk) {
+                    ClientStats row = existing.get(fresh.getClientId());
+                    if (row == null) {
+                        row = fresh;
+                        created.add(row);
+                    } else {
+                        row.setCompanyName(fresh.getCompanyName());
+                        row.setTotalOrders(fresh.getTotalOrders());
+                        row.setTotalSpent(fresh.getTotalSpent());
+                        row.setFirstOrderDate(fresh.getFirstOrderDate());
+                        row.setLastOrderDate(fresh.getLastOrderDate());
+                    }
+                    row.setLoyaltyLevel(currentLevels.get(row.getClientId()));
+                    row.setUpdatedAt(now);
+                    updateLoyaltyLevel(row, levelChanges);
+                    rows.add(row);
+                }
+                statsRepository.saveAll(created);
+                leaderboard.updateAfterCommit(rows);
+                profileCache.invalidateAfterCommit(rows.stream().map(ClientStats::getClientId).toList());
+                if (!levelChanges.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_LOYALTY_SQL, levelChanges.toArray(MapSqlParameterSource[]::new));
+                }
+            });
+        }
+        return rebuilt.size();
+    }
+
+    /**
+     * Row for a new client, written in the client's transaction.
+     */
+    public void createStats(Client client) {
+        ClientStats stats = statsRepository.save(newStats(client));
+        leaderboard.updateAfterCommit(List.of(stats));
+    }
+
+    public void renameClient(Long clientId, String companyName) {
+        statsRepository.findById(clientId).ifPresent(stats -> {
+            // Only the name: a stats flush may commit newer totals meanwhile
+            stats.setCompanyName(companyName);
+            leaderboard.renameAfterCommit(clientId, companyName);
+        });
+    }
+
+    public void deleteStats(Long clientId) {
+        statsRepository.deleteById(clientId);
+        leaderboard.removeAfterCommit(clientId);
+    }
+
+    private static ClientStats newStats(Client client) {
+        return ClientStats.builder()
+                .clientId(client.getId())
+                .companyName(client.getCompanyName())
+                .loyaltyLevel(client.getLoyaltyLevel())
+                .memberSince(client.getCreatedAt())
+                .build();
+    }
+
+    private void updateLoyaltyLevel(ClientStats row, List<MapSqlParameterSource> levelChanges) {
+        LoyaltyLevel level = LoyaltyPolicy.levelFor(row.getTotalOrders(), row.getTotalSpent());
+        if (level != row.getLoyaltyLevel()) {
+            row.setLoyaltyLevel(level);
+            levelChanges.add(new MapSqlParameterSource()
+                    .addValue("level", level.name())
+                    .addValue("id", row.getClientId()));
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(java.sql.Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.config.DiscountProperties;
+import org.example.smartshopv2.entity.OrderItem;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Computes order discounts from the configured rules.
+ *
+ * The rules are compiled once into an immutable table (arrays indexed by
+ * loyalty level, sorted product IDs) and swapped atomically by {@link #load}.
+ * Evaluating an order only reads that table.
+ *
+ * Order-level percentages (loyalty + quantity + promo code) apply to the whole
+ * subtotal; product percentages apply to their own line on top of that. The
+ * discount never exceeds the subtotal. Promo codes are checked by
+ * PromoCodeService; only their percent reaches the engine.
+ */
+@Service
+public class DiscountEngine {
+
+    private final AtomicReference<Rules> rules = new AtomicReference<>();
+
+    public DiscountEngine(DiscountProperties properties) {
+        this.rules.set(Rules.compile(properties));
+    }
+
+    /**
+     * Replace the rules. Orders being priced keep the table they started with.
+     */
+    public void load(DiscountProperties properties) {
+        rules.set(Rules.compile(properties));
+    }
+
+    public DiscountProperties getRules() {
+        return rules.get().source;
+    }
+
+    /**
+     * @param promoPercent percent of a promo code already redeemed through PromoCodeService, or 0
+     */
+    public Money calculateDiscount(LoyaltyLevel level, Money subtotalHT, List<OrderItem> items, int promoPercent) {
+        Rules table = rules.get();
+        long subtotal = subtotalHT.getCentimes();
+
+        int units = 0;
+        for (int i = 0; i < items.size(); i++) {
+            units += items.get(i).getQuantity();
+        }
+
+        int orderPercent = table.loyaltyPercent(level, subtotal) + table.quantityPercent(units) + promoPercent;
+        long discount = Money.percentOf(subtotal, Math.min(orderPercent, 100));
+
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            int percent = table.productPercent(item.getProduct().getId(), item.getQuantity());
+            if (percent > 0) {
+                discount += Money.percentOf(item.getSubtotal().getCentimes(), percent);
+            }
+        }
+        return Money.ofCentimes(Math.min(discount, subtotal));
+    }
+
+    /**
+     * Immutable evaluation table.
+     */
+    private static final class Rules {
+        private final DiscountProperties source;
+
+        // Indexed by LoyaltyLevel.ordinal(); Long.MAX_VALUE means no rule
+        private final long[] loyaltyMinSubtotal;
+        private final int[] loyaltyPercent;
+
+        // Sorted by product ID, then by minimum quantity descending
+        private final long[] productIds;
+        private final int[] productMinQuantity;
+        private final int[] productPercent;
+
+        // Sorted by minimum quantity ascending
+        private final int[] quantityMin;
+        private final int[] quantityPercent;
+
+        private Rules(DiscountProperties source) {
+            this.source = source;
+
+            int levels = LoyaltyLevel.values().length;
+            loyaltyMinSubtotal = new long[levels];
+            loyaltyPercent = new int[levels];
+            Arrays.fill(loyaltyMinSubtotal, Long.MAX_VALUE);
+            for (DiscountProperties.LoyaltyRule rule : source.getLoyalty()) {
+                if (rule.getLevel() == null) {
+                    throw new IllegalArgumentException("Loyalty rule without level");
+                }
+                int index = rule.getLevel().ordinal();
+                if (loyaltyMinSubtotal[index] != Long.MAX_VALUE) {
+                    throw new IllegalArgumentException("Duplicate loyalty rule: " + rule.getLevel());
+                }
+                loyaltyMinSubtotal[index] = Money.of(rule.getMinSubtotal()).getCentimes();
+                loyaltyPercent[index] = checkPercent(rule.getPercent());
+            }
+
+            for (DiscountProperties.ProductRule rule : source.getProducts()) {
+                if (rule.getProductId() == null) {
+                    throw new IllegalArgumentException("Product rule without productId");
+                }
+            }
+            List<DiscountProperties.ProductRule> products = source.getProducts().stream()
+                    .sorted(Comparator.comparing(DiscountProperties.ProductRule::getProductId)
+                            .thenComparing(DiscountProperties.ProductRule::getMinQuantity, Comparator.reverseOrder()))
+                    .toList();
+            productIds = new long[products.size()];
+            productMinQuantity = new int[products.size()];
+            productPercent = new int[products.size()];
+            for (int i = 0; i < products.size(); i++) {
+                productIds[i] = products.get(i).getProductId();
+                productMinQuantity[i] = products.get(i).getMinQuantity();
+                productPercent[i] = checkPercent(products.get(i).getPercent());
+            }
+
+            List<DiscountProperties.QuantityRule> quantities = source.getQuantities().stream()
+                    .sorted(Comparator.comparingInt(DiscountProperties.QuantityRule::getMinQuantity))
+                    .toList();
+            quantityMin = new int[quantities.size()];
+            quantityPercent = new int[quantities.size()];
+            for (int i = 0; i < quantities.size(); i++) {
+                quantityMin[i] = quantities.get(i).getMinQuantity();
+                quantityPercent[i] = checkPercent(quantities.get(i).getPercent());
+            }
+        }
+
+        static Rules compile(DiscountProperties source) {
+            return new Rules(source);
+        }
+
+        int loyaltyPercent(LoyaltyLevel level, long subtotal) {
+            int index = level.ordinal();
+            return subtotal >= loyaltyMinSubtotal[index] ? loyaltyPercent[index] : 0;
+        }
+
+        int quantityPercent(int units) {
+            // Rule with the highest threshold reached
+            int low = 0;
+            int high = quantityMin.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (quantityMin[mid] <= units) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found < 0 ? 0 : quantityPercent[found];
+        }
+
+        int productPercent(long productId, int quantity) {
+            // First rule of this product, then the highest threshold reached
+            int low = 0;
+            int high = productIds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (productIds[mid] < productId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < productIds.length && productIds[i] == productId; i++) {
+                if (quantity >= productMinQuantity[i]) {
+                    return productPercent[i];
+                }
+            }
+            return 0;
+        }
+
+        private static int checkPercent(int percent) {
+            if (percent < 0 || percent > 100) {
+                throw new IllegalArgumentException("Discount percent must be between 0 and 100: " + percent);
+            }
+            return percent;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.smartshopv2.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ships from the warehouse holding the most of the product, so a line is
+ * split as rarely as possible.
+ */
+@Component
+public class FullestWarehouseStrategy implements StockAllocationStrategy {
+
+    private static final Comparator<Source> FULLEST_FIRST = Comparator.comparingInt(Source::available).reversed()
+            .thenComparingLong(Source::warehouseId);
+
+    @Override
+    public String name() {
+        return "fullest";
+    }
+
+    @Override
+    public Map<Long, Integer> allocate(int quantity, List<Source> sources) {
+        return StockAllocationStrategy.takeInOrder(quantity, sources.stream().sorted(FULLEST_FIRST).toList());
+    }
+}
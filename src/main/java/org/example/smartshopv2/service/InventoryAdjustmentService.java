@@ -0,0 +1,242 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.InventoryAdjustmentStats;
+import org.example.smartshopv2.entity.BatchJobCheckpoint;
+import org.example.smartshopv2.repository.BatchJobCheckpointRepository;
+import org.example.smartshopv2.util.DeltaLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warehouse stock adjustments (+/- deltas), written behind.
+ *
+ * An adjustment is appended to a write-ahead log, applied to the catalog's
+ * stock counters, and acknowledged once the log is on disk. Every flush
+ * interval, the deltas pending since the last flush are added to
+ * products.stock_quantity in one JDBC batch, in the same transaction as the
+ * log position they cover, and the log segments before it are deleted. On
+ * startup, records after that position are applied again, so an
+ * acknowledged adjustment is never lost nor counted twice. This assumes a
+ * single application instance.
+ *
+ * If the log cannot be written or synced, what reached the disk is
+ * unknown: adjustments already applied stay applied and are still flushed,
+ * but new ones are refused until a restart replays the log.
+ */
+@Service
+public class InventoryAdjustmentService {
+
+    private static final String WRITE_BEHIND_JOB = "inventory-write-behind";
+
+    private static final String ADD_STOCK_SQL = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+
+    private static final String LOCK_STOCK_SQL =
+            "SELECT stock_quantity FROM products WHERE id = ? AND deleted = FALSE FOR UPDATE";
+
+    private final CatalogCache catalogCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final Path logDir;
+
+    // Appending and applying go together, against draining
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    private volatile DeltaLog log;
+    private volatile boolean failed;
+
+    private final LongAdder adjustments = new LongAdder();
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+
+    public InventoryAdjustmentService(CatalogCache catalogCache,
+                                      JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      BatchJobCheckpointRepository checkpointRepository,
+                                      @Value("${smartshop.inventory.log-dir:data/inventory-log}") Path logDir) {
+        this.catalogCache = catalogCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.logDir = logDir;
+    }
+
+    /**
+     * Open the log and write what it holds past the last flush.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        long checkpoint = checkpointRepository.findById(WRITE_BEHIND_JOB)
+                .map(BatchJobCheckpoint::getLastProcessedId)
+                .orElse(0L);
+        DeltaLog opened = DeltaLog.open(logDir, checkpoint);
+        Map<Long, Integer> replayed = new LinkedHashMap<>();
+        for (DeltaLog.Record record : opened.recovered()) {
+            replayed.merge(record.key(), record.delta(), Integer::sum);
+        }
+        synchronized (lock) {
+            catalogCache.applyPendingStock(replayed);
+            log = opened;
+        }
+        flush();
+    }
+
+    /**
+     * Apply stock deltas (productId -> delta) to every product or to none.
+     * Returns once they are logged on disk.
+     *
+     * Deltas that take stock away are checked against the product rows,
+     * locked, plus the adjustments not yet written to them: a reservation
+     * holding a row until its order commits is waited for, not overdrawn.
+     *
+     * @return the stock of each adjusted product afterwards
+     */
+    public Map<Long, Integer> adjust(Map<Long, Integer> adjustment) {
+        DeltaLog current = log;
+        if (current == null) {
+            throw new RuntimeException("Inventory adjustments are not available yet");
+        }
+        Map<Long, Integer> taken = new TreeMap<>();
+        adjustment.forEach((productId, delta) -> {
+            if (delta == null) {
+                throw new RuntimeException("Stock delta is required for product: " + productId);
+            }
+            if (delta < 0) {
+                taken.put(productId, delta);
+            }
+        });
+
+        long lsn;
+        Map<Long, Integer> stock = new LinkedHashMap<>();
+        if (taken.isEmpty()) {
+            lsn = append(current, adjustment, Map.of(), stock);
+        } else {
+            // In ID order, like reservations, so the two never deadlock
+            lsn = transactionTemplate.execute(status -> {
+                Map<Long, Integer> rows = new LinkedHashMap<>();
+                for (Long productId : taken.keySet()) {
+                    List<Integer> row = jdbcTemplate.queryForList(LOCK_STOCK_SQL, Integer.class, productId);
+                    if (row.isEmpty()) {
+                        throw new RuntimeException("Product not found: " + productId);
+                    }
+                    rows.put(productId, row.get(0));
+                }
+                return append(current, adjustment, rows, stock);
+            });
+        }
+        try {
+            current.sync(lsn);
+        } catch (RuntimeException e) {
+            failed = true;
+            throw new RuntimeException("Stock adjusted but not confirmed on disk; inventory adjustments are suspended", e);
+        }
+        adjustments.increment();
+        deltas.add(adjustment.size());
+        return stock;
+    }
+
+    // Check, log and apply the deltas; rows holds the locked stock of the products they take from
+    private long append(DeltaLog current, Map<Long, Integer> adjustment, Map<Long, Integer> rows,
+                        Map<Long, Integer> stock) {
+        synchronized (lock) {
+            for (Map.Entry<Long, Integer> delta : adjustment.entrySet()) {
+                Long productId = delta.getKey();
+                if (catalogCache.getSnapshot().get(productId) == null) {
+                    throw new RuntimeException("Product not found: " + productId);
+                }
+                Integer row = rows.get(productId);
+                if (row != null && row + catalogCache.getLockedPendingStock(productId) + delta.getValue() < 0) {
+                    throw new RuntimeException("Stock cannot go below zero for product: " + productId);
+                }
+            }
+            if (failed) {
+                throw new RuntimeException("Inventory adjustments are suspended after a log failure");
+            }
+            long lsn;
+            try {
+                lsn = current.append(adjustment);
+            } catch (RuntimeException e) {
+                // A batch written in part would hide every later one from the replay
+                failed = true;
+                throw e;
+            }
+            catalogCache.applyPendingStock(adjustment);
+            adjustment.keySet().forEach(productId -> stock.put(productId, catalogCache.getStock(productId)));
+            return lsn;
+        }
+    }
+
+    /**
+     * Write the adjustments pending since the last flush, in one batch.
+     *
+     * @return the number of products written
+     */
+    @Scheduled(fixedDelayString = "${smartshop.inventory.flush-interval:PT1S}")
+    public int flush() {
+        DeltaLog current = log;
+        if (current == null) {
+            return 0;
+        }
+        synchronized (flushLock) {
+            Map<Long, Integer> drained;
+            long lsn;
+            synchronized (lock) {
+                drained = catalogCache.drainPendingStock();
+                if (drained.isEmpty()) {
+                    return 0;
+                }
+                // Every record up to lsn is now in drained (or was written before)
+                lsn = current.rotate();
+            }
+
+            // In ID order, like reservations, so the two never deadlock
+            List<Object[]> args = new ArrayList<>(drained.size());
+            new TreeMap<>(drained).forEach((productId, delta) -> args.add(new Object[]{delta, productId}));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(ADD_STOCK_SQL, args);
+                    // The rows stay locked until commit: readers holding them never count the deltas twice
+                    catalogCache.completePendingStock(drained);
+                    BatchJobCheckpoint checkpoint = checkpointRepository.findById(WRITE_BEHIND_JOB)
+                            .orElseGet(() -> BatchJobCheckpoint.builder().jobName(WRITE_BEHIND_JOB).build());
+                    checkpoint.setLastProcessedId(lsn);
+                    checkpoint.setProcessedCount(checkpoint.getProcessedCount() + args.size());
+                    checkpoint.setLastCompletedAt(LocalDateTime.now());
+                    checkpointRepository.save(checkpoint);
+                });
+            } catch (RuntimeException e) {
+                // Keep the deltas (and their log segments) for the next attempt
+                catalogCache.restorePendingStock(drained);
+                throw e;
+            }
+            current.deleteUpTo(lsn);
+            flushes.increment();
+            rowsWritten.add(args.size());
+            return args.size();
+        }
+    }
+
+    public InventoryAdjustmentStats getStats() {
+        return InventoryAdjustmentStats.builder()
+                .adjustments(adjustments.sum())
+                .deltas(deltas.sum())
+                .flushes(flushes.sum())
+                .rowsWritten(rowsWritten.sum())
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+
+import java.util.List;
+
+/**
+ * Loyalty tiers reached by a client's confirmed orders.
+ *
+ * A client reaches a tier with enough orders or enough money spent, whichever
+ * comes first; tiers are checked from the highest down. The rule has no side
+ * effects: ClientStatsService applies it as orders are counted, and
+ * LoyaltyRecomputeService applies its SQL form to the whole client base.
+ */
+public final class LoyaltyPolicy {
+
+    public record Tier(LoyaltyLevel level, int minOrders, Money minSpent) {
+    }
+
+    // Highest first
+    private static final List<Tier> TIERS = List.of(
+            new Tier(LoyaltyLevel.PLATINUM, 20, Money.of(15000)),
+            new Tier(LoyaltyLevel.GOLD, 10, Money.of(5000)),
+            new Tier(LoyaltyLevel.SILVER, 3, Money.of(1000)));
+
+    private LoyaltyPolicy() {
+    }
+
+    public static List<Tier> tiers() {
+        return TIERS;
+    }
+
+    public static LoyaltyLevel levelFor(int totalOrders, Money totalSpent) {
+        for (Tier tier : TIERS) {
+            if (totalOrders >= tier.minOrders() || !totalSpent.isLessThan(tier.minSpent())) {
+                return tier.level();
+            }
+        }
+        return LoyaltyLevel.BASIC;
+    }
+
+    /**
+     * The same rule as a SQL CASE expression over the given columns, yielding
+     * the level name. Money columns hold amounts in DH.
+     */
+    public static String sqlCase(String totalOrdersColumn, String totalSpentColumn) {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (Tier tier : TIERS) {
+            sql.append(" WHEN ").append(totalOrdersColumn).append(" >= ").append(tier.minOrders())
+                    .append(" OR ").append(totalSpentColumn).append(" >= ").append(tier.minSpent().toBigDecimal())
+                    .append(" THEN '").append(tier.level().name()).append("'");
+        }
+        return sql.append(" ELSE '").append(LoyaltyLevel.BASIC.name()).append("' END").toString();
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.LoyaltyRecomputeStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes the loyalty level of every client from its statistics.
+ *
+ * Levels otherwise only move when ClientStatsService counts new orders, so a
+ * change of LoyaltyPolicy would never reach clients without new orders. The
+ * client_stats ID range is cut into fixed-size ranges that a fork-join pool
+ * processes in parallel, each in its own transaction with two set-based
+ * updates: one for the client_stats rows whose level differs from the policy,
+ * one copying those levels to the clients rows that disagree. Rows already at
+ * the right level are not written, so a second run changes nothing.
+ *
+ * Only one run at a time; progress is available through getStatus. The
+ * leaderboard is reloaded and the profile cache emptied after a run that
+ * changed levels.
+ */
+@Service
+public class LoyaltyRecomputeService {
+
+    private static final String LEVEL_SQL = LoyaltyPolicy.sqlCase("total_orders", "total_spent");
+
+    private static final String BOUNDS_SQL =
+            "SELECT MIN(client_id) AS min_id, MAX(client_id) AS max_id FROM client_stats";
+
+    private static final String UPDATE_STATS_SQL =
+            "UPDATE client_stats SET loyalty_level = " + LEVEL_SQL + ", updated_at = :now " +
+            "WHERE client_id BETWEEN :from AND :to AND loyalty_level <> " + LEVEL_SQL;
+
+    private static final String SYNC_CLIENTS_SQL =
+            "UPDATE clients SET loyalty_level = " +
+            "(SELECT s.loyalty_level FROM client_stats s WHERE s.client_id = clients.id) " +
+            "WHERE id BETWEEN :from AND :to AND EXISTS (SELECT 1 FROM client_stats s " +
+            "WHERE s.client_id = clients.id AND s.loyalty_level <> clients.loyalty_level)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClientLeaderboardService leaderboard;
+    private final ClientProfileCache profileCache;
+    private final ForkJoinPool pool;
+    private final long rangeSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger rangesDone = new AtomicInteger();
+    private final AtomicLong clientsChanged = new AtomicLong();
+    private final AtomicLong clientsSynced = new AtomicLong();
+    private volatile int rangesTotal;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startedNanos;
+    private volatile long durationNanos;
+    private volatile String error;
+
+    public LoyaltyRecomputeService(NamedParameterJdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ClientLeaderboardService leaderboard,
+                                   ClientProfileCache profileCache,
+                                   @Value("${smartshop.loyalty.recompute.parallelism:4}") int parallelism,
+                                   @Value("${smartshop.loyalty.recompute.range-size:10000}") long rangeSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.leaderboard = leaderboard;
+        this.profileCache = profileCache;
+        this.pool = new ForkJoinPool(parallelism);
+        this.rangeSize = rangeSize;
+    }
+
+    @Scheduled(cron = "${smartshop.loyalty.recompute.cron:0 30 3 * * *}")
+    public void recomputeJob() {
+        if (!running.get()) {
+            recompute();
+        }
+    }
+
+    /**
+     * Start a recompute in the background.
+     */
+    public LoyaltyRecomputeStatus start() {
+        begin();
+        pool.execute(() -> {
+            try {
+                run();
+            } catch (RuntimeException e) {
+                // Kept in the status
+            }
+        });
+        return getStatus();
+    }
+
+    /**
+     * Recompute and wait for the result.
+     */
+    public LoyaltyRecomputeStatus recompute() {
+        begin();
+        run();
+        return getStatus();
+    }
+
+    public LoyaltyRecomputeStatus getStatus() {
+        boolean isRunning = running.get();
+        long nanos = isRunning ? System.nanoTime() - startedNanos : durationNanos;
+        return LoyaltyRecomputeStatus.builder()
+                .running(isRunning)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .durationMs(startedAt != null ? TimeUnit.NANOSECONDS.toMillis(nanos) : 0)
+                .rangesTotal(rangesTotal)
+                .rangesDone(rangesDone.get())
+                .clientsChanged(clientsChanged.get())
+                .clientsSynced(clientsSynced.get())
+                .error(error)
+                .build();
+    }
+
+    private void begin() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Loyalty recompute already running");
+        }
+        rangesTotal = 0;
+        rangesDone.set(0);
+        clientsChanged.set(0);
+        clientsSynced.set(0);
+        error = null;
+        finishedAt = null;
+        startedAt = LocalDateTime.now();
+        startedNanos = System.nanoTime();
+    }
+
+    private void run() {
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap(BOUNDS_SQL, Map.of());
+            if (bounds.get("min_id") != null) {
+                long minId = ((Number) bounds.get("min_id")).longValue();
+                long maxId = ((Number) bounds.get("max_id")).longValue();
+                int ranges = (int) ((maxId - minId) / rangeSize + 1);
+                rangesTotal = ranges;
+                pool.invoke(new RangeTask(minId, 0, ranges));
+            }
+            if (clientsChanged.get() > 0) {
+                leaderboard.reload();
+                profileCache.invalidateAll();
+            }
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            durationNanos = System.nanoTime() - startedNanos;
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    private void recomputeRange(long fromId, long toId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", fromId)
+                .addValue("to", toId)
+                .addValue("now", LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            clientsChanged.addAndGet(jdbcTemplate.update(UPDATE_STATS_SQL, params));
+            clientsSynced.addAndGet(jdbcTemplate.update(SYNC_CLIENTS_SQL, params));
+        });
+        rangesDone.incrementAndGet();
+    }
+
+    /**
+     * Ranges [first, last) of the ID space, halved until a single range is left.
+     */
+    private class RangeTask extends RecursiveAction {
+
+        private final long minId;
+        private final int first;
+        private final int last;
+
+        RangeTask(long minId, int first, int last) {
+            this.minId = minId;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first == 1) {
+                long fromId = minId + first * rangeSize;
+                recomputeRange(fromId, fromId + rangeSize - 1);
+            } else {
+                int mid = (first + last) >>> 1;
+                invokeAll(new RangeTask(minId, first, mid), new RangeTask(minId, mid, last));
+            }
+        }
+    }
+}
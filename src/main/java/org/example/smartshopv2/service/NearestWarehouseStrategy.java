@@ -0,0 +1,28 @@
+package org.example.smartshopv2.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ships from the warehouse closest to the client, then the next closest for
+ * what it lacks. Warehouses at an unknown distance come last, by ID.
+ */
+@Component
+public class NearestWarehouseStrategy implements StockAllocationStrategy {
+
+    private static final Comparator<Source> NEAREST_FIRST = Comparator.comparingDouble(Source::distanceKm)
+            .thenComparingLong(Source::warehouseId);
+
+    @Override
+    public String name() {
+        return "nearest";
+    }
+
+    @Override
+    public Map<Long, Integer> allocate(int quantity, List<Source> sources) {
+        return StockAllocationStrategy.takeInOrder(quantity, sources.stream().sorted(NEAREST_FIRST).toList());
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.smartshopv2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.OrderItemResponse;
+import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.dto.PaymentResponse;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.enums.ExportFormat;
+import org.example.smartshopv2.enums.PaymentStatus;
+import org.example.smartshopv2.mapper.OrderMapper;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.util.Money;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Streams every order (with its lines and payments) straight to an output stream.
+ *
+ * Order IDs are read through a database cursor and resolved in chunks; the
+ * persistence context is cleared after each chunk, so memory use does not
+ * grow with the number of orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final String CSV_HEADER = "order_id,created_at,client_id,client_name,status,promo_code," +
+            "subtotal_ht,discount_amount,tva,total_ttc,montant_restant,payments_count,payments_encaisse," +
+            "product_id,product_name,quantity,price_ht,line_subtotal";
+
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final PaymentLedgerService paymentLedgerService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    /**
+     * @return the number of exported orders
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(ExportFormat format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long exported = 0;
+
+        try (Stream<Long> ids = orderRepository.streamAllIds()) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            Iterator<Long> it = ids.iterator();
+            List<Long> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == CHUNK_SIZE || !it.hasNext()) {
+                    exported += writeChunk(chunk, format, writer);
+                    chunk.clear();
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Order export failed", e);
+        }
+        return exported;
+    }
+
+    private int writeChunk(List<Long> ids, ExportFormat format, Writer writer) throws IOException {
+        List<Order> orders = new ArrayList<>(orderRepository.withPayments(orderRepository.findWithItemsByIdIn(ids)));
+        orders.sort(Comparator.comparing(Order::getId));
+        Map<Long, PaymentLedgerService.Balance> balances = paymentLedgerService.balances(ids);
+
+        for (Order order : orders) {
+            OrderResponse response = orderMapper.toResponse(order);
+            response.setMontantRestant(balances.get(order.getId()).montantRestant());
+            if (format == ExportFormat.CSV) {
+                writeCsv(response, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(response));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+
+        // Detach the chunk so the persistence context stays small
+        entityManager.clear();
+        return orders.size();
+    }
+
+    /**
+     * One row per order line; order and payment columns are repeated on each line.
+     */
+    private void writeCsv(OrderResponse order, Writer writer) throws IOException {
+        long paymentsCount = order.getPayments().size();
+        Money encaisse = order.getPayments().stream()
+                .filter(p -> p.getStatus() == PaymentStatus.ENCAISSE)
+                .map(PaymentResponse::getMontant)
+                .reduce(Money.ZERO, Money::plus);
+
+        String orderColumns = String.join(",",
+                String.valueOf(order.getId()),
+                String.valueOf(order.getCreatedAt()),
+                String.valueOf(order.getClientId()),
+                csv(order.getClientName()),
+                String.valueOf(order.getStatus()),
+                csv(order.getPromoCode()),
+                String.valueOf(order.getSubtotalHT()),
+                String.valueOf(order.getDiscountAmount()),
+                String.valueOf(order.getTva()),
+                String.valueOf(order.getTotalTTC()),
+                String.valueOf(order.getMontantRestant()),
+                String.valueOf(paymentsCount),
+                String.valueOf(encaisse));
+
+        for (OrderItemResponse item : order.getItems()) {
+            writer.write(orderColumns);
+            writer.write(',');
+            writer.write(String.join(",",
+                    String.valueOf(item.getProductId()),
+                    csv(item.getProductName()),
+                    String.valueOf(item.getQuantity()),
+                    String.valueOf(item.getPriceHT()),
+                    String.valueOf(item.getSubtotal())));
+            writer.write('\n');
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.util.StripedLock;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * In-process locks for work that changes an order's balance, or acts on it.
+ *
+ * Callers hold the lock across their whole transaction, so the next caller
+ * for the same order reads the committed balance.
+ */
+@Component
+public class OrderLocks {
+
+    private final StripedLock locks = new StripedLock(64);
+
+    public <T> T withLock(Long orderId, Supplier<T> action) {
+        return locks.withLock(orderId, action);
+    }
+
+    public <T> T withLocks(Collection<Long> orderIds, Supplier<T> action) {
+        return locks.withLocks(orderIds, action);
+    }
+}
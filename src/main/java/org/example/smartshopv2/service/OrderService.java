@@ -3,17 +3,27 @@ package org.example.smartshopv2.service;
 import lombok.RequiredArgsConstructor;
 import org.example.smartshopv2.dto.*;
 import org.example.smartshopv2.entity.*;
-import org.example.smartshopv2.enums.LoyaltyLevel;
 import org.example.smartshopv2.enums.OrderStatus;
 import org.example.smartshopv2.mapper.OrderMapper;
 import org.example.smartshopv2.repository.ClientRepository;
 import org.example.smartshopv2.repository.OrderRepository;
 import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.util.KeysetCursor;
+import org.example.smartshopv2.util.Money;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,10 +33,20 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final ClientRepository clientRepository;
     private final ProductRepository productRepository;
-    private final ClientService clientService;
+    private final ClientStatsService clientStatsService;
+    private final ClientProfileCache clientProfileCache;
+    private final StockReservationService stockReservationService;
+    private final StockHoldService stockHoldService;
+    private final CatalogCache catalogCache;
+    private final WarehouseAllocationService warehouseAllocationService;
+    private final DiscountEngine discountEngine;
+    private final PromoCodeService promoCodeService;
+    private final PaymentLedgerService paymentLedgerService;
+    private final OrderLocks orderLocks;
+    private final TransactionTemplate transactionTemplate;
     private final OrderMapper orderMapper;
 
-    private static final double TVA_RATE = 0.20;
+    private static final int TVA_PERCENT = 20;
 
     @Transactional
     public OrderResponse createOrder(Long clientId, OrderRequest request) {
@@ -38,54 +58,66 @@ public class OrderService {
                 .promoCode(request.getPromoCode())
                 .build();
 
-        double subtotalHT = 0.0;
+        // Checked before holding stock; a rollback gives the use back
+        int promoPercent = promoCodeService.redeem(request.getPromoCode(), order.getCreatedAt());
 
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + itemRequest.getProductId()));
+        Map<Long, Integer> quantities = coalesceItems(request.getItems());
+        Map<Long, Product> products = loadProducts(quantities.keySet());
+        checkAvailability(products, quantities);
+        // Products stocked by warehouse must also be covered by their warehouses
+        List<Long> uncovered = warehouseAllocationService.checkAvailability(client, quantities);
+        if (!uncovered.isEmpty()) {
+            throw new RuntimeException("Insufficient stock for product: " + products.get(uncovered.get(0)).getName());
+        }
+        StockHoldService.Hold hold = stockHoldService.place(quantities, products);
 
-            if (product.getDeleted()) {
-                throw new RuntimeException("Product is no longer available: " + product.getName());
-            }
+        Money subtotalHT = Money.ZERO;
 
-            if (product.getStockQuantity() < itemRequest.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            int quantity = line.getValue();
+            Money priceHT = Money.of(product.getPriceHT());
 
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
                     .product(product)
-                    .quantity(itemRequest.getQuantity())
-                    .priceHT(product.getPriceHT())
-                    .subtotal(product.getPriceHT() * itemRequest.getQuantity())
+                    .quantity(quantity)
+                    .priceHT(priceHT)
+                    .subtotal(priceHT.times(quantity))
                     .build();
 
             order.getItems().add(orderItem);
-            subtotalHT += orderItem.getSubtotal();
+            subtotalHT = subtotalHT.plus(orderItem.getSubtotal());
         }
 
         order.setSubtotalHT(subtotalHT);
 
-        double discountAmount = calculateDiscount(client.getLoyaltyLevel(), subtotalHT, request.getPromoCode());
+        Money discountAmount = discountEngine.calculateDiscount(
+                client.getLoyaltyLevel(), subtotalHT, order.getItems(), promoPercent);
         order.setDiscountAmount(discountAmount);
 
-        double amountAfterDiscount = subtotalHT - discountAmount;
+        Money amountAfterDiscount = subtotalHT.minus(discountAmount);
         order.setAmountAfterDiscount(amountAfterDiscount);
 
-        double tva = amountAfterDiscount * TVA_RATE;
+        Money tva = amountAfterDiscount.percent(TVA_PERCENT);
         order.setTva(tva);
 
-        double totalTTC = amountAfterDiscount + tva;
+        Money totalTTC = amountAfterDiscount.plus(tva);
         order.setTotalTTC(totalTTC);
         order.setMontantRestant(totalTTC);
 
         Order savedOrder = orderRepository.save(order);
+        stockHoldService.attach(savedOrder.getId(), hold, savedOrder.getCreatedAt());
         return orderMapper.toResponse(savedOrder);
     }
 
-    @Transactional
+    // Under the order's lock until commit, so no rejection can reopen the balance between check and confirmation
     public OrderResponse confirmOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        return orderLocks.withLock(orderId, () -> transactionTemplate.execute(status -> confirm(orderId)));
+    }
+
+    private OrderResponse confirm(Long orderId) {
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
         if (order.getStatus() != OrderStatus.PENDING) {
@@ -93,101 +125,176 @@ public class OrderService {
         }
 
         // Check if order is fully paid
-        if (order.getMontantRestant() > 0) {
+        Money montantRestant = paymentLedgerService.balance(orderId).montantRestant();
+        if (montantRestant.isPositive()) {
             throw new RuntimeException("Order must be fully paid before confirmation. Remaining: " +
-                    order.getMontantRestant() + " DH");
+                    montantRestant + " DH");
         }
 
+        // Sorted by product ID so concurrent confirmations lock rows in the same order
+        Map<Long, Integer> lines = new TreeMap<>();
+        Map<Long, Product> products = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-
-            if (product.getStockQuantity() < item.getQuantity()) {
-                order.setStatus(OrderStatus.REJECTED);
-                order.setUpdatedAt(LocalDateTime.now());
-                orderRepository.save(order);
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
+            lines.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            products.put(item.getProduct().getId(), item.getProduct());
+        }
 
-            product.setStockQuantity(product.getStockQuantity() - item.getQuantity());
-            productRepository.save(product);
+        List<Long> missing = stockReservationService.reserve(lines);
+        if (missing.isEmpty()) {
+            // Then from the warehouses, for products stocked by warehouse
+            missing = warehouseAllocationService.reserve(order, lines);
+        }
+        if (!missing.isEmpty()) {
+            order.setStatus(OrderStatus.REJECTED);
+            order.setUpdatedAt(LocalDateTime.now());
+            orderRepository.save(order);
+            throw new RuntimeException("Insufficient stock for product: " + products.get(missing.get(0)).getName());
         }
 
+        // The stock is now taken for real, the soft hold is no longer needed
+        stockHoldService.releaseAfterCommit(orderId);
+
         order.setStatus(OrderStatus.CONFIRMED);
         order.setUpdatedAt(LocalDateTime.now());
 
-        Client client = order.getClient();
-        client.setTotalOrders(client.getTotalOrders() + 1);
-        client.setTotalSpent(client.getTotalSpent() + order.getTotalTTC());
-
-        if (client.getFirstOrderDate() == null) {
-            client.setFirstOrderDate(order.getCreatedAt());
-        }
-        client.setLastOrderDate(order.getCreatedAt());
-
-        clientService.updateLoyaltyLevel(client);
-        clientRepository.save(client);
+        // Client statistics and loyalty level are updated asynchronously, the client row is not locked here
+        clientStatsService.orderConfirmedAfterCommit(order);
+        clientProfileCache.invalidateAfterCommit(order.getClient().getId());
 
         Order updatedOrder = orderRepository.save(order);
-        return orderMapper.toResponse(updatedOrder);
+        return toResponse(updatedOrder);
     }
 
     @Transactional
     public OrderResponse cancelOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
         if (order.getStatus() == OrderStatus.CONFIRMED) {
             throw new RuntimeException("Confirmed orders cannot be canceled");
         }
 
+        if (order.getStatus() != OrderStatus.CANCELED) {
+            promoCodeService.releaseAfterCommit(order.getPromoCode());
+        }
+
         order.setStatus(OrderStatus.CANCELED);
         order.setUpdatedAt(LocalDateTime.now());
+        stockHoldService.releaseAfterCommit(orderId);
 
         Order updatedOrder = orderRepository.save(order);
-        return orderMapper.toResponse(updatedOrder);
+        return toResponse(updatedOrder);
     }
 
+    @Transactional(readOnly = true)
     public OrderResponse getOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
-        return orderMapper.toResponse(order);
+        orderRepository.withPayments(List.of(order));
+        return toResponse(order);
     }
 
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(orderMapper::toResponse)
+    @Transactional(readOnly = true)
+    public PagedResponse<OrderResponse> getOrders(String cursor, int size, boolean includeTotal) {
+        int pageSize = KeysetCursor.pageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Long> ids = after == null
+                ? orderRepository.findPageIds(limit)
+                : orderRepository.findPageIdsAfter(after.getCreatedAt(), after.getId(), limit);
+
+        Long total = includeTotal ? orderRepository.count() : null;
+        return toOrderPage(ids, pageSize, total);
+    }
+
+    @Transactional(readOnly = true)
+    public PagedResponse<OrderResponse> getClientOrders(Long clientId, String cursor, int size, boolean includeTotal) {
+        if (!clientRepository.existsById(clientId)) {
+            throw new RuntimeException("Client not found");
+        }
+
+        int pageSize = KeysetCursor.pageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Long> ids = after == null
+                ? orderRepository.findClientPageIds(clientId, limit)
+                : orderRepository.findClientPageIdsAfter(clientId, after.getCreatedAt(), after.getId(), limit);
+
+        Long total = includeTotal ? orderRepository.countByClientId(clientId) : null;
+        return toOrderPage(ids, pageSize, total);
+    }
+
+    /**
+     * Load the graphs of one page of order IDs (fetched with a limit of pageSize + 1)
+     * and wrap them with the cursor of the next page.
+     */
+    private PagedResponse<OrderResponse> toOrderPage(List<Long> ids, int pageSize, Long total) {
+        List<Order> orders = ids.isEmpty()
+                ? List.of()
+                : orderRepository.withPayments(orderRepository.findWithItemsByIdIn(ids));
+
+        String nextCursor = KeysetCursor.next(orders, pageSize, Order::getCreatedAt, Order::getId);
+        Map<Long, PaymentLedgerService.Balance> balances = paymentLedgerService.balances(ids);
+        List<OrderResponse> data = orders.stream()
+                .limit(pageSize)
+                .map(order -> toResponse(order, balances.get(order.getId())))
                 .collect(Collectors.toList());
+        return PagedResponse.ofCursor(data, pageSize, nextCursor, total);
+    }
+
+    private OrderResponse toResponse(Order order) {
+        return toResponse(order, paymentLedgerService.balance(order.getId()));
+    }
+
+    // The order row only holds a snapshot of montantRestant; the response gets the ledger's current value
+    private OrderResponse toResponse(Order order, PaymentLedgerService.Balance balance) {
+        OrderResponse response = orderMapper.toResponse(order);
+        response.setMontantRestant(balance.montantRestant());
+        return response;
     }
 
-    private double calculateDiscount(LoyaltyLevel level, double subtotalHT, String promoCode) {
-        double discountPercent = 0.0;
-
-        switch (level) {
-            case SILVER:
-                if (subtotalHT >= 500) {
-                    discountPercent = 0.05;
-                }
-                break;
-            case GOLD:
-                if (subtotalHT >= 800) {
-                    discountPercent = 0.10;
-                }
-                break;
-            case PLATINUM:
-                if (subtotalHT >= 1200) {
-                    discountPercent = 0.15;
-                }
-                break;
-            case BASIC:
-            default:
-                // BASIC level has no discount
-                break;
+    /**
+     * Merge lines that reference the same product, keeping the order in which
+     * products first appear in the request.
+     */
+    private Map<Long, Integer> coalesceItems(List<OrderItemRequest> items) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemRequest item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
+        return quantities;
+    }
 
-        if (promoCode != null && promoCode.startsWith("PROMO-")) {
-            discountPercent += 0.05;
+    /**
+     * Resolve every product of the order with a single IN query and validate
+     * availability in memory.
+     */
+    private Map<Long, Product> loadProducts(Collection<Long> productIds) {
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new RuntimeException("Product not found: " + productId);
+            }
         }
+        return products;
+    }
 
-        return subtotalHT * discountPercent;
+    private void checkAvailability(Map<Long, Product> products, Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+
+            if (product.getDeleted()) {
+                throw new RuntimeException("Product is no longer available: " + product.getName());
+            }
+
+            // Warehouse adjustments not yet written count too
+            if (product.getStockQuantity() + catalogCache.getPendingStock(product.getId()) < line.getValue()) {
+                throw new RuntimeException("Insufficient stock for product: " + product.getName());
+            }
+        }
     }
 }
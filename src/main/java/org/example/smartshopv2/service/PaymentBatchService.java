@@ -0,0 +1,227 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.BulkPaymentResult;
+import org.example.smartshopv2.entity.BatchJobCheckpoint;
+import org.example.smartshopv2.entity.PaymentLedgerEntry;
+import org.example.smartshopv2.enums.LedgerEntryType;
+import org.example.smartshopv2.repository.BatchJobCheckpointRepository;
+import org.example.smartshopv2.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Encaisser / rejeter many payments at once with bulk UPDATEs, one
+ * transaction per chunk.
+ *
+ * Only EN_ATTENTE payments change status; the others are counted as skipped.
+ * Due payments (dateEcheance reached) are encaissed by a scheduled job whose
+ * position is saved in the same transaction as each chunk, so a run that
+ * stops half-way picks up where it left off. One run at a time: the job and
+ * the manual trigger share the checkpoint row.
+ */
+@Service
+public class PaymentBatchService {
+
+    static final String DUE_PAYMENTS_JOB = "encaisser-due-payments";
+
+    private static final String ENCAISSER_SQL =
+            "UPDATE payments SET status = 'ENCAISSE', date_encaissement = :now WHERE id IN (:ids)";
+
+    private static final String SELECT_DUE_SQL =
+            "SELECT id FROM payments WHERE status = 'EN_ATTENTE' AND date_echeance <= :now AND id > :after " +
+            "ORDER BY id LIMIT :limit";
+
+    private static final String SELECT_ORDERS_SQL = "SELECT DISTINCT order_id FROM payments WHERE id IN (:ids)";
+
+    private static final String LOCK_PENDING_SQL =
+            "SELECT id, order_id, montant FROM payments WHERE status = 'EN_ATTENTE' AND id IN (:ids) FOR UPDATE";
+
+    private static final String REJETER_SQL = "UPDATE payments SET status = 'REJETE' WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final OrderLocks orderLocks;
+    private final PaymentLedgerService paymentLedgerService;
+    private final int chunkSize;
+
+    private final AtomicBoolean dueRunning = new AtomicBoolean();
+
+    public PaymentBatchService(NamedParameterJdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               BatchJobCheckpointRepository checkpointRepository,
+                               OrderLocks orderLocks,
+                               PaymentLedgerService paymentLedgerService,
+                               @Value("${smartshop.payments.batch.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.orderLocks = orderLocks;
+        this.paymentLedgerService = paymentLedgerService;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkPaymentResult encaisserPayments(List<Long> paymentIds) {
+        LocalDateTime now = LocalDateTime.now();
+        long requested = 0;
+        long updated = 0;
+        int chunks = 0;
+        for (List<Long> chunk : chunks(paymentIds)) {
+            updated += transactionTemplate.execute(status -> encaisserChunk(chunk, now));
+            requested += chunk.size();
+            chunks++;
+        }
+        return result(requested, updated, chunks);
+    }
+
+    /**
+     * Reject payments and add their amounts back to the orders' remaining balance.
+     * The orders of a chunk are locked like in PaymentService.addPayment.
+     */
+    public BulkPaymentResult rejeterPayments(List<Long> paymentIds) {
+        long requested = 0;
+        long updated = 0;
+        int chunks = 0;
+        for (List<Long> chunk : chunks(paymentIds)) {
+            List<Long> orderIds = jdbcTemplate.queryForList(SELECT_ORDERS_SQL, Map.of("ids", chunk), Long.class);
+            updated += orderLocks.withLocks(orderIds,
+                    () -> transactionTemplate.execute(status -> rejeterChunk(chunk)));
+            requested += chunk.size();
+            chunks++;
+        }
+        return result(requested, updated, chunks);
+    }
+
+    @Scheduled(fixedDelayString = "${smartshop.payments.due-job.interval:PT1M}")
+    public void encaisserDuePaymentsJob() {
+        if (!dueRunning.get()) {
+            encaisserDuePayments(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Encaisser every EN_ATTENTE payment whose dateEcheance is at or before {@code now},
+     * in ID order, resuming from the saved checkpoint if the last run did not finish.
+     */
+    public BulkPaymentResult encaisserDuePayments(LocalDateTime now) {
+        if (!dueRunning.compareAndSet(false, true)) {
+            throw new RuntimeException("Due payments job already running");
+        }
+        try {
+            return encaisserDue(now);
+        } finally {
+            dueRunning.set(false);
+        }
+    }
+
+    private BulkPaymentResult encaisserDue(LocalDateTime now) {
+        long selected = 0;
+        long updated = 0;
+        int chunks = 0;
+
+        while (true) {
+            long[] counts = transactionTemplate.execute(status -> {
+                BatchJobCheckpoint checkpoint = checkpointRepository.findById(DUE_PAYMENTS_JOB)
+                        .orElseGet(() -> BatchJobCheckpoint.builder().jobName(DUE_PAYMENTS_JOB).build());
+                if (checkpoint.getRunStartedAt() == null) {
+                    checkpoint.setRunStartedAt(now);
+                }
+
+                List<Long> ids = jdbcTemplate.queryForList(SELECT_DUE_SQL, new MapSqlParameterSource()
+                        .addValue("now", now)
+                        .addValue("after", checkpoint.getLastProcessedId())
+                        .addValue("limit", chunkSize), Long.class);
+
+                if (ids.isEmpty()) {
+                    // Run complete: the next one starts from the beginning
+                    checkpoint.setLastProcessedId(0L);
+                    checkpoint.setProcessedCount(0L);
+                    checkpoint.setRunStartedAt(null);
+                    checkpoint.setLastCompletedAt(now);
+                    checkpointRepository.save(checkpoint);
+                    return null;
+                }
+
+                int chunkUpdated = encaisserChunk(ids, now);
+                checkpoint.setLastProcessedId(ids.get(ids.size() - 1));
+                checkpoint.setProcessedCount(checkpoint.getProcessedCount() + chunkUpdated);
+                checkpointRepository.save(checkpoint);
+                return new long[]{ids.size(), chunkUpdated};
+            });
+
+            if (counts == null) {
+                break;
+            }
+            selected += counts[0];
+            updated += counts[1];
+            chunks++;
+        }
+        return result(selected, updated, chunks);
+    }
+
+    private int encaisserChunk(List<Long> ids, LocalDateTime now) {
+        List<PaymentLedgerEntry> entries = lockPending(ids, LedgerEntryType.ENCAISSEMENT);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.update(ENCAISSER_SQL, new MapSqlParameterSource()
+                .addValue("now", now)
+                .addValue("ids", paymentIds(entries)));
+        paymentLedgerService.record(entries);
+        return entries.size();
+    }
+
+    // The orders' remaining amounts go back up through REJET ledger entries
+    private int rejeterChunk(List<Long> ids) {
+        List<PaymentLedgerEntry> entries = lockPending(ids, LedgerEntryType.REJET);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.update(REJETER_SQL, Map.of("ids", paymentIds(entries)));
+        paymentLedgerService.record(entries);
+        return entries.size();
+    }
+
+    // One ledger entry of the given type per EN_ATTENTE payment among ids, locked until commit
+    private List<PaymentLedgerEntry> lockPending(List<Long> ids, LedgerEntryType type) {
+        List<PaymentLedgerEntry> entries = new ArrayList<>();
+        jdbcTemplate.query(LOCK_PENDING_SQL, Map.of("ids", ids), rs -> {
+            entries.add(PaymentLedgerService.entry(rs.getLong("order_id"), rs.getLong("id"), type,
+                    Money.of(rs.getBigDecimal("montant"))));
+        });
+        return entries;
+    }
+
+    private static List<Long> paymentIds(List<PaymentLedgerEntry> entries) {
+        return entries.stream().map(PaymentLedgerEntry::getPaymentId).toList();
+    }
+
+    // Duplicate IDs are dropped
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<Long> distinct = ids.stream().distinct().toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            chunks.add(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+        }
+        return chunks;
+    }
+
+    private static BulkPaymentResult result(long requested, long updated, int chunks) {
+        return BulkPaymentResult.builder()
+                .requested(requested)
+                .updated(updated)
+                .skipped(requested - updated)
+                .chunks(chunks)
+                .build();
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.entity.PaymentLedgerEntry;
+import org.example.smartshopv2.enums.LedgerEntryType;
+import org.example.smartshopv2.repository.PaymentLedgerRepository;
+import org.example.smartshopv2.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Balances of orders, kept as an append-only ledger of payment events.
+ *
+ * Payments never update the order row: each one appends an entry, and the
+ * remaining amount is the order's snapshot (montantRestant, paymentCount as of
+ * ledgerEntryId) plus the entries written after it. A scheduled job folds the
+ * entries of PENDING orders into their snapshot, so that sum stays short.
+ *
+ * Entries that change a balance (PAIEMENT, REJET) are written with the
+ * order's lock held through commit, see OrderLocks. The same lock guards the
+ * small LRU cache of current balances and the snapshot job, so a cached
+ * balance is always the committed one.
+ */
+@Service
+public class PaymentLedgerService {
+
+    private static final String BALANCES_SQL =
+            "SELECT o.id, o.montant_restant, o.payment_count, " +
+            "COALESCE(SUM(l.delta), 0) AS delta, " +
+            "COALESCE(SUM(CASE WHEN l.type = 'PAIEMENT' THEN 1 ELSE 0 END), 0) AS payments " +
+            "FROM orders o LEFT JOIN payment_ledger l ON l.order_id = o.id AND l.id > o.ledger_entry_id " +
+            "WHERE o.id IN (:ids) " +
+            "GROUP BY o.id, o.montant_restant, o.payment_count";
+
+    private static final String UNFOLDED_ORDERS_SQL =
+            "SELECT o.id FROM orders o WHERE o.status = 'PENDING' AND EXISTS (" +
+            "SELECT 1 FROM payment_ledger l WHERE l.order_id = o.id AND l.id > o.ledger_entry_id)";
+
+    private static final String FOLD_SQL =
+            "SELECT MAX(l.id) AS last_id, " +
+            "COALESCE(SUM(l.delta), 0) AS delta, " +
+            "COALESCE(SUM(CASE WHEN l.type = 'PAIEMENT' THEN 1 ELSE 0 END), 0) AS payments " +
+            "FROM payment_ledger l JOIN orders o ON o.id = l.order_id " +
+            "WHERE o.id = :orderId AND l.id > o.ledger_entry_id";
+
+    private static final String SNAPSHOT_SQL =
+            "UPDATE orders SET montant_restant = montant_restant + :delta, " +
+            "payment_count = payment_count + :payments, ledger_entry_id = :lastId WHERE id = :orderId";
+
+    private final PaymentLedgerRepository ledgerRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderLocks orderLocks;
+    private final Map<Long, Balance> cache;
+
+    public PaymentLedgerService(PaymentLedgerRepository ledgerRepository,
+                                NamedParameterJdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                OrderLocks orderLocks,
+                                @Value("${smartshop.ledger.cache-size:10000}") int cacheSize) {
+        this.ledgerRepository = ledgerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.orderLocks = orderLocks;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Balance> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Remaining amount and number of payments of an order, as committed.
+     */
+    public record Balance(Money montantRestant, int paymentCount) {
+
+        Balance apply(PaymentLedgerEntry entry) {
+            return new Balance(montantRestant.plus(entry.getDelta()),
+                    paymentCount + (entry.getType() == LedgerEntryType.PAIEMENT ? 1 : 0));
+        }
+    }
+
+    public Balance balance(Long orderId) {
+        Balance balance = cache.get(orderId);
+        if (balance != null) {
+            return balance;
+        }
+        return orderLocks.withLock(orderId, () -> {
+            Balance loaded = cache.get(orderId);
+            if (loaded == null) {
+                loaded = load(List.of(orderId)).get(orderId);
+                if (loaded == null) {
+                    throw new RuntimeException("Order not found");
+                }
+                cache.put(orderId, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Balances of several orders with one query for those not cached; the
+     * ones loaded here are not added to the cache. Unknown IDs are left out.
+     */
+    public Map<Long, Balance> balances(Collection<Long> orderIds) {
+        Map<Long, Balance> balances = new HashMap<>();
+        List<Long> missing = orderIds.stream()
+                .filter(id -> {
+                    Balance cached = cache.get(id);
+                    if (cached != null) {
+                        balances.put(id, cached);
+                    }
+                    return cached == null;
+                })
+                .toList();
+        if (!missing.isEmpty()) {
+            balances.putAll(load(missing));
+        }
+        return balances;
+    }
+
+    public static PaymentLedgerEntry entry(Long orderId, Long paymentId, LedgerEntryType type, Money montant) {
+        Money delta = switch (type) {
+            case PAIEMENT -> Money.ZERO.minus(montant);
+            case REJET -> montant;
+            case ENCAISSEMENT -> Money.ZERO;
+        };
+        return PaymentLedgerEntry.builder()
+                .orderId(orderId)
+                .paymentId(paymentId)
+                .type(type)
+                .montant(montant)
+                .delta(delta)
+                .build();
+    }
+
+    public void record(Long orderId, Long paymentId, LedgerEntryType type, Money montant) {
+        record(List.of(entry(orderId, paymentId, type, montant)));
+    }
+
+    /**
+     * Append entries in the current transaction. PAIEMENT and REJET entries
+     * must be written with their order's lock held until commit; the cached
+     * balances are moved forward once the transaction has committed.
+     */
+    public void record(List<PaymentLedgerEntry> entries) {
+        ledgerRepository.saveAll(entries);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (PaymentLedgerEntry entry : entries) {
+                    if (entry.getType() != LedgerEntryType.ENCAISSEMENT) {
+                        cache.computeIfPresent(entry.getOrderId(), (id, balance) -> balance.apply(entry));
+                    }
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${smartshop.ledger.snapshot-interval:PT1M}")
+    public void snapshotJob() {
+        snapshot();
+    }
+
+    /**
+     * Fold the ledger entries of PENDING orders into the orders' snapshot,
+     * one order and one transaction at a time.
+     *
+     * @return the number of orders whose snapshot moved
+     */
+    public int snapshot() {
+        List<Long> orderIds = jdbcTemplate.queryForList(UNFOLDED_ORDERS_SQL, Map.of(), Long.class);
+        int folded = 0;
+        for (Long orderId : orderIds) {
+            // With the lock held no entry of this order is in flight, so none can commit below lastId later
+            folded += orderLocks.withLock(orderId, () -> transactionTemplate.execute(status -> {
+                Map<String, Object> fold = jdbcTemplate.queryForMap(FOLD_SQL, Map.of("orderId", orderId));
+                if (fold.get("last_id") == null) {
+                    return 0; // folded by another run in the meantime
+                }
+                return jdbcTemplate.update(SNAPSHOT_SQL, new MapSqlParameterSource()
+                        .addValue("delta", (BigDecimal) fold.get("delta"))
+                        .addValue("payments", ((Number) fold.get("payments")).intValue())
+                        .addValue("lastId", ((Number) fold.get("last_id")).longValue())
+                        .addValue("orderId", orderId));
+            }));
+        }
+        return folded;
+    }
+
+    private Map<Long, Balance> load(Collection<Long> orderIds) {
+        Map<Long, Balance> balances = new HashMap<>();
+        jdbcTemplate.query(BALANCES_SQL, Map.of("ids", orderIds), rs -> {
+            Money montantRestant = Money.of(rs.getBigDecimal("montant_restant")).plus(Money.of(rs.getBigDecimal("delta")));
+            int paymentCount = rs.getInt("payment_count") + rs.getInt("payments");
+            balances.put(rs.getLong("id"), new Balance(montantRestant, paymentCount));
+        });
+        return balances;
+    }
+}
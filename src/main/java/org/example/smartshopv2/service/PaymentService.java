@@ -1,16 +1,22 @@
 package org.example.smartshopv2.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.PagedResponse;
 import org.example.smartshopv2.dto.PaymentRequest;
 import org.example.smartshopv2.dto.PaymentResponse;
 import org.example.smartshopv2.entity.Order;
 import org.example.smartshopv2.entity.Payment;
+import org.example.smartshopv2.enums.LedgerEntryType;
 import org.example.smartshopv2.enums.PaymentStatus;
 import org.example.smartshopv2.mapper.PaymentMapper;
 import org.example.smartshopv2.repository.OrderRepository;
 import org.example.smartshopv2.repository.PaymentRepository;
+import org.example.smartshopv2.util.KeysetCursor;
+import org.example.smartshopv2.util.Money;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,11 +29,19 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
     private final PaymentMapper paymentMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderLocks orderLocks;
+    private final PaymentLedgerService paymentLedgerService;
 
-    private static final double ESPECES_MAX = 20000.0;
+    private static final Money ESPECES_MAX = Money.of(20000);
 
-    @Transactional
+    // Payments of one order go through one at a time; the lock is held until the transaction has committed
     public PaymentResponse addPayment(PaymentRequest request) {
+        return orderLocks.withLock(request.getOrderId(),
+                () -> transactionTemplate.execute(status -> createPayment(request)));
+    }
+
+    private PaymentResponse createPayment(PaymentRequest request) {
         Order order = orderRepository.findById(request.getOrderId())
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
@@ -43,17 +57,19 @@ public class PaymentService {
         }
 
         // Validate payment amount
-        if (request.getMontant() > order.getMontantRestant()) {
+        PaymentLedgerService.Balance balance = paymentLedgerService.balance(order.getId());
+        Money montant = Money.of(request.getMontant());
+        if (montant.isGreaterThan(balance.montantRestant())) {
             throw new RuntimeException("Payment amount exceeds remaining balance");
         }
 
         // Validate ESPECES limit (20,000 DH max)
-        if ("ESPECES".equals(typePaiement) && request.getMontant() > ESPECES_MAX) {
+        if ("ESPECES".equals(typePaiement) && montant.isGreaterThan(ESPECES_MAX)) {
             throw new RuntimeException("Cash payment cannot exceed 20,000 DH (Art. 193 CGI)");
         }
 
         // Calculate payment number (sequential)
-        int nextNumber = order.getPayments().size() + 1;
+        int nextNumber = balance.paymentCount() + 1;
 
         // Determine status and encaissement date based on payment type
         PaymentStatus status;
@@ -69,7 +85,7 @@ public class PaymentService {
         Payment payment = Payment.builder()
                 .order(order)
                 .numeroPaiement(nextNumber)
-                .montant(request.getMontant())
+                .montant(montant)
                 .typePaiement(request.getTypePaiement().toUpperCase())
                 .reference(request.getReference())
                 .banque(request.getBanque())
@@ -81,15 +97,22 @@ public class PaymentService {
 
         Payment savedPayment = paymentRepository.save(payment);
 
-        // Update order remaining amount
-        order.setMontantRestant(order.getMontantRestant() - request.getMontant());
-        orderRepository.save(order);
+        // The remaining amount goes down through the ledger; the order row is not written
+        paymentLedgerService.record(order.getId(), savedPayment.getId(), LedgerEntryType.PAIEMENT, montant);
+        if (status == PaymentStatus.ENCAISSE) {
+            paymentLedgerService.record(order.getId(), savedPayment.getId(), LedgerEntryType.ENCAISSEMENT, montant);
+        }
 
         return paymentMapper.toResponse(savedPayment);
     }
 
-    @Transactional
     public PaymentResponse encaisserPayment(Long paymentId) {
+        Long orderId = paymentRepository.findOrderIdById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+        return orderLocks.withLock(orderId, () -> transactionTemplate.execute(status -> cashPayment(paymentId)));
+    }
+
+    private PaymentResponse cashPayment(Long paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
 
@@ -105,11 +128,17 @@ public class PaymentService {
         payment.setDateEncaissement(LocalDateTime.now());
 
         Payment updated = paymentRepository.save(payment);
+        paymentLedgerService.record(payment.getOrder().getId(), payment.getId(), LedgerEntryType.ENCAISSEMENT, payment.getMontant());
         return paymentMapper.toResponse(updated);
     }
 
-    @Transactional
     public PaymentResponse rejeterPayment(Long paymentId) {
+        Long orderId = paymentRepository.findOrderIdById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+        return orderLocks.withLock(orderId, () -> transactionTemplate.execute(status -> rejectPayment(paymentId)));
+    }
+
+    private PaymentResponse rejectPayment(Long paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
 
@@ -117,23 +146,35 @@ public class PaymentService {
             throw new RuntimeException("Cannot reject an encaisse payment");
         }
 
-        Order order = payment.getOrder();
-
-        // Restore remaining amount
-        order.setMontantRestant(order.getMontantRestant() + payment.getMontant());
-        orderRepository.save(order);
+        if (payment.getStatus() == PaymentStatus.REJETE) {
+            throw new RuntimeException("Payment already rejected");
+        }
 
         payment.setStatus(PaymentStatus.REJETE);
 
         Payment updated = paymentRepository.save(payment);
+
+        // Restore remaining amount
+        paymentLedgerService.record(payment.getOrder().getId(), payment.getId(), LedgerEntryType.REJET, payment.getMontant());
         return paymentMapper.toResponse(updated);
     }
 
-    public List<PaymentResponse> getOrderPayments(Long orderId) {
-        List<Payment> payments = paymentRepository.findByOrderIdOrderByNumeroPaiementAsc(orderId);
-        return payments.stream()
+    public PagedResponse<PaymentResponse> getOrderPayments(Long orderId, String cursor, int size, boolean includeTotal) {
+        int pageSize = KeysetCursor.pageSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Payment> payments = after == null
+                ? paymentRepository.findOrderPage(orderId, limit)
+                : paymentRepository.findOrderPageAfter(orderId, after.getCreatedAt(), after.getId(), limit);
+
+        String nextCursor = KeysetCursor.next(payments, pageSize, Payment::getCreatedAt, Payment::getId);
+        List<PaymentResponse> data = payments.stream()
+                .limit(pageSize)
                 .map(paymentMapper::toResponse)
                 .collect(Collectors.toList());
+        Long total = includeTotal ? paymentRepository.countByOrderId(orderId) : null;
+        return PagedResponse.ofCursor(data, pageSize, nextCursor, total);
     }
 
     public PaymentResponse getPayment(Long paymentId) {
@@ -0,0 +1,385 @@
+package org.example.smartshopv2.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.example.smartshopv2.dto.ProductImportResult;
+import org.example.smartshopv2.dto.ProductRequest;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.util.CsvReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk create/update of products keyed by SKU, from a JSON array or a CSV
+ * file, read as a stream.
+ *
+ * Each row is checked like a ProductRequest sent to the API. Valid rows are
+ * upserted in chunks, one transaction and one JDBC batch per chunk
+ * (INSERT ... ON CONFLICT on PostgreSQL, MERGE elsewhere); a row that fails
+ * is reported and the load goes on, and so does a chunk that fails as a
+ * whole. Committed chunks are published to the catalog and the search index
+ * like single product writes, and a SKU matching a deleted product restores
+ * it.
+ */
+@Service
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Same as the ID generator of Product: each sequence value reserves the 50 IDs up to it
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String LOCK_EXISTING_SQL =
+            "SELECT id, sku, stock_quantity FROM products WHERE sku IN (:skus) FOR UPDATE";
+
+    private static final String WAREHOUSE_STOCKED_SQL =
+            "SELECT DISTINCT product_id FROM stock_levels WHERE product_id IN (:ids)";
+
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO products (id, sku, name, description, priceht, stock_quantity, deleted, catalog_version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, FALSE, ?) ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, " +
+            "description = EXCLUDED.description, priceht = EXCLUDED.priceht, " +
+            "stock_quantity = EXCLUDED.stock_quantity, deleted = FALSE, catalog_version = EXCLUDED.catalog_version";
+
+    private static final String MERGE_SQL =
+            "MERGE INTO products (id, sku, name, description, priceht, stock_quantity, deleted, catalog_version) " +
+            "KEY (sku) VALUES (?, ?, ?, ?, ?, ?, FALSE, ?)";
+
+    private static final String POSTGRES_NEXT_ID_SQL = "SELECT nextval('products_seq')";
+
+    private static final String NEXT_ID_SQL = "SELECT NEXT VALUE FOR products_seq";
+
+    private static final List<String> CSV_COLUMNS = List.of("sku", "name", "description", "priceht", "stockquantity");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogCache catalogCache;
+    private final ProductSearchService productSearchService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public ProductImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                CatalogVersionService catalogVersionService,
+                                CatalogCache catalogCache,
+                                ProductSearchService productSearchService,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                @Value("${smartshop.products.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogVersionService = catalogVersionService;
+        this.catalogCache = catalogCache;
+        this.productSearchService = productSearchService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import a JSON array of products (the fields of a ProductRequest).
+     * Rows are numbered by their position in the array, from 1. Malformed
+     * JSON ends the load; the rows before it are kept.
+     */
+    public ProductImportResult importJson(InputStream json) throws IOException {
+        Run run = new Run();
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("Expected a JSON array of products");
+            }
+            long row = 0;
+            try {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    row++;
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        run.fail(row, null, "Expected a JSON object");
+                        continue;
+                    }
+                    JsonNode node = objectMapper.readTree(parser);
+                    String sku = node.path("sku").isValueNode() ? node.path("sku").asText() : null;
+                    try {
+                        run.add(row, objectMapper.treeToValue(node, ProductRequest.class));
+                    } catch (JsonMappingException e) {
+                        List<JsonMappingException.Reference> path = e.getPath();
+                        run.fail(row, sku, path.isEmpty() ? e.getOriginalMessage()
+                                : "Invalid " + path.get(path.size() - 1).getFieldName());
+                    }
+                }
+            } catch (JsonParseException e) {
+                // Counted against the element being read, or the one that was expected
+                run.fail(Math.max(row, 1), null, "Malformed JSON at line " + e.getLocation().getLineNr()
+                        + ", load stopped: " + e.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Import a CSV file (UTF-8) whose header names the columns among sku,
+     * name, description, priceHT and stockQuantity, in any order. Rows are
+     * numbered by their line in the file.
+     */
+    public ProductImportResult importCsv(InputStream csv) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new RuntimeException("Empty CSV file");
+        }
+        int[] columns = new int[CSV_COLUMNS.size()];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            // Excel starts UTF-8 files with a byte order mark
+            String name = header.get(i).replace("\uFEFF", "").strip().toLowerCase(Locale.ROOT);
+            int column = CSV_COLUMNS.indexOf(name);
+            if (column < 0) {
+                throw new RuntimeException("Unknown CSV column: " + header.get(i));
+            }
+            columns[column] = i;
+        }
+        if (columns[0] < 0) {
+            throw new RuntimeException("The CSV header has no sku column");
+        }
+
+        Run run = new Run();
+        long row = reader.line();
+        try {
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                try {
+                    run.add(row, csvRequest(fields, header.size(), columns));
+                } catch (IllegalArgumentException e) {
+                    run.fail(row, field(fields, columns[0]), e.getMessage());
+                }
+                row = reader.line();
+            }
+        } catch (IllegalArgumentException e) {
+            // Unclosed quote: the rest of the file is one broken field
+            run.fail(row, null, e.getMessage());
+        }
+        return run.finish();
+    }
+
+    private static ProductRequest csvRequest(List<String> fields, int width, int[] columns) {
+        if (fields.size() != width) {
+            throw new IllegalArgumentException("Expected " + width + " fields, found " + fields.size());
+        }
+        ProductRequest request = new ProductRequest();
+        request.setSku(field(fields, columns[0]));
+        request.setName(field(fields, columns[1]));
+        request.setDescription(field(fields, columns[2]));
+        request.setPriceHT(number(fields, columns[3], "priceHT", Double::valueOf));
+        request.setStockQuantity(number(fields, columns[4], "stockQuantity", Integer::valueOf));
+        return request;
+    }
+
+    // Null for a missing column or an empty field
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size() || fields.get(column).isEmpty()) {
+            return null;
+        }
+        return fields.get(column);
+    }
+
+    private static <T> T number(List<String> fields, int column, String name, Function<String, T> parse) {
+        String value = field(fields, column);
+        try {
+            return value != null ? parse.apply(value.strip()) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+    }
+
+    private record Row(long row, ProductRequest request) {
+    }
+
+    private record Existing(long id, int stockQuantity) {
+    }
+
+    /**
+     * State of one import: the chunk being filled, counters and reported
+     * errors, and the block of product IDs being used.
+     */
+    private final class Run {
+        private final long startedAt = System.currentTimeMillis();
+        private final boolean postgres = "PostgreSQL".equals(jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        // First row of each SKU seen so far
+        private final Map<String, Long> rowBySku = new HashMap<>();
+        private final List<ProductImportResult.RowError> errors = new ArrayList<>();
+        private List<Row> chunk = new ArrayList<>();
+        // Rows of the chunk being written that were left out, with the reason
+        private final Map<Row, String> refused = new LinkedHashMap<>();
+        private long rows;
+        private long created;
+        private long updated;
+        private long failed;
+        private long nextId;
+        private long lastId = -1;
+
+        void add(long row, ProductRequest request) {
+            rows++;
+            String sku = request.getSku();
+            String error = validator.validate(request).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            if (sku == null || sku.isBlank()) {
+                error = error.isEmpty() ? "SKU is required" : "SKU is required; " + error;
+            }
+            if (!error.isEmpty()) {
+                addError(row, sku, error);
+                return;
+            }
+            Long first = rowBySku.putIfAbsent(sku, row);
+            if (first != null) {
+                addError(row, sku, "Duplicate SKU, already in row " + first);
+                return;
+            }
+            chunk.add(new Row(row, request));
+            if (chunk.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        void fail(long row, String sku, String error) {
+            rows++;
+            addError(row, sku, error);
+        }
+
+        ProductImportResult finish() {
+            flush();
+            return ProductImportResult.builder()
+                    .rows(rows)
+                    .created(created)
+                    .updated(updated)
+                    .failed(failed)
+                    .errors(errors)
+                    .durationMs(System.currentTimeMillis() - startedAt)
+                    .build();
+        }
+
+        private void addError(long row, String sku, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportResult.RowError(row, sku, error));
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<Row> writing = chunk;
+            chunk = new ArrayList<>(chunkSize);
+            refused.clear();
+            try {
+                int inserted = transactionTemplate.execute(status -> upsert(writing));
+                created += inserted;
+                updated += writing.size() - refused.size() - inserted;
+                refused.forEach((row, error) -> addError(row.row(), row.request().getSku(), error));
+            } catch (RuntimeException e) {
+                String error = "Not imported, the chunk failed: " + e.getMessage();
+                for (Row row : writing) {
+                    addError(row.row(), row.request().getSku(), error);
+                }
+            }
+        }
+
+        /**
+         * Write one chunk in the current transaction.
+         *
+         * @return the number of products created
+         */
+        private int upsert(List<Row> rows) {
+            // The version counter stays locked until commit, so no product can be created
+            // meanwhile: the SKUs found below are all there is
+            long version = catalogVersionService.next(rows.size()) - rows.size();
+            Map<String, Existing> existing = new HashMap<>();
+            jdbcTemplate.query(LOCK_EXISTING_SQL,
+                    Map.of("skus", rows.stream().map(row -> row.request().getSku()).toList()),
+                    rs -> {
+                        existing.put(rs.getString("sku"),
+                                new Existing(rs.getLong("id"), rs.getInt("stock_quantity")));
+                    });
+
+            // Their stock is split by warehouse: changed through the stock levels only
+            Set<Long> warehouseStocked = existing.isEmpty() ? Set.of() : new HashSet<>(jdbcTemplate.queryForList(
+                    WAREHOUSE_STOCKED_SQL,
+                    Map.of("ids", existing.values().stream().map(Existing::id).toList()), Long.class));
+
+            List<Object[]> args = new ArrayList<>(rows.size());
+            List<Product> products = new ArrayList<>(rows.size());
+            Map<Long, Integer> stockDeltas = new HashMap<>();
+            for (Row row : rows) {
+                ProductRequest request = row.request();
+                Existing current = existing.get(request.getSku());
+                long id = current != null ? current.id() : nextId();
+                int stock = request.getStockQuantity();
+                if (current != null) {
+                    // Like a single update: the row leaves out pending adjustments, and the
+                    // catalog's counter moves by what the row does
+                    stock -= catalogCache.getLockedPendingStock(id);
+                    if (stock != current.stockQuantity() && warehouseStocked.contains(id)) {
+                        refused.put(row, "Stock is held in warehouses, set it through their stock levels");
+                        continue;
+                    }
+                    stockDeltas.put(id, stock - current.stockQuantity());
+                }
+                Product product = Product.builder()
+                        .id(id)
+                        .sku(request.getSku())
+                        .name(request.getName())
+                        .description(request.getDescription())
+                        .priceHT(request.getPriceHT())
+                        .stockQuantity(stock)
+                        .catalogVersion(++version)
+                        .build();
+                products.add(product);
+                args.add(new Object[]{id, product.getSku(), product.getName(), product.getDescription(),
+                        product.getPriceHT(), product.getStockQuantity(), product.getCatalogVersion()});
+            }
+
+            jdbcTemplate.getJdbcTemplate().batchUpdate(postgres ? POSTGRES_UPSERT_SQL : MERGE_SQL, args);
+            catalogCache.publishAllAfterCommit(products, stockDeltas);
+            productSearchService.indexAllAfterCommit(products);
+            return products.size() - (existing.size() - refused.size());
+        }
+
+        private long nextId() {
+            if (nextId > lastId) {
+                lastId = jdbcTemplate.getJdbcTemplate().queryForObject(
+                        postgres ? POSTGRES_NEXT_ID_SQL : NEXT_ID_SQL, Long.class);
+                nextId = Math.max(1, lastId - ID_BLOCK_SIZE + 1);
+            }
+            return nextId++;
+        }
+    }
+}
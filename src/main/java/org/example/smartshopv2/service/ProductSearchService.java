@@ -0,0 +1,122 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.util.InvertedIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Full-text index over the names and descriptions of non-deleted products.
+ *
+ * Loaded at startup; ProductService hands over the products it creates,
+ * updates and deletes once their transaction has committed; a product older
+ * than the catalogVersion already indexed for it is left out, as commits can
+ * hand products over out of order. Searches share a read lock, index changes
+ * take the write lock.
+ */
+@Service
+public class ProductSearchService {
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    // Catalog version of each product as indexed, kept for deleted ones (guarded by the write lock)
+    private final Map<Long, Long> indexedVersions = new HashMap<>();
+
+    public ProductSearchService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Rebuild the index from the products table.
+     *
+     * @return the number of products indexed
+     */
+    public int reload() {
+        InvertedIndex fresh = new InvertedIndex();
+        lock.writeLock().lock();
+        try {
+            // Under the write lock, so no committed change is applied to the index being replaced
+            for (Product product : productRepository.findByDeletedFalse()) {
+                fresh.put(product.getId(), product.getName(), product.getDescription());
+                indexedVersions.merge(product.getId(), product.getCatalogVersion(), Math::max);
+            }
+            index = fresh;
+            return fresh.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index the product as it is now (or drop it if deleted) once the current
+     * transaction has committed.
+     */
+    public void indexAfterCommit(Product product) {
+        indexAllAfterCommit(List.of(product));
+    }
+
+    /**
+     * Same as {@link #indexAfterCommit(Product)} for a batch, under one write
+     * lock.
+     */
+    public void indexAllAfterCommit(Collection<Product> products) {
+        record Entry(long id, long version, boolean deleted, String name, String description) {
+        }
+        List<Entry> entries = products.stream()
+                .map(product -> new Entry(product.getId(), product.getCatalogVersion(), product.getDeleted(),
+                        product.getName(), product.getDescription()))
+                .toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lock.writeLock().lock();
+                try {
+                    for (Entry entry : entries) {
+                        if (indexedVersions.getOrDefault(entry.id(), 0L) > entry.version()) {
+                            continue;
+                        }
+                        indexedVersions.put(entry.id(), entry.version());
+                        if (entry.deleted()) {
+                            index.remove(entry.id());
+                        } else {
+                            index.put(entry.id(), entry.name(), entry.description());
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Best matches first.
+     *
+     * @param limit number of hits to return, counted from the best one
+     */
+    public InvertedIndex.Result search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
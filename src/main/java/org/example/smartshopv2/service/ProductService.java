@@ -1,21 +1,23 @@
 package org.example.smartshopv2.service;
 
 import lombok.RequiredArgsConstructor;
-
-import java.util.List;
-import java.util.stream.Collectors;
-
+import org.example.smartshopv2.dto.CatalogChangesResponse;
+import org.example.smartshopv2.dto.ProductChangeResponse;
 import org.example.smartshopv2.dto.ProductRequest;
 import org.example.smartshopv2.dto.ProductResponse;
 import org.example.smartshopv2.entity.Product;
 import org.example.smartshopv2.mapper.ProductMapper;
 import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.util.InvertedIndex;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.stream.Collectors;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -23,46 +25,131 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final StockHoldService stockHoldService;
+    private final CatalogCache catalogCache;
+    private final ProductSearchService productSearchService;
+    private final CatalogVersionService catalogVersionService;
 
     @Transactional
     public ProductResponse createProduct(ProductRequest request) {
         Product product = productMapper.toEntity(request);
+        product.setCatalogVersion(catalogVersionService.next());
         Product saved = productRepository.save(product);
-        return productMapper.toResponse(saved);
+        catalogCache.publishAfterCommit(saved);
+        productSearchService.indexAfterCommit(saved);
+        return toResponse(saved);
     }
 
     public ProductResponse getProduct(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        if (product.getDeleted()) {
+        CatalogCache.CatalogProduct product = catalogCache.getSnapshot().get(id);
+        if (product == null) {
             throw new RuntimeException("Product not found");
         }
-
-        return productMapper.toResponse(product);
+        return toResponse(product);
     }
 
+    /**
+     * A page of the catalog snapshot. Sorts on id (default), name or priceHT;
+     * only the first sort order is used.
+     */
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
-        return productRepository.findByDeletedFalse(pageable)
-                .map(productMapper::toResponse);
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        CatalogCache.Snapshot snapshot = catalogCache.getSnapshot();
+        List<ProductResponse> content = snapshot.page(order.getProperty(), order.isAscending(),
+                        pageable.getOffset(), pageable.getPageSize()).stream()
+                .map(this::toResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, snapshot.size());
+    }
+
+    /**
+     * Products whose name or description holds every word of the query (the
+     * last one as a prefix), best matches first.
+     */
+    public Page<ProductResponse> searchProducts(String query, Pageable pageable) {
+        InvertedIndex.Result result = productSearchService.search(query,
+                (int) pageable.getOffset() + pageable.getPageSize());
+        CatalogCache.Snapshot snapshot = catalogCache.getSnapshot();
+        List<ProductResponse> content = result.hits().stream()
+                .skip(pageable.getOffset())
+                .map(hit -> snapshot.get(hit.key()))
+                // Deleted since the search
+                .filter(product -> product != null)
+                .map(this::toResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    /**
+     * Entity tag shared by the product list and detail responses: changes with
+     * every product write, stock move and stock hold.
+     */
+    public String getCatalogETag() {
+        return catalogCache.getETag() + "-" + stockHoldService.getVersion();
+    }
+
+    public long getCatalogLastModified() {
+        return Math.max(catalogCache.getLastModified(), stockHoldService.getLastChange());
+    }
+
+    /**
+     * Products created, updated or deleted after a catalog version, at most
+     * limit of them unless more share the same version (products never
+     * written through this service, all at version 0).
+     */
+    @Transactional(readOnly = true)
+    public CatalogChangesResponse getChangesSince(long version, int limit) {
+        List<Product> rows = productRepository.findByCatalogVersionGreaterThan(version,
+                PageRequest.of(0, limit + 1, Sort.by("catalogVersion", "id")));
+        boolean hasMore = rows.size() > limit;
+        List<Product> changes = hasMore ? rows.subList(0, limit) : rows;
+        if (hasMore) {
+            // Never stop inside a version: the client resumes after the last one it got
+            long cut = rows.get(limit).getCatalogVersion();
+            long last = changes.get(changes.size() - 1).getCatalogVersion();
+            if (last == cut) {
+                changes = changes.stream().filter(product -> product.getCatalogVersion() != cut).toList();
+                if (changes.isEmpty()) {
+                    changes = productRepository.findByCatalogVersion(cut);
+                }
+            }
+        }
+
+        long current = changes.isEmpty() ? version : changes.get(changes.size() - 1).getCatalogVersion();
+        return CatalogChangesResponse.builder()
+                .version(current)
+                .hasMore(hasMore)
+                .changes(changes.stream().map(this::toChange).toList())
+                .build();
     }
 
     @Transactional
     public ProductResponse updateProduct(Long id, ProductRequest request) {
-        Product product = productRepository.findById(id)
+        // Version counter before the product row, like bulk imports, so the two never deadlock
+        long version = catalogVersionService.next();
+        Product product = productRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         if (product.getDeleted()) {
             throw new RuntimeException("Product not found");
         }
 
+        if (request.getSku() != null) {
+            product.setSku(request.getSku());
+        }
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPriceHT(request.getPriceHT());
-        product.setStockQuantity(request.getStockQuantity());
+        // The row leaves out warehouse adjustments still pending: once written, stock is what was asked
+        int stock = request.getStockQuantity() - catalogCache.getLockedPendingStock(id);
+        int stockDelta = stock - product.getStockQuantity();
+        product.setStockQuantity(stock);
+        product.setCatalogVersion(version);
 
         Product updated = productRepository.save(product);
-        return productMapper.toResponse(updated);
+        catalogCache.publishAfterCommit(updated, stockDelta);
+        productSearchService.indexAfterCommit(updated);
+        return toResponse(updated, request.getStockQuantity());
     }
 
     @Transactional
@@ -71,6 +158,61 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         product.setDeleted(true);
+        product.setCatalogVersion(catalogVersionService.next());
         productRepository.save(product);
+        catalogCache.publishAfterCommit(product);
+        productSearchService.indexAfterCommit(product);
+    }
+
+    private ProductChangeResponse toChange(Product product) {
+        ProductChangeResponse.ProductChangeResponseBuilder change = ProductChangeResponse.builder()
+                .id(product.getId())
+                .catalogVersion(product.getCatalogVersion())
+                .deleted(product.getDeleted());
+        if (!product.getDeleted()) {
+            change.sku(product.getSku())
+                    .name(product.getName())
+                    .description(product.getDescription())
+                    .priceHT(product.getPriceHT())
+                    .stockQuantity(stock(product));
+        }
+        return change.build();
+    }
+
+    // From the catalog's counters like the list, or from the row until the product is published there
+    private int stock(Product product) {
+        if (catalogCache.getSnapshot().get(product.getId()) != null) {
+            return catalogCache.getStock(product.getId());
+        }
+        return product.getStockQuantity() + catalogCache.getPendingStock(product.getId());
+    }
+
+    private ProductResponse toResponse(Product product) {
+        return toResponse(product, product.getStockQuantity());
+    }
+
+    private ProductResponse toResponse(Product product, int stock) {
+        ProductResponse response = productMapper.toResponse(product);
+        int held = stockHoldService.getHeldQuantity(product.getId());
+        response.setStockQuantity(stock);
+        response.setHeldQuantity(held);
+        response.setAvailableQuantity(Math.max(stock - held, 0));
+        return response;
+    }
+
+    // Stock from the catalog's counters, not from the snapshot
+    private ProductResponse toResponse(CatalogCache.CatalogProduct product) {
+        int stock = catalogCache.getStock(product.id());
+        int held = stockHoldService.getHeldQuantity(product.id());
+        return ProductResponse.builder()
+                .id(product.id())
+                .sku(product.sku())
+                .name(product.name())
+                .description(product.description())
+                .priceHT(product.priceHT())
+                .stockQuantity(stock)
+                .heldQuantity(held)
+                .availableQuantity(Math.max(stock - held, 0))
+                .build();
     }
 }
@@ -0,0 +1,339 @@
+package org.example.smartshopv2.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.PromoCodeRequest;
+import org.example.smartshopv2.dto.PromoCodeResponse;
+import org.example.smartshopv2.entity.PromoCode;
+import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.mapper.PromoCodeMapper;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.PromoCodeRepository;
+import org.example.smartshopv2.util.BloomFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Promo code registry.
+ *
+ * Active codes are indexed in memory behind a Bloom filter, so unknown codes
+ * are turned away without a map lookup or a query. Uses are counted in memory
+ * and written to promo_codes.used_count in one JDBC batch every few seconds:
+ * codes without a cap count on a LongAdder, capped codes take a use with a
+ * CAS on their counter, so the cap holds without locking the row. Counters are
+ * rebuilt from the orders on startup, so nothing is lost if the last batch was
+ * not written. This assumes a single application instance.
+ */
+@Service
+@RequiredArgsConstructor
+public class PromoCodeService {
+
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    private static final String ADD_USES_SQL = "UPDATE promo_codes SET used_count = used_count + ? WHERE id = ?";
+    private static final String SET_USES_SQL = "UPDATE promo_codes SET used_count = ? WHERE id = ?";
+
+    private final PromoCodeRepository promoCodeRepository;
+    private final OrderRepository orderRepository;
+    private final PromoCodeMapper promoCodeMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom = new BloomFilter(List.of(), BLOOM_FALSE_POSITIVE_RATE);
+
+    /**
+     * Check a promo code and count one use of it. The use is given back if
+     * the surrounding transaction rolls back.
+     *
+     * @return the discount percent of the code, 0 when no code was given
+     */
+    public int redeem(String code, LocalDateTime at) {
+        if (code == null || code.isBlank()) {
+            return 0;
+        }
+
+        String key = normalize(code);
+        Entry entry = bloom.mightContain(key) ? index.get(key) : null;
+        if (entry == null || !entry.active) {
+            throw new RuntimeException("Invalid promo code: " + code);
+        }
+        if (!entry.isValidAt(at)) {
+            throw new RuntimeException("Promo code is not valid at this date: " + code);
+        }
+        if (!entry.tryTake()) {
+            throw new RuntimeException("Promo code usage limit reached: " + code);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        entry.giveBack();
+                    }
+                }
+            });
+        }
+        return entry.percent;
+    }
+
+    /**
+     * Give back one use of a promo code, once the surrounding transaction commits.
+     */
+    public void releaseAfterCommit(String code) {
+        if (code == null || code.isBlank()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(code);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(code);
+            }
+        });
+    }
+
+    public void release(String code) {
+        Entry entry = index.get(normalize(code));
+        if (entry != null) {
+            entry.giveBack();
+        }
+    }
+
+    public long getUsedCount(String code) {
+        Entry entry = index.get(normalize(code));
+        return entry == null ? 0 : entry.used();
+    }
+
+    @Transactional
+    public PromoCodeResponse createPromoCode(PromoCodeRequest request) {
+        String code = normalize(request.getCode());
+        if (promoCodeRepository.existsByCode(code)) {
+            throw new RuntimeException("Promo code already exists: " + code);
+        }
+        if (request.getValidFrom() != null && request.getValidUntil() != null
+                && request.getValidUntil().isBefore(request.getValidFrom())) {
+            throw new RuntimeException("Promo code ends before it starts");
+        }
+
+        PromoCode promoCode = promoCodeRepository.save(PromoCode.builder()
+                .code(code)
+                .percent(request.getPercent())
+                .validFrom(request.getValidFrom())
+                .validUntil(request.getValidUntil())
+                .maxUses(request.getMaxUses())
+                .build());
+
+        Entry entry = new Entry(promoCode, 0);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index(entry);
+                }
+            });
+        } else {
+            index(entry);
+        }
+        return toResponse(promoCode);
+    }
+
+    @Transactional
+    public PromoCodeResponse deactivatePromoCode(Long id) {
+        PromoCode promoCode = promoCodeRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Promo code not found"));
+        promoCode.setActive(false);
+
+        Entry entry = index.get(promoCode.getCode());
+        if (entry != null) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        entry.active = false;
+                    }
+                });
+            } else {
+                entry.active = false;
+            }
+        }
+        return toResponse(promoCodeRepository.save(promoCode));
+    }
+
+    @Transactional(readOnly = true)
+    public List<PromoCodeResponse> getPromoCodes() {
+        return promoCodeRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Write the uses counted since the last flush, in one batch.
+     *
+     * @return the number of codes written
+     */
+    @Scheduled(fixedDelayString = "${smartshop.promo-codes.flush-interval:PT5S}")
+    public int flushUsage() {
+        List<Entry> flushed = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        for (Entry entry : index.values()) {
+            long delta = entry.pending.sumThenReset();
+            if (delta != 0) {
+                flushed.add(entry);
+                args.add(new Object[]{delta, entry.id});
+            }
+        }
+        if (args.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(ADD_USES_SQL, args);
+        } catch (RuntimeException e) {
+            // Keep the deltas for the next attempt
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).pending.add((Long) args.get(i)[0]);
+            }
+            throw e;
+        }
+        return args.size();
+    }
+
+    /**
+     * Load active codes and recount their uses from the orders.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public synchronized void loadIndex() {
+        Map<String, Long> uses = new HashMap<>();
+        for (OrderRepository.PromoCodeUses row : orderRepository.countPromoCodeUses(OrderStatus.CANCELED)) {
+            uses.merge(normalize(row.getCode()), row.getUses(), Long::sum);
+        }
+
+        index.clear();
+        List<Object[]> args = new ArrayList<>();
+        for (PromoCode promoCode : promoCodeRepository.findByActiveTrue()) {
+            long used = uses.getOrDefault(promoCode.getCode(), 0L);
+            index.put(promoCode.getCode(), new Entry(promoCode, used));
+            if (used != promoCode.getUsedCount()) {
+                args.add(new Object[]{used, promoCode.getId()});
+            }
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_USES_SQL, args);
+        }
+        bloom = new BloomFilter(index.keySet(), BLOOM_FALSE_POSITIVE_RATE);
+    }
+
+    // Synchronized with loadIndex: a filter built from a stale key set would turn valid codes away
+    private synchronized void index(Entry entry) {
+        index.put(entry.code, entry);
+        bloom = new BloomFilter(index.keySet(), BLOOM_FALSE_POSITIVE_RATE);
+    }
+
+    private PromoCodeResponse toResponse(PromoCode promoCode) {
+        PromoCodeResponse response = promoCodeMapper.toResponse(promoCode);
+        Entry entry = index.get(promoCode.getCode());
+        if (entry != null) {
+            response.setUsedCount(entry.used());
+        }
+        return response;
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * In-memory state of one code.
+     */
+    private static final class Entry {
+        private final long id;
+        private final String code;
+        private final int percent;
+        private final LocalDateTime validFrom;
+        private final LocalDateTime validUntil;
+        private final long maxUses;
+        private volatile boolean active;
+
+        // Capped codes count on a CAS counter, uncapped ones on a striped adder
+        private final AtomicLong cappedUses;
+        private final LongAdder uncappedUses;
+        // Uses not yet written to the database
+        private final LongAdder pending = new LongAdder();
+
+        private Entry(PromoCode promoCode, long used) {
+            this.id = promoCode.getId();
+            this.code = promoCode.getCode();
+            this.percent = promoCode.getPercent();
+            this.validFrom = promoCode.getValidFrom() == null ? null : promoCode.getValidFrom().atStartOfDay();
+            this.validUntil = promoCode.getValidUntil() == null
+                    ? null : promoCode.getValidUntil().plusDays(1).atStartOfDay();
+            this.maxUses = promoCode.getMaxUses() == null ? Long.MAX_VALUE : promoCode.getMaxUses();
+            this.active = promoCode.getActive();
+            if (promoCode.getMaxUses() == null) {
+                this.cappedUses = null;
+                this.uncappedUses = new LongAdder();
+                this.uncappedUses.add(used);
+            } else {
+                this.cappedUses = new AtomicLong(used);
+                this.uncappedUses = null;
+            }
+        }
+
+        boolean isValidAt(LocalDateTime at) {
+            return (validFrom == null || !at.isBefore(validFrom))
+                    && (validUntil == null || at.isBefore(validUntil));
+        }
+
+        boolean tryTake() {
+            if (cappedUses == null) {
+                uncappedUses.increment();
+            } else {
+                while (true) {
+                    long current = cappedUses.get();
+                    if (current >= maxUses) {
+                        return false;
+                    }
+                    if (cappedUses.compareAndSet(current, current + 1)) {
+                        break;
+                    }
+                }
+            }
+            pending.increment();
+            return true;
+        }
+
+        void giveBack() {
+            if (cappedUses == null) {
+                uncappedUses.decrement();
+            } else {
+                cappedUses.decrementAndGet();
+            }
+            pending.decrement();
+        }
+
+        long used() {
+            return cappedUses == null ? uncappedUses.sum() : cappedUses.get();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.smartshopv2.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a line across every warehouse in proportion to its stock, so all
+ * warehouses run down at the same pace. Units left by rounding go to the
+ * largest remainders (then the fullest warehouses).
+ */
+@Component
+public class SplitWarehouseStrategy implements StockAllocationStrategy {
+
+    @Override
+    public String name() {
+        return "split";
+    }
+
+    @Override
+    public Map<Long, Integer> allocate(int quantity, List<Source> sources) {
+        long total = sources.stream().mapToLong(Source::available).sum();
+        int[] shares = new int[sources.size()];
+        long[] remainders = new long[sources.size()];
+        int allocated = 0;
+        for (int i = 0; i < shares.length; i++) {
+            long scaled = (long) quantity * sources.get(i).available();
+            shares[i] = (int) (scaled / total);
+            remainders[i] = scaled % total;
+            allocated += shares[i];
+        }
+
+        // A share rounded up never exceeds the stock: it is below it before rounding
+        List<Integer> byRemainder = new ArrayList<>();
+        for (int i = 0; i < shares.length; i++) {
+            byRemainder.add(i);
+        }
+        byRemainder.sort(Comparator.<Integer>comparingLong(i -> remainders[i]).reversed()
+                .thenComparing(i -> sources.get(i).available(), Comparator.reverseOrder())
+                .thenComparingLong(i -> sources.get(i).warehouseId()));
+        for (int i = 0; allocated < quantity; i++) {
+            shares[byRemainder.get(i)]++;
+            allocated++;
+        }
+
+        Map<Long, Integer> taken = new LinkedHashMap<>();
+        for (int i = 0; i < shares.length; i++) {
+            if (shares[i] > 0) {
+                taken.put(sources.get(i).warehouseId(), shares[i]);
+            }
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,356 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.BulkPaymentResult;
+import org.example.smartshopv2.dto.ReconciliationReport;
+import org.example.smartshopv2.util.MappedLineReader;
+import org.example.smartshopv2.util.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reconciles cheques and transfers against a bank statement.
+ *
+ * The statement is a ';' separated file, one operation per line:
+ * {@code reference;banque;montant;statut}, where statut is ENCAISSE or REJETE
+ * and montant uses '.' or ',' as decimal separator. Extra columns are ignored
+ * and a first line starting with "reference" is taken as a header.
+ *
+ * The file is read through memory-mapped windows and each line is parsed in
+ * place; it is matched on (reference, banque, montant) against an index of the
+ * EN_ATTENTE payments built before reading. Matches go through
+ * PaymentBatchService in chunks, so the usual rules apply (only EN_ATTENTE
+ * payments change, a rejection restores the order balance).
+ */
+@Service
+public class StatementReconciliationService {
+
+    private static final String PENDING_SQL =
+            "SELECT id, reference, banque, montant FROM payments " +
+            "WHERE status = 'EN_ATTENTE' AND reference IS NOT NULL";
+
+    private static final byte SEPARATOR = ';';
+    private static final byte[] HEADER = ascii("REFERENCE");
+    private static final byte[] ENCAISSE = ascii("ENCAISSE");
+    private static final byte[] REJETE = ascii("REJETE");
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PaymentBatchService paymentBatchService;
+    private final int windowSize;
+    private final int chunkSize;
+
+    public StatementReconciliationService(JdbcTemplate jdbcTemplate,
+                                          PaymentBatchService paymentBatchService,
+                                          @Value("${smartshop.reconciliation.window-size:64MB}") DataSize windowSize,
+                                          @Value("${smartshop.payments.batch.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.paymentBatchService = paymentBatchService;
+        this.windowSize = Math.toIntExact(windowSize.toBytes());
+        this.chunkSize = chunkSize;
+    }
+
+    public ReconciliationReport reconcile(Path statement) {
+        long startNanos = System.nanoTime();
+        Run run = new Run(loadPendingPayments());
+
+        long bytes;
+        try {
+            bytes = MappedLineReader.forEachLine(statement, windowSize, run::line);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read statement: " + e.getMessage());
+        }
+        run.flushEncaisser();
+        run.flushRejeter();
+
+        long durationNanos = Math.max(System.nanoTime() - startNanos, 1);
+        long parsed = run.matched + run.unmatched;
+        return ReconciliationReport.builder()
+                .lines(run.lines)
+                .matched(run.matched)
+                .unmatched(run.unmatched)
+                .malformed(run.malformed)
+                .encaisses(run.encaisses)
+                .rejetes(run.rejetes)
+                .matchRate(parsed == 0 ? 0 : Math.round(run.matched * 10000.0 / parsed) / 100.0)
+                .bytes(bytes)
+                .durationMs(durationNanos / 1_000_000)
+                .megabytesPerSecond(Math.round(bytes * 1e9 / durationNanos / (1024 * 1024) * 100) / 100.0)
+                .build();
+    }
+
+    private PendingIndex loadPendingPayments() {
+        List<PendingPayment> pending = new ArrayList<>();
+        jdbcTemplate.query(PENDING_SQL, rs -> {
+            byte[] reference = normalize(rs.getString("reference"));
+            byte[] banque = normalize(rs.getString("banque"));
+            long centimes = Money.of(rs.getBigDecimal("montant")).getCentimes();
+            pending.add(new PendingPayment(rs.getLong("id"), reference, banque, centimes,
+                    key(ByteBuffer.wrap(reference), 0, reference.length,
+                            ByteBuffer.wrap(banque), 0, banque.length, centimes)));
+        });
+        return new PendingIndex(pending);
+    }
+
+    // State of one reconciliation; lines are handled in file order on one thread
+    private final class Run {
+        private final PendingIndex index;
+        private final List<Long> toEncaisser = new ArrayList<>();
+        private final List<Long> toRejeter = new ArrayList<>();
+        // Field bounds of the current line: start, end for reference, banque, montant, statut
+        private final int[] fields = new int[8];
+        private boolean firstLine = true;
+        private long lines;
+        private long matched;
+        private long unmatched;
+        private long malformed;
+        private long encaisses;
+        private long rejetes;
+
+        Run(PendingIndex index) {
+            this.index = index;
+        }
+
+        void line(ByteBuffer buffer, int start, int end) {
+            if (trimStart(buffer, start, end) == end) {
+                return;
+            }
+            if (firstLine) {
+                firstLine = false;
+                if (startsWithIgnoreCase(buffer, start, end, HEADER)) {
+                    return;
+                }
+            }
+            lines++;
+
+            long centimes = split(buffer, start, end) ? parseCentimes(buffer, fields[4], fields[5]) : -1;
+            boolean encaisser = centimes >= 0 && equalsIgnoreCase(buffer, fields[6], fields[7], ENCAISSE);
+            boolean rejeter = centimes >= 0 && equalsIgnoreCase(buffer, fields[6], fields[7], REJETE);
+            if (!encaisser && !rejeter) {
+                malformed++;
+                return;
+            }
+
+            long paymentId = index.take(buffer, fields, centimes);
+            if (paymentId < 0) {
+                unmatched++;
+                return;
+            }
+            matched++;
+            if (encaisser) {
+                toEncaisser.add(paymentId);
+                if (toEncaisser.size() >= chunkSize) {
+                    flushEncaisser();
+                }
+            } else {
+                toRejeter.add(paymentId);
+                if (toRejeter.size() >= chunkSize) {
+                    flushRejeter();
+                }
+            }
+        }
+
+        void flushEncaisser() {
+            if (!toEncaisser.isEmpty()) {
+                BulkPaymentResult result = paymentBatchService.encaisserPayments(toEncaisser);
+                encaisses += result.getUpdated();
+                toEncaisser.clear();
+            }
+        }
+
+        void flushRejeter() {
+            if (!toRejeter.isEmpty()) {
+                BulkPaymentResult result = paymentBatchService.rejeterPayments(toRejeter);
+                rejetes += result.getUpdated();
+                toRejeter.clear();
+            }
+        }
+
+        // Fills fields with the trimmed bounds of the first four columns
+        private boolean split(ByteBuffer buffer, int start, int end) {
+            int from = start;
+            for (int field = 0; field < 4; field++) {
+                if (from > end) {
+                    return false;
+                }
+                int to = from;
+                while (to < end && buffer.get(to) != SEPARATOR) {
+                    to++;
+                }
+                int s = trimStart(buffer, from, to);
+                int e = trimEnd(buffer, s, to);
+                fields[2 * field] = s;
+                fields[2 * field + 1] = e;
+                from = to + 1;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Pending payments sorted by key; a lookup is a binary search on the key
+     * followed by a byte comparison, so no key object is built per line.
+     */
+    private static final class PendingIndex {
+        private final long[] keys;
+        private final PendingPayment[] payments;
+        private final boolean[] taken;
+
+        PendingIndex(List<PendingPayment> pending) {
+            payments = pending.toArray(PendingPayment[]::new);
+            Arrays.sort(payments, Comparator.comparingLong(PendingPayment::key));
+            keys = new long[payments.length];
+            for (int i = 0; i < payments.length; i++) {
+                keys[i] = payments[i].key();
+            }
+            taken = new boolean[payments.length];
+        }
+
+        // Returns the ID of the first payment with these values not yet matched, or -1
+        long take(ByteBuffer buffer, int[] fields, long centimes) {
+            long key = key(buffer, fields[0], fields[1], buffer, fields[2], fields[3], centimes);
+            int i = Arrays.binarySearch(keys, key);
+            if (i < 0) {
+                return -1;
+            }
+            while (i > 0 && keys[i - 1] == key) {
+                i--;
+            }
+            for (; i < keys.length && keys[i] == key; i++) {
+                PendingPayment payment = payments[i];
+                if (!taken[i]
+                        && payment.centimes() == centimes
+                        && equalsIgnoreCase(buffer, fields[0], fields[1], payment.reference())
+                        && equalsIgnoreCase(buffer, fields[2], fields[3], payment.banque())) {
+                    taken[i] = true;
+                    return payment.id();
+                }
+            }
+            return -1;
+        }
+    }
+
+    private record PendingPayment(long id, byte[] reference, byte[] banque, long centimes, long key) {
+    }
+
+    // FNV-1a over the upper-cased reference and banque, then the amount
+    private static long key(ByteBuffer reference, int referenceStart, int referenceEnd,
+                            ByteBuffer banque, int banqueStart, int banqueEnd, long centimes) {
+        long h = FNV_OFFSET;
+        for (int i = referenceStart; i < referenceEnd; i++) {
+            h = (h ^ upper(reference.get(i))) * FNV_PRIME;
+        }
+        h = (h ^ SEPARATOR) * FNV_PRIME;
+        for (int i = banqueStart; i < banqueEnd; i++) {
+            h = (h ^ upper(banque.get(i))) * FNV_PRIME;
+        }
+        return (h ^ centimes) * FNV_PRIME;
+    }
+
+    /**
+     * Parses "1234.5", "1 234,50" or "-12" into centimes; -1 if the field is not
+     * an amount or has more than two decimals. Negative amounts (debits) become
+     * positive, a rejected cheque shows up as a debit on most statements.
+     */
+    static long parseCentimes(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            i++;
+        }
+        long centimes = 0;
+        int decimals = -1;
+        boolean digits = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (decimals == 2 || centimes > Long.MAX_VALUE / 100) {
+                    return -1;
+                }
+                centimes = centimes * 10 + (b - '0');
+                digits = true;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if ((b == '.' || b == ',') && decimals < 0) {
+                decimals = 0;
+            } else if (b != ' ' || decimals >= 0) {
+                return -1;
+            }
+        }
+        if (!digits) {
+            return -1;
+        }
+        for (int d = Math.max(decimals, 0); d < 2; d++) {
+            centimes *= 10;
+        }
+        return centimes;
+    }
+
+    private static boolean equalsIgnoreCase(ByteBuffer buffer, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (upper(buffer.get(start + i)) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase(ByteBuffer buffer, int start, int end, byte[] prefix) {
+        int s = trimStart(buffer, start, end);
+        return end - s >= prefix.length && equalsIgnoreCase(buffer, s, s + prefix.length, prefix);
+    }
+
+    private static int trimStart(ByteBuffer buffer, int start, int end) {
+        while (start < end && isBlank(buffer.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && isBlank(buffer.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '"';
+    }
+
+    private static byte upper(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - 32) : b;
+    }
+
+    private static byte[] normalize(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+        int start = trimStart(bytes, 0, bytes.limit());
+        byte[] normalized = new byte[trimEnd(bytes, start, bytes.limit()) - start];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = upper(bytes.get(start + i));
+        }
+        return normalized;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
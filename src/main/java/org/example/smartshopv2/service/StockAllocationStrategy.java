@@ -0,0 +1,48 @@
+package org.example.smartshopv2.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which warehouses an order line ships from. Implementations are
+ * Spring beans, picked by name with smartshop.warehouses.allocation-strategy.
+ */
+public interface StockAllocationStrategy {
+
+    /**
+     * Stock of the line's product in one warehouse.
+     *
+     * @param distanceKm from the client's delivery location, infinite when
+     *                   either location is unknown
+     */
+    record Source(long warehouseId, int available, double distanceKm) {
+    }
+
+    String name();
+
+    /**
+     * Take quantity from the sources, which all hold some stock and hold at
+     * least quantity together.
+     *
+     * @return warehouseId -> quantity taken, summing to quantity
+     */
+    Map<Long, Integer> allocate(int quantity, List<Source> sources);
+
+    /**
+     * Empty each source in turn until quantity is reached.
+     */
+    static Map<Long, Integer> takeInOrder(int quantity, List<Source> ordered) {
+        Map<Long, Integer> taken = new LinkedHashMap<>();
+        int remaining = quantity;
+        for (Source source : ordered) {
+            if (remaining == 0) {
+                break;
+            }
+            int take = Math.min(remaining, source.available());
+            taken.put(source.warehouseId(), take);
+            remaining -= take;
+        }
+        return taken;
+    }
+}
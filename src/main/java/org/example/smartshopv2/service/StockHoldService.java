@@ -0,0 +1,237 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.OrderItem;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.util.HashedTimerWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Soft stock holds placed when an order is created.
+ *
+ * Held quantities live in memory only: they keep PENDING orders from being
+ * promised the same stock, while the real stock is still taken at confirmation.
+ * Holds are released when the order is confirmed or canceled, or when they
+ * time out on a hashed timer wheel.
+ */
+@Service
+public class StockHoldService {
+
+    private final OrderRepository orderRepository;
+    private final CatalogCache catalogCache;
+    private final Duration ttl;
+
+    private final Map<Long, AtomicInteger> heldByProduct = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holdsByOrder = new ConcurrentHashMap<>();
+    private final HashedTimerWheel<Long> wheel;
+    // Bumped after every change of held quantities, for the validators of catalog responses
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastChange = System.currentTimeMillis();
+
+    public StockHoldService(OrderRepository orderRepository,
+                            CatalogCache catalogCache,
+                            @Value("${smartshop.stock-holds.ttl:PT30M}") Duration ttl,
+                            @Value("${smartshop.stock-holds.tick:PT1S}") Duration tick,
+                            @Value("${smartshop.stock-holds.wheel-size:512}") int wheelSize) {
+        this.orderRepository = orderRepository;
+        this.catalogCache = catalogCache;
+        this.ttl = ttl;
+        this.wheel = new HashedTimerWheel<>(tick.toMillis(), wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Hold stock for the lines of a new order. Fails without holding anything
+     * when a product does not have enough unheld stock. If the surrounding
+     * transaction rolls back, the hold is given back right away, attached or not.
+     *
+     * @return the hold, to be attached to the order once it has an ID
+     */
+    public Hold place(Map<Long, Integer> lines, Map<Long, Product> products) {
+        Map<Long, Integer> taken = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            Product product = products.get(line.getKey());
+            int stock = product.getStockQuantity() + catalogCache.getPendingStock(product.getId());
+            if (!tryHold(product.getId(), line.getValue(), stock)) {
+                taken.forEach(this::unhold);
+                changed();
+                throw new RuntimeException("Insufficient stock for product: " + product.getName() +
+                        " (" + getHeldQuantity(product.getId()) + " held by pending orders)");
+            }
+            taken.put(line.getKey(), line.getValue());
+        }
+        changed();
+        Hold hold = new Hold(taken);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        discard(hold);
+                    }
+                }
+            });
+        }
+        return hold;
+    }
+
+    /**
+     * Start the expiry clock for a hold.
+     */
+    public void attach(Long orderId, Hold hold, LocalDateTime createdAt) {
+        hold.orderId = orderId;
+        hold.timeout = wheel.schedule(orderId, toMillis(createdAt.plus(ttl)));
+        holdsByOrder.put(orderId, hold);
+    }
+
+    /**
+     * Release the hold of an order, once the surrounding transaction commits.
+     */
+    public void releaseAfterCommit(Long orderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(orderId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(orderId);
+            }
+        });
+    }
+
+    public void release(Long orderId) {
+        Hold hold = holdsByOrder.remove(orderId);
+        if (hold != null) {
+            hold.timeout.cancel();
+            hold.lines.forEach(this::unhold);
+            changed();
+        }
+    }
+
+    // A hold whose order was never saved has no timer to expire it
+    private void discard(Hold hold) {
+        if (hold.orderId != null) {
+            release(hold.orderId);
+        } else {
+            hold.lines.forEach(this::unhold);
+            changed();
+        }
+    }
+
+    public int getHeldQuantity(Long productId) {
+        AtomicInteger held = heldByProduct.get(productId);
+        return held == null ? 0 : held.get();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Time of the last change of held quantities, in epoch milliseconds.
+     */
+    public long getLastChange() {
+        return lastChange;
+    }
+
+    public int getOpenHolds() {
+        return holdsByOrder.size();
+    }
+
+    @Scheduled(fixedDelayString = "${smartshop.stock-holds.tick:PT1S}")
+    public void expireHolds() {
+        expireHolds(System.currentTimeMillis());
+    }
+
+    int expireHolds(long nowMillis) {
+        return wheel.advance(nowMillis, this::release);
+    }
+
+    /**
+     * Rebuild holds of recent PENDING orders after a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void restoreHolds() {
+        List<Order> pending = orderRepository.findByStatusAndCreatedAtAfter(
+                OrderStatus.PENDING, LocalDateTime.now().minus(ttl));
+
+        for (Order order : pending) {
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            for (OrderItem item : order.getItems()) {
+                lines.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+            lines.forEach((productId, quantity) -> heldByProduct
+                    .computeIfAbsent(productId, id -> new AtomicInteger())
+                    .addAndGet(quantity));
+            attach(order.getId(), new Hold(lines), order.getCreatedAt());
+        }
+        changed();
+    }
+
+    private boolean tryHold(Long productId, int quantity, int stock) {
+        AtomicInteger held = heldByProduct.computeIfAbsent(productId, id -> new AtomicInteger());
+        while (true) {
+            int current = held.get();
+            if (current + quantity > stock) {
+                return false;
+            }
+            if (held.compareAndSet(current, current + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private void unhold(Long productId, int quantity) {
+        AtomicInteger held = heldByProduct.get(productId);
+        if (held != null) {
+            held.addAndGet(-quantity);
+        }
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        lastChange = System.currentTimeMillis();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Quantities held for one order.
+     */
+    public static final class Hold {
+        private final Map<Long, Integer> lines;
+        private Long orderId;
+        private HashedTimerWheel.Timeout<Long> timeout;
+
+        private Hold(Map<Long, Integer> lines) {
+            this.lines = lines;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+    }
+}
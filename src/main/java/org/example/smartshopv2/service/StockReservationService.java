@@ -0,0 +1,110 @@
+package org.example.smartshopv2.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.smartshopv2.dto.StockReservationStats;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Takes stock for a whole order with conditional decrements instead of
+ * read-check-write in Java, so concurrent confirmations cannot oversell.
+ * The product rows are locked first, so warehouse adjustments not yet
+ * written to them are counted exactly and none that takes stock away can
+ * slip in between.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private static final String LOCK_PRODUCTS_SQL = "SELECT id FROM products WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    // Counts warehouse adjustments not yet written to the row
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity + ? >= ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final CatalogCache catalogCache;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder unitsReserved = new LongAdder();
+    private final LongAdder unitsRolledBack = new LongAdder();
+
+    /**
+     * Reserve every line (productId -> quantity) in one JDBC batch.
+     *
+     * @return the product IDs that did not have enough stock; empty when the whole
+     * order was reserved. On failure, lines that were taken are given back.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> reserve(Map<Long, Integer> lines) {
+        attempts.increment();
+
+        // Rows first: the pending adjustments read next are then exactly those not in them
+        namedJdbcTemplate.queryForList(LOCK_PRODUCTS_SQL, Map.of("ids", lines.keySet()), Long.class);
+        List<Object[]> args = new ArrayList<>(lines.size());
+        List<Long> productIds = new ArrayList<>(lines.size());
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            args.add(new Object[]{line.getValue(), line.getKey(), catalogCache.getLockedPendingStock(line.getKey()),
+                    line.getValue()});
+            productIds.add(line.getKey());
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+
+        List<Long> missing = new ArrayList<>();
+        List<Object[]> taken = new ArrayList<>(lines.size());
+        long units = 0;
+        for (int i = 0; i < updated.length; i++) {
+            Long productId = productIds.get(i);
+            int quantity = lines.get(productId);
+            if (updated[i] != 0) {
+                taken.add(new Object[]{quantity, productId});
+                units += quantity;
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            Map<Long, Integer> deltas = new HashMap<>();
+            lines.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+            catalogCache.adjustStockAfterCommit(deltas);
+            succeeded.increment();
+            unitsReserved.add(units);
+            return missing;
+        }
+
+        // Give back the lines we managed to take before reporting the failure
+        if (!taken.isEmpty()) {
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, taken);
+            unitsRolledBack.add(units);
+        }
+        failed.increment();
+        return missing;
+    }
+
+    public StockReservationStats getStats() {
+        return StockReservationStats.builder()
+                .attempts(attempts.sum())
+                .succeeded(succeeded.sum())
+                .failed(failed.sum())
+                .unitsReserved(unitsReserved.sum())
+                .unitsRolledBack(unitsRolledBack.sum())
+                .build();
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.smartshopv2.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.entity.StockAllocation;
+import org.example.smartshopv2.entity.Warehouse;
+import org.example.smartshopv2.repository.StockAllocationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits order lines across the warehouses holding the products, with the
+ * configured {@link StockAllocationStrategy}.
+ *
+ * The stock levels of a whole order come from one query; lines are then
+ * allocated in memory. Order creation only checks that the warehouses can
+ * cover each line; confirmation locks the levels, allocates again, takes the
+ * stock from them and records the allocation. Products without stock levels
+ * are not allocated, and nothing is queried while no warehouse exists.
+ */
+@Service
+public class WarehouseAllocationService {
+
+    private static final String LEVELS_SQL =
+            "SELECT product_id, warehouse_id, quantity FROM stock_levels WHERE product_id IN (:productIds)";
+
+    // Sorted, so concurrent confirmations lock levels in the same order
+    private static final String LOCK_LEVELS_SQL = LEVELS_SQL + " ORDER BY product_id, warehouse_id FOR UPDATE";
+
+    private static final String TAKE_SQL = "UPDATE stock_levels SET quantity = quantity - :quantity " +
+            "WHERE product_id = :productId AND warehouse_id = :warehouseId";
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * Stock levels of some products, as read from stock_levels.
+     */
+    public record Level(long productId, long warehouseId, int quantity) {
+    }
+
+    /**
+     * Allocation of every line whose product is stocked by warehouse, or the
+     * products the warehouses cannot cover.
+     *
+     * @param allocations productId -> (warehouseId -> quantity)
+     */
+    public record Result(Map<Long, Map<Long, Integer>> allocations, List<Long> missing) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final WarehouseService warehouseService;
+    private final StockAllocationRepository stockAllocationRepository;
+    private final EntityManager entityManager;
+    private final StockAllocationStrategy strategy;
+
+    public WarehouseAllocationService(NamedParameterJdbcTemplate jdbcTemplate,
+                                      WarehouseService warehouseService,
+                                      StockAllocationRepository stockAllocationRepository,
+                                      EntityManager entityManager,
+                                      List<StockAllocationStrategy> strategies,
+                                      @Value("${smartshop.warehouses.allocation-strategy:nearest}") String strategy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.warehouseService = warehouseService;
+        this.stockAllocationRepository = stockAllocationRepository;
+        this.entityManager = entityManager;
+        this.strategy = strategies.stream()
+                .filter(candidate -> candidate.name().equals(strategy))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Unknown stock allocation strategy: " + strategy));
+    }
+
+    /**
+     * Check that the warehouses can ship each line (productId -> quantity)
+     * to the client, without taking anything.
+     *
+     * @return the products they cannot cover, in line order; empty when the
+     * order can be allocated
+     */
+    public List<Long> checkAvailability(Client client, Map<Long, Integer> lines) {
+        if (warehouseService.getLocations().isEmpty()) {
+            return List.of();
+        }
+        return allocate(client, lines, levels(LEVELS_SQL, lines)).missing();
+    }
+
+    /**
+     * Take each line (productId -> quantity) from the warehouses, in the
+     * caller's transaction, and record where the order ships from.
+     *
+     * @return the products the warehouses cannot cover; nothing is taken then
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> reserve(Order order, Map<Long, Integer> lines) {
+        if (warehouseService.getLocations().isEmpty()) {
+            return List.of();
+        }
+        Result result = allocate(order.getClient(), lines, levels(LOCK_LEVELS_SQL, lines));
+        if (!result.missing().isEmpty()) {
+            return result.missing();
+        }
+
+        List<MapSqlParameterSource> takes = new ArrayList<>();
+        List<StockAllocation> allocations = new ArrayList<>();
+        result.allocations().forEach((productId, byWarehouse) -> byWarehouse.forEach((warehouseId, quantity) -> {
+            takes.add(new MapSqlParameterSource()
+                    .addValue("quantity", quantity)
+                    .addValue("productId", productId)
+                    .addValue("warehouseId", warehouseId));
+            allocations.add(StockAllocation.builder()
+                    .order(order)
+                    .product(entityManager.getReference(Product.class, productId))
+                    .warehouse(entityManager.getReference(Warehouse.class, warehouseId))
+                    .quantity(quantity)
+                    .build());
+        }));
+        if (!takes.isEmpty()) {
+            jdbcTemplate.batchUpdate(TAKE_SQL, takes.toArray(MapSqlParameterSource[]::new));
+            stockAllocationRepository.saveAll(allocations);
+        }
+        return List.of();
+    }
+
+    /**
+     * The in-memory pass: allocate each line from the levels of its product.
+     */
+    public Result allocate(Client client, Map<Long, Integer> lines, List<Level> levels) {
+        Map<Long, WarehouseService.Location> locations = warehouseService.getLocations();
+        Map<Long, List<StockAllocationStrategy.Source>> sources = new HashMap<>();
+        Map<Long, Integer> available = new HashMap<>();
+        for (Level level : levels) {
+            // A product with levels is stocked by warehouse, even if they are all empty
+            List<StockAllocationStrategy.Source> productSources =
+                    sources.computeIfAbsent(level.productId(), id -> new ArrayList<>());
+            if (level.quantity() > 0) {
+                productSources.add(new StockAllocationStrategy.Source(level.warehouseId(), level.quantity(),
+                        distanceKm(client, locations.get(level.warehouseId()))));
+                available.merge(level.productId(), level.quantity(), Integer::sum);
+            }
+        }
+
+        Map<Long, Map<Long, Integer>> allocations = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            List<StockAllocationStrategy.Source> productSources = sources.get(line.getKey());
+            if (productSources == null) {
+                continue;
+            }
+            if (available.getOrDefault(line.getKey(), 0) < line.getValue()) {
+                missing.add(line.getKey());
+            } else {
+                allocations.put(line.getKey(), strategy.allocate(line.getValue(), productSources));
+            }
+        }
+        return new Result(allocations, missing);
+    }
+
+    private List<Level> levels(String sql, Map<Long, Integer> lines) {
+        return jdbcTemplate.query(sql, Map.of("productIds", lines.keySet()), (rs, rowNum) ->
+                new Level(rs.getLong("product_id"), rs.getLong("warehouse_id"), rs.getInt("quantity")));
+    }
+
+    // Great-circle distance, infinite when either end is unknown
+    private static double distanceKm(Client client, WarehouseService.Location warehouse) {
+        if (client == null || client.getLatitude() == null || client.getLongitude() == null
+                || warehouse == null || warehouse.latitude() == null || warehouse.longitude() == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double lat1 = Math.toRadians(client.getLatitude());
+        double lat2 = Math.toRadians(warehouse.latitude());
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(warehouse.longitude() - client.getLongitude());
+        double a = Math.pow(Math.sin(dLat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.StockAllocationResponse;
+import org.example.smartshopv2.dto.WarehouseRequest;
+import org.example.smartshopv2.dto.WarehouseResponse;
+import org.example.smartshopv2.entity.StockLevel;
+import org.example.smartshopv2.entity.Warehouse;
+import org.example.smartshopv2.mapper.WarehouseMapper;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.StockAllocationRepository;
+import org.example.smartshopv2.repository.StockLevelRepository;
+import org.example.smartshopv2.repository.WarehouseRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Warehouses and the stock each one holds.
+ *
+ * products.stock_quantity stays the total a product can sell; the stock
+ * levels of a product split it by warehouse. Setting a level moves the total
+ * by the same amount, in the same transaction. Stock set or adjusted on the
+ * product itself is not given to any warehouse. Warehouse locations are kept
+ * in memory for allocation.
+ */
+@Service
+public class WarehouseService {
+
+    // Sorted, so writers lock product rows in the same order as order confirmations
+    private static final String LOCK_PRODUCTS_SQL =
+            "SELECT id, stock_quantity FROM products WHERE id IN (:ids) AND deleted = FALSE ORDER BY id FOR UPDATE";
+
+    private static final String ADD_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + :delta WHERE id = :id";
+
+    public record Location(Double latitude, Double longitude) {
+    }
+
+    private final WarehouseRepository warehouseRepository;
+    private final StockLevelRepository stockLevelRepository;
+    private final StockAllocationRepository stockAllocationRepository;
+    private final ProductRepository productRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CatalogCache catalogCache;
+    private final WarehouseMapper warehouseMapper;
+
+    private volatile Map<Long, Location> locations = Map.of();
+
+    public WarehouseService(WarehouseRepository warehouseRepository,
+                            StockLevelRepository stockLevelRepository,
+                            StockAllocationRepository stockAllocationRepository,
+                            ProductRepository productRepository,
+                            NamedParameterJdbcTemplate jdbcTemplate,
+                            CatalogCache catalogCache,
+                            WarehouseMapper warehouseMapper) {
+        this.warehouseRepository = warehouseRepository;
+        this.stockLevelRepository = stockLevelRepository;
+        this.stockAllocationRepository = stockAllocationRepository;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogCache = catalogCache;
+        this.warehouseMapper = warehouseMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reloadLocations();
+    }
+
+    /**
+     * Reload the warehouse locations from the table.
+     */
+    public synchronized void reloadLocations() {
+        locations = warehouseRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(Warehouse::getId,
+                        warehouse -> new Location(warehouse.getLatitude(), warehouse.getLongitude())));
+    }
+
+    /**
+     * Every warehouse by ID; empty when stock is not kept by warehouse.
+     */
+    public Map<Long, Location> getLocations() {
+        return locations;
+    }
+
+    @Transactional
+    public WarehouseResponse createWarehouse(WarehouseRequest request) {
+        String code = request.getCode().strip().toUpperCase(Locale.ROOT);
+        if (warehouseRepository.existsByCode(code)) {
+            throw new RuntimeException("Warehouse code already exists: " + code);
+        }
+
+        Warehouse saved = warehouseRepository.save(Warehouse.builder()
+                .code(code)
+                .name(request.getName())
+                .latitude(request.getLatitude())
+                .longitude(request.getLongitude())
+                .build());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reloadLocations();
+            }
+        });
+        return warehouseMapper.toResponse(saved);
+    }
+
+    public List<WarehouseResponse> getWarehouses() {
+        return warehouseRepository.findAllByOrderByCode().stream()
+                .map(warehouseMapper::toResponse)
+                .toList();
+    }
+
+    /**
+     * Stock held in a warehouse, by product ID.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getStockLevels(Long warehouseId) {
+        if (!warehouseRepository.existsById(warehouseId)) {
+            throw new RuntimeException("Warehouse not found");
+        }
+        Map<Long, Integer> levels = new TreeMap<>();
+        for (StockLevel level : stockLevelRepository.findByWarehouseIdOrderByProductId(warehouseId)) {
+            levels.put(level.getProduct().getId(), level.getQuantity());
+        }
+        return levels;
+    }
+
+    /**
+     * Set how much of each product (productId -> quantity) a warehouse holds,
+     * moving the products' total stock by the difference. All or nothing.
+     *
+     * @return the products' total stock, as the catalog will show it
+     */
+    @Transactional
+    public Map<Long, Integer> setStockLevels(Long warehouseId, Map<Long, Integer> levels) {
+        Warehouse warehouse = warehouseRepository.findById(warehouseId)
+                .orElseThrow(() -> new RuntimeException("Warehouse not found"));
+
+        Map<Long, Integer> totals = new HashMap<>();
+        jdbcTemplate.query(LOCK_PRODUCTS_SQL, Map.of("ids", levels.keySet()),
+                rs -> {
+                    totals.put(rs.getLong("id"), rs.getInt("stock_quantity"));
+                });
+        for (Long productId : levels.keySet()) {
+            if (!totals.containsKey(productId)) {
+                throw new RuntimeException("Product not found: " + productId);
+            }
+        }
+
+        Map<Long, StockLevel> current = stockLevelRepository.findByWarehouseIdAndProductIdIn(warehouseId,
+                        levels.keySet()).stream()
+                .collect(Collectors.toMap(level -> level.getProduct().getId(), Function.identity()));
+        Map<Long, Integer> deltas = new TreeMap<>();
+        List<StockLevel> changed = new ArrayList<>();
+        for (Map.Entry<Long, Integer> level : new TreeMap<>(levels).entrySet()) {
+            Long productId = level.getKey();
+            StockLevel stockLevel = current.get(productId);
+            if (stockLevel == null) {
+                stockLevel = StockLevel.builder()
+                        .product(productRepository.getReferenceById(productId))
+                        .warehouse(warehouse)
+                        .build();
+            }
+            int delta = level.getValue() - stockLevel.getQuantity();
+            // Stock may have left through the product itself since the level was set
+            if (totals.get(productId) + catalogCache.getLockedPendingStock(productId) + delta < 0) {
+                throw new RuntimeException("Stock cannot go below zero for product: " + productId);
+            }
+            if (delta != 0 || stockLevel.getId() == null) {
+                stockLevel.setQuantity(level.getValue());
+                changed.add(stockLevel);
+            }
+            if (delta != 0) {
+                deltas.put(productId, delta);
+            }
+        }
+
+        stockLevelRepository.saveAll(changed);
+        if (!deltas.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_STOCK_SQL, deltas.entrySet().stream()
+                    .map(delta -> new MapSqlParameterSource()
+                            .addValue("delta", delta.getValue())
+                            .addValue("id", delta.getKey()))
+                    .toArray(MapSqlParameterSource[]::new));
+            catalogCache.adjustStockAfterCommit(deltas);
+        }
+
+        Map<Long, Integer> stock = new TreeMap<>();
+        for (Long productId : levels.keySet()) {
+            stock.put(productId, catalogCache.getStock(productId) + deltas.getOrDefault(productId, 0));
+        }
+        return stock;
+    }
+
+    /**
+     * Where a confirmed order ships from; empty for orders of products not
+     * stocked by warehouse.
+     */
+    @Transactional(readOnly = true)
+    public List<StockAllocationResponse> getAllocations(Long orderId) {
+        return stockAllocationRepository.findByOrderIdOrderById(orderId).stream()
+                .map(allocation -> StockAllocationResponse.builder()
+                        .productId(allocation.getProduct().getId())
+                        .warehouseId(allocation.getWarehouse().getId())
+                        .quantity(allocation.getQuantity())
+                        .build())
+                .toList();
+    }
+}
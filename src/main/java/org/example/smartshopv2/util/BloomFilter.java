@@ -0,0 +1,72 @@
+package org.example.smartshopv2.util;
+
+import java.util.Collection;
+
+/**
+ * Immutable Bloom filter over strings.
+ *
+ * {@link #mightContain} never returns false for a string that was added, and
+ * returns true for other strings with about the configured probability.
+ * Build a new filter to add strings.
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    public BloomFilter(Collection<String> values, double falsePositiveRate) {
+        int expected = Math.max(values.size(), 1);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * ln2));
+        this.bits = new long[(bitCount + 63) >>> 6];
+
+        for (String value : values) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int index = Math.floorMod(h1 + i * h2, bitCount);
+                bits[index >>> 6] |= 1L << index;
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a over the chars, then the MurmurHash3 finalizer to spread the bits
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.smartshopv2.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache bounded by size (least recently used out first) and by
+ * time to live.
+ *
+ * Concurrent misses on one key share a single load: the first caller runs the
+ * loader, the others wait for its result. Invalidating a key while it loads
+ * keeps the loaded value out of the cache, so a value read before a change
+ * is not cached after it.
+ */
+public final class BoundedCache<K, V> {
+
+    public record Stats(long size, long hits, long misses, long coalesced, long loads, long loadFailures,
+                        long evictions, long expirations, long invalidations) {
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<K, Entry<V>> entries;
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param clock current time in nanoseconds
+     */
+    public BoundedCache(int maxSize, Duration ttl, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The cached value, or the loader's result once loaded. A loader failure
+     * is thrown to every caller waiting for that load and nothing is cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            coalesced.incrementAndGet();
+            return join(inFlight);
+        }
+        try {
+            // Loaded by a caller that finished between the lookup and here
+            V value = lookup(key);
+            if (value == null) {
+                loads.incrementAndGet();
+                value = loader.apply(key);
+            }
+            synchronized (entries) {
+                // Still ours unless invalidated meanwhile
+                if (value != null && loading.get(key) == load) {
+                    entries.put(key, new Entry<>(value, clock.getAsLong() + ttlNanos));
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            loadFailures.incrementAndGet();
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+            loading.remove(key);
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            loading.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(size, hits.get(), misses.get(), coalesced.get(), loads.get(), loadFailures.get(),
+                evictions.get(), expirations.get(), invalidations.get());
+    }
+
+    private V lookup(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (clock.getAsLong() - entry.expiresAt() >= 0) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
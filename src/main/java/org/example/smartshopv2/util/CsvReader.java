@@ -0,0 +1,117 @@
+package org.example.smartshopv2.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of CSV records (RFC 4180): comma-separated fields,
+ * optionally in double quotes, a doubled quote inside quotes standing for one.
+ * Quoted fields may hold commas and line breaks. Records end with LF or CRLF;
+ * blank lines are skipped.
+ */
+public final class CsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Line number where the next record starts, 1 for the first line.
+     */
+    public long line() {
+        return line;
+    }
+
+    /**
+     * Fields of the next record, or null at the end of the input.
+     *
+     * @throws IllegalArgumentException when a quoted field is never closed
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        long start = line;
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                line++;
+                if (fields.isEmpty() && field.isEmpty() && !wasQuoted) {
+                    start = line; // blank line
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote in the record starting at line " + start);
+        }
+        if (fields.isEmpty() && field.isEmpty() && !wasQuoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.smartshopv2.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of (key, delta) batches, in numbered segment files.
+ *
+ * Each append is one record: the next log sequence number (LSN), the number
+ * of deltas, the deltas, and one checksum over all of it. A batch torn by a
+ * crash is dropped whole and ends the replay of its segment, so a batch is
+ * replayed entirely or not at all. Appends only write;
+ * {@link #sync} forces them to disk, and callers syncing at the same time
+ * share one force (group commit). The owner rotates to a new segment when it
+ * checkpoints, and deletes the older segments once the checkpoint is safe.
+ * A log is never appended to after a restart: opening it starts a segment.
+ */
+public final class DeltaLog {
+
+    // One delta of a batch, with the batch's LSN
+    public record Record(long lsn, long key, int delta) {
+    }
+
+    // LSN and delta count, then per delta its key and value, then the checksum
+    private static final int HEADER_SIZE = 12;
+    private static final int DELTA_SIZE = 12;
+    private static final int CRC_SIZE = 4;
+    private static final String SUFFIX = ".wal";
+
+    private final Path dir;
+    private final List<Record> recovered;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long segmentStart;
+    private long nextLsn;
+    private volatile long syncedLsn;
+
+    private DeltaLog(Path dir, List<Record> recovered, long nextLsn) throws IOException {
+        this.dir = dir;
+        this.recovered = recovered;
+        this.nextLsn = nextLsn;
+        this.syncedLsn = nextLsn - 1;
+        openSegment();
+    }
+
+    /**
+     * Open the log in a directory (created if needed), reading back the
+     * records written after a checkpoint.
+     *
+     * @param checkpoint last LSN whose records are already applied elsewhere
+     */
+    public static DeltaLog open(Path dir, long checkpoint) {
+        try {
+            Files.createDirectories(dir);
+            List<Record> recovered = new ArrayList<>();
+            long lastLsn = checkpoint;
+            for (Path segment : segments(dir)) {
+                for (Record record : read(segment)) {
+                    lastLsn = Math.max(lastLsn, record.lsn());
+                    if (record.lsn() > checkpoint) {
+                        recovered.add(record);
+                    }
+                }
+            }
+            return new DeltaLog(dir, List.copyOf(recovered), lastLsn + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open log in " + dir, e);
+        }
+    }
+
+    /**
+     * Records found after the checkpoint when the log was opened, in LSN order.
+     */
+    public List<Record> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Write the deltas as one record, not yet forced to disk.
+     *
+     * @return the LSN of the record, to pass to {@link #sync}
+     */
+    public synchronized long append(Map<Long, Integer> deltas) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + DELTA_SIZE * deltas.size() + CRC_SIZE);
+        long lsn = nextLsn;
+        buffer.putLong(lsn).putInt(deltas.size());
+        deltas.forEach((key, delta) -> buffer.putLong(key).putInt(delta));
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to log in " + dir, e);
+        }
+        nextLsn++;
+        return lsn;
+    }
+
+    /**
+     * Return once every record up to lsn is on disk.
+     */
+    public void sync(long lsn) {
+        if (syncedLsn >= lsn) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedLsn >= lsn) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = nextLsn - 1;
+                current = channel;
+            }
+            // Appends go on meanwhile; the next sync picks them up
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync log in " + dir, e);
+            }
+            syncedLsn = target;
+        }
+    }
+
+    /**
+     * Close the current segment (synced) and start a new one.
+     *
+     * @return the last LSN written, the highest in the closed segments
+     */
+    public long rotate() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                    syncedLsn = nextLsn - 1;
+                    openSegment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot rotate log in " + dir, e);
+                }
+                return nextLsn - 1;
+            }
+        }
+    }
+
+    /**
+     * Delete the closed segments holding only records up to lsn.
+     */
+    public void deleteUpTo(long lsn) {
+        long current;
+        synchronized (this) {
+            current = segmentStart;
+        }
+        try {
+            List<Path> segments = segments(dir);
+            for (int i = 0; i < segments.size(); i++) {
+                // A segment ends where the next one starts
+                long end = i + 1 < segments.size() ? start(segments.get(i + 1)) - 1 : Long.MAX_VALUE;
+                if (start(segments.get(i)) < current && end <= lsn) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete old segments in " + dir, e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segmentStart = nextLsn;
+        // A segment of the same name can only hold a torn, unacknowledged record
+        channel = FileChannel.open(dir.resolve(String.format("%020d%s", segmentStart, SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static long start(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static List<Record> read(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<Record> records = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE + CRC_SIZE) {
+            int start = buffer.position();
+            long lsn = buffer.getLong();
+            int count = buffer.getInt();
+            // A torn write: nothing from here on was acknowledged
+            if (count < 0 || count > (buffer.remaining() - CRC_SIZE) / DELTA_SIZE) {
+                break;
+            }
+            int end = buffer.position() + count * DELTA_SIZE;
+            crc.reset();
+            crc.update(buffer.array(), start, end - start);
+            if (buffer.getInt(end) != (int) crc.getValue()) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                records.add(new Record(lsn, buffer.getLong(), buffer.getInt()));
+            }
+            buffer.position(end + CRC_SIZE);
+        }
+        return records;
+    }
+}
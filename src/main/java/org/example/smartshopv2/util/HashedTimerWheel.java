@@ -0,0 +1,159 @@
+package org.example.smartshopv2.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for large numbers of timeouts that are usually cancelled.
+ *
+ * Scheduling and cancelling are O(1) and can be called from any thread.
+ * Expired entries are only collected by {@link #advance(long, Consumer)}, which
+ * must be driven by a single thread (e.g. a scheduled task): each tick only
+ * visits one bucket, so the cost does not depend on how many timeouts are open.
+ */
+public class HashedTimerWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Timeout<T>>> buckets;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final long startMillis;
+    private long tick;
+
+    public HashedTimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int normalized = Integer.highestOneBit(Math.max(wheelSize, 1) * 2 - 1);
+        this.tickMillis = tickMillis;
+        this.mask = normalized - 1;
+        this.buckets = new ArrayList<>(normalized);
+        for (int i = 0; i < normalized; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Schedule {@code payload} to expire at {@code deadlineMillis}.
+     */
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(payload, deadlineMillis, size);
+        size.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Run every tick up to {@code nowMillis} and hand expired payloads to {@code onExpire}.
+     *
+     * @return the number of expired entries
+     */
+    public int advance(long nowMillis, Consumer<T> onExpire) {
+        long targetTick = (nowMillis - startMillis) / tickMillis;
+        int expired = 0;
+
+        while (tick <= targetTick) {
+            transferPending();
+            expired += expireBucket(buckets.get((int) (tick & mask)), onExpire);
+            tick++;
+        }
+        return expired;
+    }
+
+    /**
+     * Number of scheduled timeouts that are neither expired nor cancelled.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            // Round up so a timeout never fires early, and never place it behind the current tick
+            long deadlineTick = Math.max(Math.floorDiv(timeout.deadlineMillis - startMillis + tickMillis - 1, tickMillis), tick);
+            timeout.remainingRounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private int expireBucket(List<Timeout<T>> bucket, Consumer<T> onExpire) {
+        int expired = 0;
+        Iterator<Timeout<T>> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout<T> timeout = it.next();
+            if (timeout.isCancelled()) {
+                it.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                it.remove();
+                if (timeout.expire()) {
+                    onExpire.accept(timeout.payload);
+                    expired++;
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Handle returned by {@link #schedule(Object, long)}.
+     */
+    public static final class Timeout<T> {
+
+        private static final int ACTIVE = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final T payload;
+        private final long deadlineMillis;
+        private final AtomicInteger wheelSize;
+        private final AtomicInteger state = new AtomicInteger(ACTIVE);
+        private long remainingRounds;
+
+        private Timeout(T payload, long deadlineMillis, AtomicInteger wheelSize) {
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+            this.wheelSize = wheelSize;
+        }
+
+        /**
+         * @return true if the timeout was still active and will no longer fire
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(ACTIVE, CANCELLED)) {
+                wheelSize.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        private boolean expire() {
+            if (state.compareAndSet(ACTIVE, EXPIRED)) {
+                wheelSize.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package org.example.smartshopv2.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Full-text index over a name and a description per key, ranked with BM25.
+ *
+ * Text goes through {@link TextNormalizer}. Every document gets an int number
+ * in insertion order and each term keeps a plain int array of postings,
+ * already sorted: the document number in the high 24 bits (below 2^23, so
+ * postings stay positive and sort as ints), the term's count in the name
+ * (3 bits) and in the description (5 bits) below. Name words are
+ * also indexed under their consonant skeleton (as "~key"), so a French
+ * spelling finds the Arabic one and the reverse.
+ *
+ * A query matches the documents holding all of its words. The last word also
+ * matches as a prefix (typing), and any word through its skeleton, both with
+ * a lower weight, and never count a term as rarer than the word itself: a
+ * rare longer word does not outrank the word as typed. Name occurrences count {@value #NAME_WEIGHT} times a
+ * description occurrence (BM25F-style). Updating a key indexes it again under
+ * a new number and leaves the old one dead; dead postings are dropped when
+ * they outnumber the live ones. Document frequencies include dead postings
+ * until then.
+ *
+ * Not thread-safe: callers serialize writes against reads.
+ */
+public final class InvertedIndex {
+
+    public record Hit(long key, double score) {
+    }
+
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private static final int NAME_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double SKELETON_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int MAX_DOCS = 1 << 23;
+    private static final String SKELETON = "~";
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docByKey = new HashMap<>();
+    private long[] keys = new long[1024];
+    // Weighted length of each document, -1 once dead
+    private int[] lengths = new int[1024];
+    private int docCount;
+    private long totalLength;
+
+    public int size() {
+        return docByKey.size();
+    }
+
+    /**
+     * Index a key, replacing what was indexed for it.
+     */
+    public void put(long key, String name, String description) {
+        remove(key);
+        if (docCount == MAX_DOCS) {
+            compact();
+            if (docCount == MAX_DOCS) {
+                throw new IllegalStateException("Index full: " + MAX_DOCS + " documents");
+            }
+        }
+        int doc = docCount++;
+        if (doc == keys.length) {
+            keys = Arrays.copyOf(keys, doc * 2);
+            lengths = Arrays.copyOf(lengths, doc * 2);
+        }
+        keys[doc] = key;
+        docByKey.put(key, doc);
+
+        List<String> nameWords = TextNormalizer.words(name);
+        List<String> descriptionWords = TextNormalizer.words(description);
+        Map<String, int[]> counts = new HashMap<>();
+        for (String word : nameWords) {
+            counts.computeIfAbsent(word, w -> new int[2])[0]++;
+            String skeleton = TextNormalizer.skeleton(word);
+            if (skeleton != null) {
+                counts.computeIfAbsent(SKELETON + skeleton, w -> new int[2])[0]++;
+            }
+        }
+        for (String word : descriptionWords) {
+            counts.computeIfAbsent(word, w -> new int[2])[1]++;
+        }
+        for (Map.Entry<String, int[]> term : counts.entrySet()) {
+            int[] tf = term.getValue();
+            terms.computeIfAbsent(term.getKey(), t -> new Postings())
+                    .add(doc << 8 | Math.min(tf[0], 7) << 5 | Math.min(tf[1], 31));
+        }
+        int length = NAME_WEIGHT * nameWords.size() + descriptionWords.size();
+        lengths[doc] = length;
+        totalLength += length;
+    }
+
+    public void remove(long key) {
+        Integer doc = docByKey.remove(key);
+        if (doc == null) {
+            return;
+        }
+        totalLength -= lengths[doc];
+        lengths[doc] = -1;
+        int dead = docCount - docByKey.size();
+        if (dead > 1024 && dead > docByKey.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Keys matching every word of the query, best scores first (ties by key),
+     * with the total number of matches.
+     *
+     * @param limit number of hits to return from the top
+     */
+    public Result search(String query, int limit) {
+        List<String> words = TextNormalizer.words(query);
+        if (words.isEmpty() || docByKey.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / docByKey.size());
+
+        int[] docs = null;
+        double[] scores = null;
+        for (int w = 0; w < words.size(); w++) {
+            Matches matches = match(words.get(w), w == words.size() - 1, averageLength);
+            if (docs == null) {
+                docs = matches.docs;
+                scores = matches.scores;
+            } else {
+                int n = 0;
+                int i = 0;
+                int j = 0;
+                while (i < docs.length && j < matches.docs.length) {
+                    if (docs[i] < matches.docs[j]) {
+                        i++;
+                    } else if (docs[i] > matches.docs[j]) {
+                        j++;
+                    } else {
+                        docs[n] = docs[i];
+                        scores[n++] = scores[i++] + matches.scores[j++];
+                    }
+                }
+                docs = Arrays.copyOf(docs, n);
+                scores = Arrays.copyOf(scores, n);
+            }
+            if (docs.length == 0) {
+                return new Result(List.of(), 0);
+            }
+        }
+
+        Comparator<Hit> worstFirst = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingLong(Hit::key).reversed());
+        PriorityQueue<Hit> top = new PriorityQueue<>(worstFirst);
+        for (int i = 0; i < docs.length && limit > 0; i++) {
+            Hit hit = new Hit(keys[docs[i]], scores[i]);
+            if (top.size() < limit) {
+                top.add(hit);
+            } else if (worstFirst.compare(hit, top.peek()) > 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(worstFirst.reversed());
+        return new Result(hits, docs.length);
+    }
+
+    private record Matches(int[] docs, double[] scores) {
+    }
+
+    /**
+     * Live documents matching one query word, sorted by number, each with its
+     * best score among the exact term, prefix expansions and skeleton.
+     */
+    private Matches match(String word, boolean prefix, double averageLength) {
+        Map<Integer, Double> best = new HashMap<>();
+        Postings exact = terms.get(word);
+        double maxIdf = Double.MAX_VALUE;
+        if (exact != null) {
+            maxIdf = idf(exact);
+            score(exact, 1.0, maxIdf, averageLength, best);
+        }
+        if (prefix) {
+            int expanded = 0;
+            // Skeleton terms start with "~", never with a normalized word
+            for (Postings postings : terms.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+                if (++expanded > MAX_PREFIX_TERMS) {
+                    break;
+                }
+                score(postings, PREFIX_WEIGHT, Math.min(idf(postings), maxIdf), averageLength, best);
+            }
+        }
+        String skeleton = TextNormalizer.skeleton(word);
+        Postings similar = skeleton != null ? terms.get(SKELETON + skeleton) : null;
+        if (similar != null) {
+            score(similar, SKELETON_WEIGHT, Math.min(idf(similar), maxIdf), averageLength, best);
+        }
+
+        int[] docs = best.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        double[] scores = new double[docs.length];
+        for (int i = 0; i < docs.length; i++) {
+            scores[i] = best.get(docs[i]);
+        }
+        return new Matches(docs, scores);
+    }
+
+    private double idf(Postings postings) {
+        return Math.log(1 + (docByKey.size() - postings.size + 0.5) / (postings.size + 0.5));
+    }
+
+    private void score(Postings postings, double weight, double idf, double averageLength,
+                       Map<Integer, Double> best) {
+        for (int i = 0; i < postings.size; i++) {
+            int posting = postings.values[i];
+            int doc = posting >>> 8;
+            if (lengths[doc] < 0) {
+                continue;
+            }
+            double tf = NAME_WEIGHT * ((posting >>> 5) & 7) + (posting & 31);
+            double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            double score = weight * idf * tf * (K1 + 1) / (tf + norm);
+            best.merge(doc, score, Math::max);
+        }
+    }
+
+    /**
+     * Renumber the live docs from 0 and drop the dead postings.
+     */
+    private void compact() {
+        int[] renumber = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (lengths[doc] >= 0) {
+                keys[live] = keys[doc];
+                lengths[live] = lengths[doc];
+                renumber[doc] = live++;
+            } else {
+                renumber[doc] = -1;
+            }
+        }
+        docCount = live;
+        for (int i = 0; i < live; i++) {
+            docByKey.put(keys[i], i);
+        }
+        terms.values().removeIf(postings -> {
+            int n = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int posting = postings.values[i];
+                int doc = renumber[posting >>> 8];
+                if (doc >= 0) {
+                    postings.values[n++] = doc << 8 | (posting & 0xFF);
+                }
+            }
+            postings.size = n;
+            postings.values = Arrays.copyOf(postings.values, Math.max(n, 1));
+            return n == 0;
+        });
+    }
+
+    private static final class Postings {
+        int[] values = new int[2];
+        int size;
+
+        void add(int posting) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = posting;
+        }
+    }
+}
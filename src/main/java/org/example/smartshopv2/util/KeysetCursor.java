@@ -0,0 +1,78 @@
+package org.example.smartshopv2.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque position in a list ordered by (createdAt, id).
+ *
+ * Clients get it back as a URL-safe token and send it unchanged to fetch the
+ * next page, so deep pages are a simple index seek instead of an OFFSET scan.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public KeysetCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, or null for a blank token (first page)
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new RuntimeException("Invalid pagination cursor");
+        }
+    }
+
+    /**
+     * Clamp a requested page size to [1, MAX_PAGE_SIZE].
+     */
+    public static int pageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Cursor of the next page, given rows fetched with a limit of {@code pageSize + 1}.
+     * Returns null when there is no next page.
+     */
+    public static <T> String next(List<T> rows, int pageSize,
+                                  Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        if (rows.size() <= pageSize) {
+            return null;
+        }
+        T last = rows.get(pageSize - 1);
+        return new KeysetCursor(createdAt.apply(last), id.apply(last)).encode();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.smartshopv2.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file line by line through memory-mapped windows, so a large file
+ * never has to fit on the heap and no line is copied into a String.
+ *
+ * Lines end with '\n' (a trailing '\r' is dropped); the last line may have no
+ * newline. A line that does not fit in one window is an error.
+ */
+public final class MappedLineReader {
+
+    @FunctionalInterface
+    public interface LineHandler {
+        // The line is buffer[start, end); the buffer is only valid during the call
+        void line(ByteBuffer buffer, int start, int end);
+    }
+
+    private MappedLineReader() {
+    }
+
+    /**
+     * @return the number of bytes read
+     */
+    public static long forEachLine(Path file, int windowSize, LineHandler handler) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(windowSize, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == size;
+
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (window.get(i) == '\n') {
+                        emit(window, lineStart, i, handler);
+                        lineStart = i + 1;
+                    }
+                }
+
+                if (lastWindow) {
+                    if (lineStart < length) {
+                        emit(window, lineStart, length, handler);
+                    }
+                    position = size;
+                } else if (lineStart == 0) {
+                    throw new IOException("Line longer than " + windowSize + " bytes at offset " + position);
+                } else {
+                    // The unfinished line is read again at the start of the next window
+                    position += lineStart;
+                }
+            }
+            return size;
+        }
+    }
+
+    private static void emit(ByteBuffer buffer, int start, int end, LineHandler handler) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        handler.line(buffer, start, end);
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.smartshopv2.util;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount in dirhams held as a whole number of centimes.
+ *
+ * Sums and differences are exact, so a balance paid off in several
+ * instalments reaches exactly zero. Percentages round half-up to the centime.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long centimes;
+
+    private Money(long centimes) {
+        this.centimes = centimes;
+    }
+
+    public static Money ofCentimes(long centimes) {
+        return centimes == 0 ? ZERO : new Money(centimes);
+    }
+
+    public static Money of(long dirhams) {
+        return ofCentimes(Math.multiplyExact(dirhams, 100L));
+    }
+
+    /**
+     * Rounds to the nearest centime using the decimal value as written (1.005 becomes 1.01).
+     */
+    public static Money of(double dirhams) {
+        if (Double.isNaN(dirhams) || Double.isInfinite(dirhams)) {
+            throw new IllegalArgumentException("Invalid amount: " + dirhams);
+        }
+        return of(BigDecimal.valueOf(dirhams));
+    }
+
+    public static Money of(BigDecimal dirhams) {
+        return ofCentimes(dirhams.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public long getCentimes() {
+        return centimes;
+    }
+
+    public Money plus(Money other) {
+        return ofCentimes(Math.addExact(centimes, other.centimes));
+    }
+
+    public Money minus(Money other) {
+        return ofCentimes(Math.subtractExact(centimes, other.centimes));
+    }
+
+    public Money times(int quantity) {
+        return ofCentimes(Math.multiplyExact(centimes, (long) quantity));
+    }
+
+    /**
+     * {@code percent}% of this amount, rounded half-up (away from zero) to the centime.
+     */
+    public Money percent(int percent) {
+        return ofCentimes(percentOf(centimes, percent));
+    }
+
+    /**
+     * Same as {@link #percent(int)} on a raw centime count, for loops that should not allocate.
+     */
+    public static long percentOf(long centimes, int percent) {
+        long scaled = Math.multiplyExact(centimes, (long) percent);
+        long result = scaled / 100;
+        if (Math.abs(scaled % 100) >= 50) {
+            result += Long.signum(scaled);
+        }
+        return result;
+    }
+
+    public boolean isPositive() {
+        return centimes > 0;
+    }
+
+    public boolean isZero() {
+        return centimes == 0;
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return centimes > other.centimes;
+    }
+
+    public boolean isLessThan(Money other) {
+        return centimes < other.centimes;
+    }
+
+    public double toDouble() {
+        return centimes / 100.0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centimes, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(centimes, other.centimes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && centimes == other.centimes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centimes);
+    }
+
+    /**
+     * Plain decimal with two digits, e.g. {@code 1234.50} or {@code -0.05}.
+     */
+    @Override
+    public String toString() {
+        long abs = Math.abs(centimes);
+        long cents = abs % 100;
+        return (centimes < 0 ? "-" : "") + abs / 100 + (cents < 10 ? ".0" : ".") + cents;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.smartshopv2.util;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of locks shared by key hash.
+ *
+ * Work on the same key is serialized; work on different keys only waits when
+ * two keys land on the same stripe. Memory stays constant however many keys
+ * there are.
+ */
+public final class StripedLock {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public <T> T withLock(long key, Supplier<T> action) {
+        ReentrantLock lock = locks[spread(key) & mask];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run with the stripes of all keys held. Stripes are always taken in
+     * index order, so two callers with overlapping keys cannot deadlock.
+     */
+    public <T> T withLocks(Collection<Long> keys, Supplier<T> action) {
+        int[] stripes = keys.stream().mapToInt(key -> spread(key) & mask).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    // Sequential IDs would otherwise map to neighbouring stripes only
+    private static int spread(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
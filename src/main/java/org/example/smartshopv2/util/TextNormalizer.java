@@ -0,0 +1,105 @@
+package org.example.smartshopv2.util;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Text folding for catalog search.
+ *
+ * {@link #words} lowercases, drops accents and Arabic diacritics, and unifies
+ * Arabic letter variants (alef forms, final ya and ta marbuta, tatweel).
+ * {@link #skeleton} reduces a word to a rough consonant key that a French
+ * spelling and the Arabic spelling of the same word tend to share, e.g.
+ * "zit", "zeit" and "زيت" all give "zt".
+ */
+public final class TextNormalizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    // Latin spelling of each Arabic letter, French style (ش = ch, و = ou)
+    private static final String[] ARABIC_LATIN = new String[0x650 - 0x620];
+
+    static {
+        String[][] letters = {
+                {"ا", "a"}, {"ب", "b"}, {"ت", "t"}, {"ث", "t"}, {"ج", "j"}, {"ح", "h"}, {"خ", "kh"},
+                {"د", "d"}, {"ذ", "d"}, {"ر", "r"}, {"ز", "z"}, {"س", "s"}, {"ش", "ch"}, {"ص", "s"},
+                {"ض", "d"}, {"ط", "t"}, {"ظ", "z"}, {"ع", ""}, {"غ", "gh"}, {"ف", "f"}, {"ق", "k"},
+                {"ك", "k"}, {"ل", "l"}, {"م", "m"}, {"ن", "n"}, {"ه", "h"}, {"و", "ou"}, {"ي", "i"},
+                {"ء", ""}, {"ى", "a"}, {"ة", "a"}};
+        for (String[] letter : letters) {
+            ARABIC_LATIN[letter[0].charAt(0) - 0x620] = letter[1];
+        }
+    }
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Normalized words of a text, in order; empty for a blank text.
+     */
+    public static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder unified = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            switch (c) {
+                case 'ـ' -> { } // tatweel
+                case 'أ', 'إ', 'آ', 'ٱ' -> unified.append('ا');
+                case 'ى' -> unified.append('ي');
+                case 'ة' -> unified.append('ه');
+                case 'ؤ' -> unified.append('و');
+                case 'ئ' -> unified.append('ي');
+                case 'گ', 'ڭ' -> unified.append('g');
+                default -> unified.append(Character.toLowerCase(c));
+            }
+        }
+        String spaced = NON_WORD.matcher(unified).replaceAll(" ").strip();
+        return spaced.isEmpty() ? List.of() : List.of(spaced.split(" "));
+    }
+
+    /**
+     * Consonant key of a normalized word: Arabic letters spelled in Latin,
+     * common digraphs folded, vowels after the first letter and doubled
+     * letters dropped. Null for words with digits or other scripts, and when
+     * the key would be too short to be useful.
+     */
+    public static String skeleton(String word) {
+        StringBuilder latin = new StringBuilder(word.length() + 4);
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 0x620 && c < 0x650 && ARABIC_LATIN[c - 0x620] != null) {
+                latin.append(ARABIC_LATIN[c - 0x620]);
+            } else if (c >= 'a' && c <= 'z') {
+                latin.append(c);
+            } else {
+                return null; // numbers and other scripts are matched as written
+            }
+        }
+        String folded = latin.toString()
+                .replace("ch", "s").replace("sh", "s")
+                .replace("kh", "k").replace("gh", "g").replace("ph", "f")
+                .replace("th", "t").replace("dh", "d").replace("ou", "u")
+                .replace("qu", "k").replace('q', 'k').replace('w', 'u').replace('y', 'i')
+                .replaceAll("c(?=[eiy])", "s").replace('c', 'k');
+
+        StringBuilder key = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            boolean vowel = "aeiou".indexOf(c) >= 0;
+            if ((vowel && i > 0) || (key.length() > 0 && key.charAt(key.length() - 1) == c)) {
+                continue;
+            }
+            key.append(c);
+        }
+        // A final h is most often a ta marbuta, written -a in Latin
+        if (key.length() > 2 && key.charAt(key.length() - 1) == 'h') {
+            key.setLength(key.length() - 1);
+        }
+        return key.length() >= 2 ? key.toString() : null;
+    }
+}
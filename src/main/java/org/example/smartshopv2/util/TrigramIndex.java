@@ -0,0 +1,299 @@
+package org.example.smartshopv2.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Substring search over a few short text fields per key, by trigrams.
+ *
+ * Fields are lowercased, stripped of accents and split into words; each word
+ * is indexed by its trigrams, padded at the start so that a one or two letter
+ * query still finds the words it begins. Every document gets an int number in
+ * insertion order, so posting lists are int arrays already sorted and a query
+ * is an intersection of the lists of its trigrams, checked against the
+ * stored fields. Updating a key indexes it again under a new number and
+ * leaves the old one dead; dead entries are dropped when they outnumber the
+ * live ones.
+ *
+ * Not thread-safe: callers serialize writes against reads.
+ */
+public final class TrigramIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern PHONE_LIKE = Pattern.compile("[\\d().+-]*\\d[\\d().+-]*");
+    private static final char PAD = '\u0001';
+
+    // Score of a query word found in a field: whole field, field prefix, word prefix, inside a word
+    private static final int EXACT = 8;
+    private static final int FIELD_PREFIX = 4;
+    private static final int WORD_PREFIX = 2;
+    private static final int INSIDE = 1;
+
+    public record Hit(long key, int score) {
+    }
+
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private final int[] fieldWeights;
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final Map<Long, Integer> docByKey = new HashMap<>();
+    private long[] keys = new long[1024];
+    private String[][] fields = new String[1024][];
+    private int docCount;
+    private int deadCount;
+
+    /**
+     * @param fieldWeights weight of each field, in the order fields are given to {@link #put}
+     */
+    public TrigramIndex(int... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    public int size() {
+        return docByKey.size();
+    }
+
+    /**
+     * Index a key, replacing what was indexed for it. Null fields are skipped.
+     */
+    public void put(long key, String... values) {
+        remove(key);
+        String[] normalized = new String[fieldWeights.length];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = i < values.length ? normalize(values[i]) : "";
+        }
+        int doc = docCount++;
+        if (doc == keys.length) {
+            keys = Arrays.copyOf(keys, doc * 2);
+            fields = Arrays.copyOf(fields, doc * 2);
+        }
+        keys[doc] = key;
+        fields[doc] = normalized;
+        docByKey.put(key, doc);
+        addPostings(doc, normalized);
+    }
+
+    public void remove(long key) {
+        Integer doc = docByKey.remove(key);
+        if (doc == null) {
+            return;
+        }
+        fields[doc] = null;
+        if (++deadCount > 1024 && deadCount > docByKey.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Keys whose fields contain every word of the query, best scores first
+     * (ties by key), with the total number of matches.
+     *
+     * @param limit number of hits to return from the top
+     */
+    public Result search(String query, int limit) {
+        List<String> words = queryWords(query);
+        if (words.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        int[] candidates = candidates(words);
+        if (candidates == null) {
+            return new Result(List.of(), 0);
+        }
+
+        Comparator<Hit> worstFirst = Comparator.comparingInt(Hit::score)
+                .thenComparing(Comparator.comparingLong(Hit::key).reversed());
+        PriorityQueue<Hit> top = new PriorityQueue<>(worstFirst);
+        int total = 0;
+        for (int doc : candidates) {
+            String[] docFields = fields[doc];
+            if (docFields == null) {
+                continue;
+            }
+            int score = score(docFields, words);
+            if (score == 0) {
+                continue;
+            }
+            total++;
+            if (limit <= 0) {
+                continue;
+            }
+            Hit hit = new Hit(keys[doc], score);
+            if (top.size() < limit) {
+                top.add(hit);
+            } else if (worstFirst.compare(hit, top.peek()) > 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(worstFirst.reversed());
+        return new Result(hits, total);
+    }
+
+    /**
+     * Lowercase, without accents, words separated by single spaces.
+     * Phone-like values (digits and separators only) keep their digits alone.
+     */
+    public static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return "";
+        }
+        String trimmed = value.strip().replace(" ", "");
+        if (PHONE_LIKE.matcher(trimmed).matches()) {
+            return trimmed.replaceAll("\\D", "");
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return NON_WORD.matcher(stripped.toLowerCase()).replaceAll(" ").strip();
+    }
+
+    private static List<String> queryWords(String query) {
+        String normalized = normalize(query);
+        return normalized.isEmpty() ? List.of() : List.of(normalized.split(" "));
+    }
+
+    /**
+     * Docs holding every trigram of the query words, or null if none can match.
+     */
+    private int[] candidates(List<String> words) {
+        List<IntList> lists = new ArrayList<>();
+        for (String word : words) {
+            for (long trigram : queryTrigrams(word)) {
+                IntList list = postings.get(trigram);
+                if (list == null) {
+                    return null;
+                }
+                lists.add(list);
+            }
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private int score(String[] docFields, List<String> words) {
+        int score = 0;
+        for (String word : words) {
+            int best = 0;
+            for (int f = 0; f < docFields.length; f++) {
+                best = Math.max(best, fieldWeights[f] * match(docFields[f], word));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static int match(String field, String word) {
+        if (field.equals(word)) {
+            return EXACT;
+        }
+        if (field.startsWith(word)) {
+            return FIELD_PREFIX;
+        }
+        if (field.contains(" " + word)) {
+            return WORD_PREFIX;
+        }
+        // Short words are only looked up as word prefixes
+        return word.length() >= 3 && field.contains(word) ? INSIDE : 0;
+    }
+
+    private void addPostings(int doc, String[] docFields) {
+        for (String field : docFields) {
+            if (field.isEmpty()) {
+                continue;
+            }
+            for (String word : field.split(" ")) {
+                String padded = "" + PAD + PAD + word;
+                for (int i = 0; i + 3 <= padded.length(); i++) {
+                    IntList list = postings.computeIfAbsent(trigram(padded, i), t -> new IntList());
+                    // Docs are added in increasing order; skip a trigram seen earlier in this doc
+                    if (list.size == 0 || list.values[list.size - 1] != doc) {
+                        list.add(doc);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Long> queryTrigrams(String word) {
+        String padded = word.length() < 3 ? "" + PAD + PAD + word : word;
+        List<Long> trigrams = new ArrayList<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(trigram(padded, i));
+        }
+        return trigrams;
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static int[] intersect(int[] a, IntList b) {
+        int[] out = new int[Math.min(a.length, b.size)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.size) {
+            if (a[i] < b.values[j]) {
+                i++;
+            } else if (a[i] > b.values[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Renumber the live docs from 0 and rebuild the postings without the dead ones.
+     */
+    private void compact() {
+        long[] oldKeys = keys;
+        String[][] oldFields = fields;
+        int oldCount = docCount;
+        keys = new long[Math.max(1024, docByKey.size() * 2)];
+        fields = new String[keys.length][];
+        docCount = 0;
+        deadCount = 0;
+        postings.clear();
+        docByKey.clear();
+        for (int doc = 0; doc < oldCount; doc++) {
+            if (oldFields[doc] != null) {
+                int renumbered = docCount++;
+                keys[renumbered] = oldKeys[doc];
+                fields[renumbered] = oldFields[doc];
+                docByKey.put(oldKeys[doc], renumbered);
+                addPostings(renumbered, oldFields[doc]);
+            }
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
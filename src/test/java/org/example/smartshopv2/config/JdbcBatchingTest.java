@@ -0,0 +1,142 @@
+package org.example.smartshopv2.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.smartshopv2.dto.OrderItemRequest;
+import org.example.smartshopv2.dto.OrderRequest;
+import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.service.OrderService;
+import org.example.smartshopv2.support.SqlStatementCounter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for JDBC insert batching
+ *
+ * Sequence-generated IDs let Hibernate send the INSERTs of one table
+ * as a single JDBC batch instead of one statement per row.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("JDBC Batching Tests")
+class JdbcBatchingTest {
+
+    private static final int LINES = 30;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DataInitializer dataInitializer;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("createOrder should insert all order lines in one batch")
+    void testCreateOrder_InsertsItemsInOneBatch() {
+        // ARRANGE
+        User user = userRepository.save(User.builder()
+                .username("batchclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+        Client client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Batch Corp")
+                .build());
+
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Batch product " + i)
+                    .priceHT(10.0)
+                    .stockQuantity(100)
+                    .build());
+            OrderItemRequest item = new OrderItemRequest();
+            item.setProductId(product.getId());
+            item.setQuantity(1);
+            items.add(item);
+        }
+        OrderRequest request = new OrderRequest();
+        request.setItems(items);
+
+        // ACT
+        SqlStatementCounter.reset();
+        statistics.clear();
+        OrderResponse response = orderService.createOrder(client.getId(), request);
+
+        // ASSERT
+        assertEquals(LINES, response.getItems().size());
+        assertEquals(LINES + 1, statistics.getEntityInsertCount());
+        assertEquals(1, SqlStatementCounter.inserts("orders"));
+        assertEquals(1, SqlStatementCounter.inserts("order_items"));
+        // client + products lookups, sequence calls and two batched INSERTs, not N+1 INSERTs
+        assertTrue(statistics.getPrepareStatementCount() < 10,
+                "Statements issued: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("DataInitializer should seed the catalog in one batch")
+    void testDataInitializer_SeedsProductsInOneBatch() {
+        // ARRANGE
+        productRepository.deleteAll();
+
+        // ACT
+        SqlStatementCounter.reset();
+        statistics.clear();
+        dataInitializer.run();
+
+        // ASSERT
+        assertEquals(15, productRepository.count());
+        assertEquals(1, SqlStatementCounter.inserts("products"));
+        // admin lookup/insert, product count, sequence calls and one batched INSERT
+        assertTrue(statistics.getPrepareStatementCount() < 10,
+                "Statements issued: " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.smartshopv2.controller;
+
+import org.example.smartshopv2.dto.ProductResponse;
+import org.example.smartshopv2.service.AuthorizationService;
+import org.example.smartshopv2.service.InventoryAdjustmentService;
+import org.example.smartshopv2.service.ProductImportService;
+import org.example.smartshopv2.service.ProductService;
+import org.example.smartshopv2.service.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Controller tests for ProductController
+ *
+ * These tests verify conditional GETs on the catalog
+ */
+@WebMvcTest(ProductController.class)
+@DisplayName("ProductController Tests")
+class ProductControllerTest {
+
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private StockReservationService stockReservationService;
+
+    @MockBean
+    private InventoryAdjustmentService inventoryAdjustmentService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private AuthorizationService authService;
+
+    @BeforeEach
+    void setUp() {
+        when(productService.getCatalogETag()).thenReturn("abc-7-3-2");
+        when(productService.getCatalogLastModified()).thenReturn(LAST_MODIFIED);
+        when(productService.getProduct(1L)).thenReturn(ProductResponse.builder().id(1L).name("Cable").build());
+    }
+
+    @Test
+    @DisplayName("GET /api/products/{id} - Should return 200 with ETag and Last-Modified")
+    void testGetProduct_NoValidator_Returns200() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/api/products/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"abc-7-3-2\""))
+            .andExpect(header().dateValue("Last-Modified", LAST_MODIFIED))
+            .andExpect(jsonPath("$.name").value("Cable"));
+    }
+
+    @Test
+    @DisplayName("GET /api/products/{id} - Should return 304 when the ETag still matches")
+    void testGetProduct_MatchingETag_Returns304() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/api/products/1").header("If-None-Match", "\"abc-7-3-2\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/products/1").header("If-None-Match", "\"abc-6-3-2\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/products - Should return 304 without building the page")
+    void testGetAllProducts_MatchingETag_Returns304() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/api/products").header("If-None-Match", "\"abc-7-3-2\""))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/products").header("If-Modified-Since", "Tue, 14 Nov 2023 22:13:20 GMT"))
+            .andExpect(status().isNotModified());
+
+        verify(productService, never()).getAllProducts(any());
+    }
+}
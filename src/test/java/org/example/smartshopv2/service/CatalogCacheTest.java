@@ -0,0 +1,141 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ProductRequest;
+import org.example.smartshopv2.dto.ProductResponse;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for CatalogCache
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("CatalogCache Integration Tests")
+class CatalogCacheTest {
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Products left by other test classes
+        productRepository.deleteAll();
+        catalogCache.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        catalogCache.reload();
+    }
+
+    @Test
+    @DisplayName("Should publish a new snapshot for each committed product write")
+    void testProductWrites_PublishSnapshots() {
+        // ARRANGE
+        ProductResponse cable = productService.createProduct(request("Cable", 20.0, 100));
+        ProductResponse adapter = productService.createProduct(request("adapter", 45.0, 10));
+        ProductResponse screen = productService.createProduct(request("Screen", 1500.0, 5));
+        long version = catalogCache.getSnapshot().getVersion();
+
+        // ACT
+        productService.updateProduct(cable.getId(), request("Cable HDMI", 25.0, 90));
+        productService.deleteProduct(screen.getId());
+
+        // ASSERT
+        assertEquals(version + 2, catalogCache.getSnapshot().getVersion());
+        assertEquals("Cable HDMI", productService.getProduct(cable.getId()).getName());
+        assertEquals(90, productService.getProduct(cable.getId()).getStockQuantity());
+        assertThrows(RuntimeException.class, () -> productService.getProduct(screen.getId()));
+
+        Page<ProductResponse> byName = productService.getAllProducts(PageRequest.of(0, 10, Sort.by("name")));
+        assertEquals(2, byName.getTotalElements());
+        assertEquals(List.of(adapter.getId(), cable.getId()), ids(byName));
+
+        Page<ProductResponse> byPriceDesc = productService.getAllProducts(
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "priceHT")));
+        assertEquals(List.of(adapter.getId()), ids(byPriceDesc));
+        assertEquals(2, byPriceDesc.getTotalPages());
+    }
+
+    @Test
+    @DisplayName("Should move stock counters on committed reservations without a new snapshot")
+    void testReservation_MovesStockOnly() {
+        // ARRANGE
+        ProductResponse cable = productService.createProduct(request("Cable", 20.0, 100));
+        long version = catalogCache.getSnapshot().getVersion();
+
+        // ACT - one reservation rolled back, one committed
+        transactionTemplate.executeWithoutResult(status -> {
+            stockReservationService.reserve(Map.of(cable.getId(), 30));
+            status.setRollbackOnly();
+        });
+        assertEquals(100, productService.getProduct(cable.getId()).getStockQuantity());
+
+        transactionTemplate.executeWithoutResult(status -> stockReservationService.reserve(Map.of(cable.getId(), 30)));
+
+        // ASSERT
+        assertEquals(70, productService.getProduct(cable.getId()).getStockQuantity());
+        assertEquals(70, productRepository.findById(cable.getId()).get().getStockQuantity());
+        assertEquals(version, catalogCache.getSnapshot().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should keep the latest product version when commits publish out of order")
+    void testPublish_OutOfOrder() {
+        // ARRANGE - two writes of the cable, the later one published first
+        ProductResponse cable = productService.createProduct(request("Cable", 20.0, 100));
+        long version = productRepository.findById(cable.getId()).get().getCatalogVersion();
+        Product older = Product.builder().id(cable.getId()).name("Cable USB").priceHT(20.0).stockQuantity(105)
+                .catalogVersion(version + 1).build();
+        Product newer = Product.builder().id(cable.getId()).name("Cable HDMI").priceHT(25.0).stockQuantity(95)
+                .catalogVersion(version + 2).build();
+
+        // ACT
+        transactionTemplate.executeWithoutResult(status -> catalogCache.publishAfterCommit(newer, -10));
+        transactionTemplate.executeWithoutResult(status -> catalogCache.publishAfterCommit(older, 5));
+
+        // ASSERT - the older write's stock move still counts
+        assertEquals("Cable HDMI", catalogCache.getSnapshot().get(cable.getId()).name());
+        assertEquals(95, catalogCache.getStock(cable.getId()));
+    }
+
+    private static ProductRequest request(String name, double price, int stock) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setPriceHT(price);
+        request.setStockQuantity(stock);
+        return request;
+    }
+
+    private static List<Long> ids(Page<ProductResponse> page) {
+        return page.getContent().stream().map(ProductResponse::getId).toList();
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.LeaderboardEntryResponse;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.ClientStats;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.ClientStatsRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ClientLeaderboardService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("ClientLeaderboardService Integration Tests")
+class ClientLeaderboardServiceTest {
+
+    @Autowired
+    private ClientLeaderboardService leaderboard;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClientStatsRepository statsRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> clientIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Spent 0, 1500, 3000, 4500 and 6000 DH
+        for (int i = 0; i < 5; i++) {
+            Money spent = Money.of(i * 1500);
+            User user = userRepository.save(User.builder()
+                    .username("ranked" + i)
+                    .password("pass123")
+                    .role(Role.CLIENT)
+                    .build());
+            Client client = clientRepository.save(Client.builder()
+                    .user(user)
+                    .companyName("Ranked " + i)
+                    .build());
+            statsRepository.save(ClientStats.builder()
+                    .clientId(client.getId())
+                    .companyName(client.getCompanyName())
+                    .loyaltyLevel(LoyaltyPolicy.levelFor(i, spent))
+                    .totalOrders(i)
+                    .totalSpent(spent)
+                    .memberSince(client.getCreatedAt())
+                    .build());
+            clientIds.add(client.getId());
+        }
+        assertEquals(5, leaderboard.reload());
+    }
+
+    @AfterEach
+    void tearDown() {
+        statsRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        leaderboard.reload();
+    }
+
+    @Test
+    @DisplayName("Should rank clients by amount spent and count them per level")
+    void testReload_RanksAndDistribution() {
+        List<LeaderboardEntryResponse> top = leaderboard.getTop(3);
+
+        assertEquals(3, top.size());
+        assertEquals(List.of(clientIds.get(4), clientIds.get(3), clientIds.get(2)),
+                top.stream().map(LeaderboardEntryResponse::getClientId).toList());
+        assertEquals(1, top.get(0).getRank());
+        assertEquals(Money.of(6000), top.get(0).getTotalSpent());
+
+        assertEquals(5, leaderboard.getRank(clientIds.get(0)).getRank());
+        assertEquals(5, leaderboard.getTop(100).size());
+
+        Map<LoyaltyLevel, Long> distribution = leaderboard.getDistribution();
+        assertEquals(1L, distribution.get(LoyaltyLevel.BASIC));
+        assertEquals(3L, distribution.get(LoyaltyLevel.SILVER));
+        assertEquals(1L, distribution.get(LoyaltyLevel.GOLD));
+        assertEquals(0L, distribution.get(LoyaltyLevel.PLATINUM));
+    }
+
+    @Test
+    @DisplayName("Should apply updates only once their transaction commits")
+    void testUpdateAfterCommit() {
+        // ARRANGE
+        ClientStats stats = statsRepository.findById(clientIds.get(0)).get();
+        stats.setTotalSpent(Money.of(20000));
+        stats.setLoyaltyLevel(LoyaltyLevel.PLATINUM);
+
+        // ACT - rolled back first, then committed
+        transactionTemplate.executeWithoutResult(status -> {
+            leaderboard.updateAfterCommit(List.of(stats));
+            status.setRollbackOnly();
+        });
+        assertEquals(5, leaderboard.getRank(clientIds.get(0)).getRank());
+
+        transactionTemplate.executeWithoutResult(status -> leaderboard.updateAfterCommit(List.of(stats)));
+        transactionTemplate.executeWithoutResult(status -> leaderboard.removeAfterCommit(clientIds.get(4)));
+
+        // ASSERT
+        assertEquals(1, leaderboard.getRank(clientIds.get(0)).getRank());
+        assertEquals(4, leaderboard.getTop(10).size());
+        assertEquals(0L, leaderboard.getDistribution().get(LoyaltyLevel.BASIC));
+        assertEquals(1L, leaderboard.getDistribution().get(LoyaltyLevel.PLATINUM));
+        assertThrows(RuntimeException.class, () -> leaderboard.getRank(clientIds.get(4)));
+    }
+
+    @Test
+    @DisplayName("Should rename an entry without touching its totals")
+    void testRenameAfterCommit_KeepsTotals() {
+        // ARRANGE - newer totals committed while the rename was in flight
+        ClientStats stats = statsRepository.findById(clientIds.get(0)).get();
+        stats.setTotalSpent(Money.of(20000));
+        transactionTemplate.executeWithoutResult(status -> leaderboard.updateAfterCommit(List.of(stats)));
+
+        // ACT
+        transactionTemplate.executeWithoutResult(status -> leaderboard.renameAfterCommit(clientIds.get(0), "Renamed"));
+
+        // ASSERT
+        LeaderboardEntryResponse entry = leaderboard.getRank(clientIds.get(0));
+        assertEquals("Renamed", entry.getCompanyName());
+        assertEquals(Money.of(20000), entry.getTotalSpent());
+        assertEquals(1, entry.getRank());
+    }
+}
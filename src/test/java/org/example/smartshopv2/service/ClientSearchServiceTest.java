@@ -0,0 +1,113 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ClientRequest;
+import org.example.smartshopv2.dto.ClientResponse;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.ClientStatsRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ClientSearchService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("ClientSearchService Integration Tests")
+class ClientSearchServiceTest {
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ClientSearchService clientSearchService;
+
+    @Autowired
+    private ClientStatsRepository statsRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Clients left in the index by other test classes
+        clientSearchService.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statsRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        clientSearchService.reload();
+    }
+
+    @Test
+    @DisplayName("Should follow created, updated and deleted clients")
+    void testSearch_FollowsClientChanges() {
+        // ARRANGE
+        ClientResponse atlas = clientService.createClient(request("atlas", "Atlas Négoce", "Karim Alaoui", "0612345678"));
+        ClientResponse sahara = clientService.createClient(request("sahara", "Sahara Logistique", "Salma Idrissi", null));
+
+        // ACT + ASSERT
+        assertEquals(List.of(atlas.getId()), ids(clientService.searchClients("negoce", PageRequest.of(0, 20))));
+        assertEquals(List.of(sahara.getId()), ids(clientService.searchClients("sal", PageRequest.of(0, 20))));
+        assertEquals(List.of(atlas.getId()), ids(clientService.searchClients("06 12 34", PageRequest.of(0, 20))));
+
+        clientService.updateClient(atlas.getId(), request("atlas", "Atlas Distribution", "Karim Alaoui", null));
+        assertEquals(0, clientService.searchClients("negoce", PageRequest.of(0, 20)).getTotalElements());
+        assertEquals(List.of(atlas.getId()), ids(clientService.searchClients("distrib", PageRequest.of(0, 20))));
+
+        clientService.deleteClient(sahara.getId());
+        assertEquals(0, clientService.searchClients("sahara", PageRequest.of(0, 20)).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should page through ranked results")
+    void testSearch_Paginated() {
+        // ARRANGE - "Maroc" is the whole name of one client, the start of others
+        for (int i = 0; i < 5; i++) {
+            clientService.createClient(request("maroc" + i, "Maroc Import " + i, null, null));
+        }
+        ClientResponse exact = clientService.createClient(request("maroc", "Maroc", null, null));
+
+        // ACT
+        Page<ClientResponse> first = clientService.searchClients("maroc", PageRequest.of(0, 4));
+        Page<ClientResponse> second = clientService.searchClients("maroc", PageRequest.of(1, 4));
+
+        // ASSERT
+        assertEquals(6, first.getTotalElements());
+        assertEquals(2, first.getTotalPages());
+        assertEquals(exact.getId(), first.getContent().get(0).getId());
+        assertEquals(4, first.getContent().size());
+        assertEquals(2, second.getContent().size());
+    }
+
+    private static ClientRequest request(String username, String companyName, String contactName, String phone) {
+        ClientRequest request = new ClientRequest();
+        request.setUsername(username);
+        request.setPassword("pass123");
+        request.setCompanyName(companyName);
+        request.setContactName(contactName);
+        request.setEmail(username + "@example.ma");
+        request.setPhone(phone);
+        return request;
+    }
+
+    private static List<Long> ids(Page<ClientResponse> page) {
+        return page.getContent().stream().map(ClientResponse::getId).toList();
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ClientStatsResponse;
+import org.example.smartshopv2.dto.OrderItemRequest;
+import org.example.smartshopv2.dto.OrderRequest;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.ClientStats;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.ClientStatsRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ClientStatsService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("ClientStatsService Integration Tests")
+class ClientStatsServiceTest {
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ClientStatsRepository statsRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Client client;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        // Events left by other test classes
+        clientStatsService.flush();
+
+        User user = userRepository.save(User.builder()
+                .username("statsclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+
+        client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Stats Corp")
+                .loyaltyLevel(LoyaltyLevel.BASIC)
+                .build());
+
+        product = productRepository.save(Product.builder()
+                .name("Cable")
+                .priceHT(100.0)
+                .stockQuantity(1000)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        statsRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should count parallel confirmations of one client once the queue is flushed")
+    void testFlush_ParallelConfirmations_CountedExactly() throws Exception {
+        // ARRANGE - 24 paid orders of 120 DH TTC
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            orderIds.add(createPaidOrder());
+        }
+
+        // ACT
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            results.add(executor.submit(() -> orderService.confirmOrder(orderId)));
+        }
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // ASSERT - nothing written to the client yet
+        assertEquals(24, clientStatsService.getPendingEvents());
+        assertTrue(statsRepository.findById(client.getId()).isEmpty());
+        assertEquals(LoyaltyLevel.BASIC, clientRepository.findById(client.getId()).get().getLoyaltyLevel());
+
+        assertEquals(24, clientStatsService.flush());
+
+        ClientStatsResponse stats = clientStatsService.getStats(client.getId());
+        assertEquals(24, stats.getTotalOrders());
+        assertEquals(Money.of(2880), stats.getTotalSpent());
+        assertEquals(LoyaltyLevel.PLATINUM, stats.getLoyaltyLevel());
+        assertEquals("Stats Corp", stats.getCompanyName());
+        assertNotNull(stats.getFirstOrderDate());
+        assertEquals(LoyaltyLevel.PLATINUM, clientRepository.findById(client.getId()).get().getLoyaltyLevel());
+    }
+
+    @Test
+    @DisplayName("Should rebuild stats from orders without counting queued orders twice")
+    void testReconcile_RebuildsWithoutDoubleCount() {
+        // ARRANGE - one confirmation still queued, one whose event was lost, and a drifted row
+        Long queued = createPaidOrder();
+        orderService.confirmOrder(queued);
+
+        Order lost = orderRepository.findById(createPaidOrder()).get();
+        lost.setStatus(OrderStatus.CONFIRMED);
+        orderRepository.save(lost);
+
+        statsRepository.save(ClientStats.builder()
+                .clientId(client.getId())
+                .companyName("Stats Corp")
+                .memberSince(client.getCreatedAt())
+                .totalOrders(99)
+                .build());
+
+        // ACT
+        clientStatsService.reconcile();
+        clientStatsService.flush();
+
+        // ASSERT
+        ClientStatsResponse stats = clientStatsService.getStats(client.getId());
+        assertEquals(2, stats.getTotalOrders());
+        assertEquals(Money.of(240), stats.getTotalSpent());
+        assertEquals(LoyaltyLevel.BASIC, stats.getLoyaltyLevel());
+    }
+
+    private Long createPaidOrder() {
+        OrderRequest request = new OrderRequest();
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(1);
+        request.setItems(List.of(item));
+        Long orderId = orderService.createOrder(client.getId(), request).getId();
+
+        Order order = orderRepository.findById(orderId).get();
+        order.setMontantRestant(Money.ZERO);
+        orderRepository.save(order);
+        return orderId;
+    }
+}
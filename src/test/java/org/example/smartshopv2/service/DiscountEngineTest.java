@@ -0,0 +1,128 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.config.DiscountProperties;
+import org.example.smartshopv2.entity.OrderItem;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DiscountEngine
+ *
+ * Rules are built in code, no Spring context involved.
+ */
+@DisplayName("DiscountEngine Unit Tests")
+class DiscountEngineTest {
+
+    private DiscountEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        DiscountProperties properties = new DiscountProperties();
+        properties.getLoyalty().add(loyalty(LoyaltyLevel.SILVER, 500, 5));
+        properties.getLoyalty().add(loyalty(LoyaltyLevel.GOLD, 800, 10));
+        properties.getProducts().add(product(7L, 1, 10));
+        properties.getProducts().add(product(7L, 10, 20));
+        properties.getQuantities().add(quantity(20, 2));
+        properties.getQuantities().add(quantity(50, 4));
+
+        engine = new DiscountEngine(properties);
+    }
+
+    @Test
+    @DisplayName("Should apply a loyalty tier only from its minimum subtotal")
+    void testCalculateDiscount_LoyaltyThreshold() {
+        List<OrderItem> items = List.of(line(1L, 1, Money.of(499.99)));
+        assertEquals(Money.ZERO, engine.calculateDiscount(LoyaltyLevel.SILVER, Money.of(499.99), items, 0));
+
+        items = List.of(line(1L, 1, Money.of(500)));
+        assertEquals(Money.of(25), engine.calculateDiscount(LoyaltyLevel.SILVER, Money.of(500), items, 0));
+        assertEquals(Money.ZERO, engine.calculateDiscount(LoyaltyLevel.BASIC, Money.of(500), items, 0));
+    }
+
+    @Test
+    @DisplayName("Should pick the highest product and quantity thresholds reached")
+    void testCalculateDiscount_ProductAndQuantityRules() {
+        // ARRANGE - 12 units of product 7 (20% on the line) + 10 units of product 3
+        List<OrderItem> items = List.of(
+                line(7L, 12, Money.of(120)),
+                line(3L, 10, Money.of(80)));
+
+        // ACT - 22 units: 2% on the whole order + 20% of the product 7 line
+        Money discount = engine.calculateDiscount(LoyaltyLevel.BASIC, Money.of(200), items, 0);
+
+        // ASSERT
+        assertEquals(Money.of(4).plus(Money.of(24)), discount);
+    }
+
+    @Test
+    @DisplayName("Should add the promo code percent to the order-level rules")
+    void testCalculateDiscount_PromoPercent() {
+        // ARRANGE - GOLD 10% + promo 5%
+        List<OrderItem> items = List.of(line(1L, 1, Money.of(1000)));
+
+        // ACT
+        Money discount = engine.calculateDiscount(LoyaltyLevel.GOLD, Money.of(1000), items, 5);
+
+        // ASSERT
+        assertEquals(Money.of(150), discount);
+    }
+
+    @Test
+    @DisplayName("Should swap rules atomically and keep the old ones on invalid input")
+    void testLoad_SwapsRules() {
+        // ARRANGE
+        DiscountProperties invalid = new DiscountProperties();
+        invalid.getLoyalty().add(loyalty(LoyaltyLevel.GOLD, 0, 150));
+
+        DiscountProperties replacement = new DiscountProperties();
+        replacement.getLoyalty().add(loyalty(LoyaltyLevel.BASIC, 0, 3));
+        List<OrderItem> items = List.of(line(1L, 1, Money.of(100)));
+
+        // ACT & ASSERT
+        assertThrows(IllegalArgumentException.class, () -> engine.load(invalid));
+        assertEquals(Money.ZERO, engine.calculateDiscount(LoyaltyLevel.BASIC, Money.of(100), items, 0));
+
+        engine.load(replacement);
+        assertEquals(Money.of(3), engine.calculateDiscount(LoyaltyLevel.BASIC, Money.of(100), items, 0));
+    }
+
+    private static OrderItem line(Long productId, int quantity, Money subtotal) {
+        return OrderItem.builder()
+                .product(Product.builder().id(productId).build())
+                .quantity(quantity)
+                .subtotal(subtotal)
+                .build();
+    }
+
+    private static DiscountProperties.LoyaltyRule loyalty(LoyaltyLevel level, long minSubtotal, int percent) {
+        DiscountProperties.LoyaltyRule rule = new DiscountProperties.LoyaltyRule();
+        rule.setLevel(level);
+        rule.setMinSubtotal(BigDecimal.valueOf(minSubtotal));
+        rule.setPercent(percent);
+        return rule;
+    }
+
+    private static DiscountProperties.ProductRule product(Long productId, int minQuantity, int percent) {
+        DiscountProperties.ProductRule rule = new DiscountProperties.ProductRule();
+        rule.setProductId(productId);
+        rule.setMinQuantity(minQuantity);
+        rule.setPercent(percent);
+        return rule;
+    }
+
+    private static DiscountProperties.QuantityRule quantity(int minQuantity, int percent) {
+        DiscountProperties.QuantityRule rule = new DiscountProperties.QuantityRule();
+        rule.setMinQuantity(minQuantity);
+        rule.setPercent(percent);
+        return rule;
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ProductRequest;
+import org.example.smartshopv2.dto.ProductResponse;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.repository.BatchJobCheckpointRepository;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Integration tests for InventoryAdjustmentService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("InventoryAdjustmentService Integration Tests")
+class InventoryAdjustmentServiceTest {
+
+    @Autowired
+    private InventoryAdjustmentService inventoryAdjustmentService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BatchJobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path logDir;
+
+    private Product cable;
+
+    @BeforeEach
+    void setUp() {
+        // Products left by other test classes
+        productRepository.deleteAll();
+        cable = productRepository.save(Product.builder().name("Cable").priceHT(20.0).stockQuantity(10).build());
+        catalogCache.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryAdjustmentService.flush();
+        productRepository.deleteAll();
+        catalogCache.reload();
+    }
+
+    @Test
+    @DisplayName("Should serve adjusted stock from the counters and write it on flush")
+    void testAdjust_WrittenOnFlush() {
+        // ACT
+        Map<Long, Integer> stock = inventoryAdjustmentService.adjust(Map.of(cable.getId(), 5));
+        inventoryAdjustmentService.adjust(Map.of(cable.getId(), -2));
+
+        // ASSERT
+        assertEquals(Map.of(cable.getId(), 15), stock);
+        assertEquals(13, catalogCache.getStock(cable.getId()));
+        assertEquals(10, stockInDatabase());
+
+        assertEquals(1, inventoryAdjustmentService.flush());
+        assertEquals(13, stockInDatabase());
+        assertEquals(13, catalogCache.getStock(cable.getId()));
+        assertEquals(0, inventoryAdjustmentService.flush());
+    }
+
+    @Test
+    @DisplayName("Should reject adjustments taking stock below zero or naming unknown products")
+    void testAdjust_Rejected() {
+        // ACT + ASSERT
+        RuntimeException belowZero = assertThrows(RuntimeException.class,
+                () -> inventoryAdjustmentService.adjust(Map.of(cable.getId(), -11)));
+        assertEquals("Stock cannot go below zero for product: " + cable.getId(), belowZero.getMessage());
+        assertThrows(RuntimeException.class,
+                () -> inventoryAdjustmentService.adjust(Map.of(cable.getId(), 5, -1L, 1)));
+        assertEquals(10, catalogCache.getStock(cable.getId()));
+    }
+
+    @Test
+    @DisplayName("Should let reservations take stock that is only adjusted in memory")
+    void testReserve_CountsPendingAdjustments() {
+        // ARRANGE
+        inventoryAdjustmentService.adjust(Map.of(cable.getId(), 5));
+
+        // ACT
+        List<Long> missing = transactionTemplate.execute(status ->
+                stockReservationService.reserve(Map.of(cable.getId(), 14)));
+        inventoryAdjustmentService.flush();
+
+        // ASSERT
+        assertEquals(List.of(), missing);
+        assertEquals(1, stockInDatabase());
+        assertEquals(1, catalogCache.getStock(cable.getId()));
+    }
+
+    @Test
+    @DisplayName("Should not let a reservation oversell while a flush is being written")
+    void testReserve_BetweenDrainAndCommit() {
+        // ARRANGE - the confirmation runs once the flush has drained the -10, before it commits
+        JdbcTemplate flushing = spy(jdbcTemplate);
+        List<List<Long>> confirmed = new ArrayList<>();
+        doAnswer(invocation -> {
+            confirmed.add(CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status ->
+                    stockReservationService.reserve(Map.of(cable.getId(), 10)))).join());
+            return invocation.callRealMethod();
+        }).when(flushing).batchUpdate(anyString(), anyList());
+        InventoryAdjustmentService service = new InventoryAdjustmentService(catalogCache, flushing,
+                transactionTemplate, checkpointRepository, logDir);
+        service.recover();
+        service.adjust(Map.of(cable.getId(), -10));
+
+        // ACT
+        service.flush();
+
+        // ASSERT
+        assertEquals(List.of(List.of(cable.getId())), confirmed);
+        assertEquals(0, stockInDatabase());
+        assertEquals(0, catalogCache.getStock(cable.getId()));
+        assertEquals(0, catalogCache.getPendingStock(cable.getId()));
+    }
+
+    @Test
+    @DisplayName("Should not let a negative adjustment take stock a pending reservation holds")
+    void testAdjust_WaitsForReservation() {
+        // ARRANGE - a confirmation takes all 10, then an adjustment of -5 comes before it commits
+        CompletableFuture<Map<Long, Integer>> adjusted = transactionTemplate.execute(status -> {
+            assertEquals(List.of(), stockReservationService.reserve(Map.of(cable.getId(), 10)));
+            CompletableFuture<Map<Long, Integer>> adjustment = CompletableFuture.supplyAsync(() ->
+                    inventoryAdjustmentService.adjust(Map.of(cable.getId(), -5)));
+
+            // ACT - the adjustment waits for the product row until the order commits
+            assertThrows(TimeoutException.class, () -> adjustment.get(300, TimeUnit.MILLISECONDS));
+            return adjustment;
+        });
+
+        // ASSERT
+        CompletionException rejected = assertThrows(CompletionException.class, adjusted::join);
+        assertEquals("Stock cannot go below zero for product: " + cable.getId(), rejected.getCause().getMessage());
+        inventoryAdjustmentService.flush();
+        assertEquals(0, stockInDatabase());
+        assertEquals(0, catalogCache.getStock(cable.getId()));
+    }
+
+    @Test
+    @DisplayName("Should keep a stock overwrite as set once the pending adjustments are written")
+    void testUpdateProduct_OverwritesPendingStock() {
+        // ARRANGE
+        inventoryAdjustmentService.adjust(Map.of(cable.getId(), 5));
+        ProductRequest request = new ProductRequest();
+        request.setName("Cable");
+        request.setPriceHT(20.0);
+        request.setStockQuantity(30);
+
+        // ACT
+        ProductResponse updated = productService.updateProduct(cable.getId(), request);
+        inventoryAdjustmentService.flush();
+
+        // ASSERT
+        assertEquals(30, updated.getStockQuantity());
+        assertEquals(30, stockInDatabase());
+        assertEquals(30, catalogCache.getStock(cable.getId()));
+    }
+
+    @Test
+    @DisplayName("Should write logged adjustments once after a restart")
+    void testRecover_ReplaysLog() {
+        // ARRANGE - adjustments logged, then the process dies before flushing
+        InventoryAdjustmentService crashed = newService();
+        crashed.recover();
+        crashed.adjust(Map.of(cable.getId(), 4));
+        crashed.adjust(Map.of(cable.getId(), 3));
+        catalogCache.completePendingStock(catalogCache.drainPendingStock());
+        catalogCache.reload();
+
+        // ACT
+        InventoryAdjustmentService restarted = newService();
+        restarted.recover();
+        newService().recover();
+
+        // ASSERT
+        assertEquals(17, stockInDatabase());
+        assertEquals(17, catalogCache.getStock(cable.getId()));
+    }
+
+    private InventoryAdjustmentService newService() {
+        return new InventoryAdjustmentService(catalogCache, jdbcTemplate, transactionTemplate,
+                checkpointRepository, logDir);
+    }
+
+    private int stockInDatabase() {
+        return productRepository.findById(cable.getId()).get().getStockQuantity();
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoyaltyPolicy
+ */
+@DisplayName("LoyaltyPolicy Unit Tests")
+class LoyaltyPolicyTest {
+
+    @Test
+    @DisplayName("Should reach a tier from its order count or its amount spent")
+    void testLevelFor_Thresholds() {
+        assertEquals(LoyaltyLevel.BASIC, LoyaltyPolicy.levelFor(2, Money.of(999.99)));
+        assertEquals(LoyaltyLevel.SILVER, LoyaltyPolicy.levelFor(3, Money.ZERO));
+        assertEquals(LoyaltyLevel.SILVER, LoyaltyPolicy.levelFor(0, Money.of(1000)));
+        assertEquals(LoyaltyLevel.GOLD, LoyaltyPolicy.levelFor(10, Money.of(10)));
+        assertEquals(LoyaltyLevel.GOLD, LoyaltyPolicy.levelFor(9, Money.of(14999.99)));
+        assertEquals(LoyaltyLevel.PLATINUM, LoyaltyPolicy.levelFor(20, Money.ZERO));
+        assertEquals(LoyaltyLevel.PLATINUM, LoyaltyPolicy.levelFor(1, Money.of(15000)));
+    }
+
+    @Test
+    @DisplayName("Should express the same tiers as a SQL CASE expression")
+    void testSqlCase() {
+        assertEquals("CASE WHEN n >= 20 OR s >= 15000.00 THEN 'PLATINUM'" +
+                        " WHEN n >= 10 OR s >= 5000.00 THEN 'GOLD'" +
+                        " WHEN n >= 3 OR s >= 1000.00 THEN 'SILVER' ELSE 'BASIC' END",
+                LoyaltyPolicy.sqlCase("n", "s"));
+    }
+}
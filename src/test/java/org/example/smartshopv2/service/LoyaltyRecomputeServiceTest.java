@@ -0,0 +1,155 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.LoyaltyRecomputeStatus;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.ClientStats;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.ClientStatsRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for LoyaltyRecomputeService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("LoyaltyRecomputeService Integration Tests")
+class LoyaltyRecomputeServiceTest {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClientLeaderboardService leaderboard;
+
+    @Autowired
+    private ClientProfileCache profileCache;
+
+    @Autowired
+    private ClientStatsRepository statsRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> clientIds = new ArrayList<>();
+    private int stale;
+
+    @BeforeEach
+    void setUp() {
+        // 60 clients with growing totals; every third one already has the right level
+        for (int i = 0; i < 60; i++) {
+            int totalOrders = i % 25;
+            Money totalSpent = Money.of(i * 300);
+            LoyaltyLevel expected = LoyaltyPolicy.levelFor(totalOrders, totalSpent);
+            LoyaltyLevel stored = i % 3 == 0 ? expected : LoyaltyLevel.BASIC;
+            if (stored != expected) {
+                stale++;
+            }
+
+            User user = userRepository.save(User.builder()
+                    .username("loyalty" + i)
+                    .password("pass123")
+                    .role(Role.CLIENT)
+                    .build());
+            Client client = clientRepository.save(Client.builder()
+                    .user(user)
+                    .companyName("Loyalty " + i)
+                    .loyaltyLevel(stored)
+                    .build());
+            statsRepository.save(ClientStats.builder()
+                    .clientId(client.getId())
+                    .companyName(client.getCompanyName())
+                    .loyaltyLevel(stored)
+                    .totalOrders(totalOrders)
+                    .totalSpent(totalSpent)
+                    .memberSince(client.getCreatedAt())
+                    .build());
+            clientIds.add(client.getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        statsRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should write only the clients whose level changes, across parallel ID ranges")
+    void testRecompute_WritesOnlyChangedRows() {
+        // ARRANGE - small ranges so several run in parallel; one client row drifted from its stats
+        LoyaltyRecomputeService service = new LoyaltyRecomputeService(jdbcTemplate, transactionTemplate, leaderboard, profileCache, 4, 7);
+        Client drifted = clientRepository.findById(clientIds.get(57)).get();
+        assertNotEquals(LoyaltyLevel.BASIC, drifted.getLoyaltyLevel());
+        drifted.setLoyaltyLevel(LoyaltyLevel.BASIC);
+        clientRepository.save(drifted);
+
+        // ACT
+        LoyaltyRecomputeStatus status = service.recompute();
+
+        // ASSERT
+        assertFalse(status.isRunning());
+        assertNull(status.getError());
+        assertEquals(9, status.getRangesTotal());
+        assertEquals(9, status.getRangesDone());
+        assertEquals(stale, status.getClientsChanged());
+        assertEquals(stale + 1, status.getClientsSynced());
+        assertNotNull(status.getFinishedAt());
+
+        for (ClientStats stats : statsRepository.findAllById(clientIds)) {
+            LoyaltyLevel expected = LoyaltyPolicy.levelFor(stats.getTotalOrders(), stats.getTotalSpent());
+            assertEquals(expected, stats.getLoyaltyLevel());
+            assertEquals(expected, clientRepository.findById(stats.getClientId()).get().getLoyaltyLevel());
+        }
+
+        // A second run has nothing left to write
+        status = service.recompute();
+        assertEquals(0, status.getClientsChanged());
+        assertEquals(0, status.getClientsSynced());
+    }
+
+    @Test
+    @DisplayName("Should run in the background and report its progress")
+    void testStart_RunsInBackground() throws Exception {
+        // ARRANGE - one client per range
+        LoyaltyRecomputeService service = new LoyaltyRecomputeService(jdbcTemplate, transactionTemplate, leaderboard, profileCache, 2, 1);
+
+        // ACT
+        LoyaltyRecomputeStatus started = service.start();
+        while (service.getStatus().isRunning()) {
+            Thread.sleep(10);
+        }
+
+        // ASSERT
+        assertNotNull(started.getStartedAt());
+        LoyaltyRecomputeStatus status = service.getStatus();
+        assertNull(status.getError());
+        assertEquals(60, status.getRangesTotal());
+        assertEquals(60, status.getRangesDone());
+        assertEquals(stale, status.getClientsChanged());
+        assertTrue(status.getDurationMs() >= 0);
+    }
+}
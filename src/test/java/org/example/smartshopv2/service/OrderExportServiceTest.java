@@ -0,0 +1,174 @@
+package org.example.smartshopv2.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.OrderItem;
+import org.example.smartshopv2.entity.Payment;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.ExportFormat;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.enums.PaymentStatus;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.PaymentRepository;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for OrderExportService
+ *
+ * Seeds more orders than one export chunk so the chunk boundaries are exercised.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("OrderExportService Integration Tests")
+class OrderExportServiceTest {
+
+    private static final int ORDER_COUNT = OrderExportService.CHUNK_SIZE * 2 + 37;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("exportclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+
+        Client client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Export, \"Quoted\" SARL")
+                .loyaltyLevel(LoyaltyLevel.BASIC)
+                .build());
+
+        product = productRepository.save(Product.builder()
+                .name("Clavier")
+                .priceHT(100.0)
+                .stockQuantity(1000)
+                .build());
+
+        List<Order> orders = new ArrayList<>(ORDER_COUNT);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = Order.builder()
+                    .client(client)
+                    .subtotalHT(Money.of(200))
+                    .amountAfterDiscount(Money.of(200))
+                    .tva(Money.of(40))
+                    .totalTTC(Money.of(240))
+                    .montantRestant(Money.ZERO)
+                    .build();
+            order.getItems().add(OrderItem.builder()
+                    .order(order).product(product).quantity(1).priceHT(Money.of(100)).subtotal(Money.of(100)).build());
+            order.getItems().add(OrderItem.builder()
+                    .order(order).product(product).quantity(1).priceHT(Money.of(100)).subtotal(Money.of(100)).build());
+            order.getPayments().add(Payment.builder()
+                    .order(order)
+                    .numeroPaiement(1)
+                    .montant(Money.of(240))
+                    .typePaiement("ESPECES")
+                    .datePaiement(LocalDateTime.now())
+                    .status(PaymentStatus.ENCAISSE)
+                    .build());
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAllInBatch();
+        orderRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should export every order once as NDJSON")
+    void testExportOrders_Ndjson_OneLinePerOrder() throws Exception {
+        // ARRANGE
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // ACT
+        long exported = orderExportService.exportOrders(ExportFormat.NDJSON, out);
+
+        // ASSERT
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ORDER_COUNT, exported);
+        assertEquals(ORDER_COUNT, lines.length);
+
+        Set<Long> ids = new HashSet<>();
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode order = objectMapper.readTree(line);
+            long id = order.get("id").asLong();
+            assertTrue(id > previousId, "orders are exported in id order");
+            previousId = id;
+            ids.add(id);
+            assertEquals(2, order.get("items").size());
+            assertEquals(1, order.get("payments").size());
+        }
+        assertEquals(ORDER_COUNT, ids.size());
+    }
+
+    @Test
+    @DisplayName("Should export one CSV row per order line")
+    void testExportOrders_Csv_OneRowPerLine() {
+        // ARRANGE
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // ACT
+        long exported = orderExportService.exportOrders(ExportFormat.CSV, out);
+
+        // ASSERT
+        String[] rows = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ORDER_COUNT, exported);
+        assertEquals(ORDER_COUNT * 2 + 1, rows.length); // header + 2 lines per order
+        assertTrue(rows[0].startsWith("order_id,created_at,client_id"));
+        assertTrue(rows[1].contains(",\"Export, \"\"Quoted\"\" SARL\","));
+        assertTrue(rows[1].endsWith(",1,240.00," + product.getId() + ",Clavier,1,100.00,100.00"));
+    }
+}
@@ -1,9 +1,15 @@
 package org.example.smartshopv2.service;
 
+import jakarta.persistence.EntityManagerFactory;
 import org.example.smartshopv2.dto.OrderItemRequest;
 import org.example.smartshopv2.dto.OrderRequest;
 import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.dto.PagedResponse;
+import org.example.smartshopv2.dto.PaymentRequest;
+import org.example.smartshopv2.dto.PromoCodeRequest;
 import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.Payment;
 import org.example.smartshopv2.entity.Product;
 import org.example.smartshopv2.entity.User;
 import org.example.smartshopv2.enums.LoyaltyLevel;
@@ -11,8 +17,14 @@ import org.example.smartshopv2.enums.OrderStatus;
 import org.example.smartshopv2.enums.Role;
 import org.example.smartshopv2.repository.ClientRepository;
 import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.PaymentRepository;
 import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.PromoCodeRepository;
 import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.support.SqlStatementCounter;
+import org.example.smartshopv2.util.Money;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -21,7 +33,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,6 +58,27 @@ class OrderServiceTest {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private PromoCodeService promoCodeService;
+
+    @Autowired
+    private PromoCodeRepository promoCodeRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OrderLocks orderLocks;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private ClientRepository clientRepository;
 
@@ -70,8 +110,6 @@ class OrderServiceTest {
                 .user(user)
                 .companyName("Test Corporation")
                 .loyaltyLevel(LoyaltyLevel.BASIC)
-                .totalOrders(0)
-                .totalSpent(0.0)
                 .build();
         testClient = clientRepository.save(testClient);
 
@@ -89,15 +127,24 @@ class OrderServiceTest {
                 .stockQuantity(20)
                 .build();
         testProduct2 = productRepository.save(testProduct2);
+
+        // Promo code used by the promo tests
+        PromoCodeRequest promo = new PromoCodeRequest();
+        promo.setCode("PROMO-2024");
+        promo.setPercent(5);
+        promoCodeService.createPromoCode(promo);
     }
 
     @AfterEach
     void tearDown() {
         // Clean up in reverse order (foreign keys!)
+        paymentRepository.deleteAll();
         orderRepository.deleteAll();
         clientRepository.deleteAll();
         userRepository.deleteAll();
         productRepository.deleteAll();
+        promoCodeRepository.deleteAll();
+        promoCodeService.loadIndex();
     }
 
     @Test
@@ -121,12 +168,12 @@ class OrderServiceTest {
 
         // ASSERT
         assertNotNull(response);
-        assertEquals(2250.0, response.getSubtotalHT()); // 2000 + 250
-        assertEquals(0.0, response.getDiscountAmount()); // BASIC level = no discount
-        assertEquals(2250.0, response.getAmountAfterDiscount());
-        assertEquals(450.0, response.getTva()); // 20% of 2250
-        assertEquals(2700.0, response.getTotalTTC()); // 2250 + 450
-        assertEquals(2700.0, response.getMontantRestant()); // Not paid yet
+        assertEquals(Money.of(2250), response.getSubtotalHT()); // 2000 + 250
+        assertEquals(Money.ZERO, response.getDiscountAmount()); // BASIC level = no discount
+        assertEquals(Money.of(2250), response.getAmountAfterDiscount());
+        assertEquals(Money.of(450), response.getTva()); // 20% of 2250
+        assertEquals(Money.of(2700), response.getTotalTTC()); // 2250 + 450
+        assertEquals(Money.of(2700), response.getMontantRestant()); // Not paid yet
         assertEquals(OrderStatus.PENDING, response.getStatus());
         assertEquals(2, response.getItems().size());
     }
@@ -149,11 +196,11 @@ class OrderServiceTest {
         OrderResponse response = orderService.createOrder(testClient.getId(), request);
 
         // ASSERT
-        assertEquals(1000.0, response.getSubtotalHT());
-        assertEquals(50.0, response.getDiscountAmount()); // 5% of 1000
-        assertEquals(950.0, response.getAmountAfterDiscount());
-        assertEquals(190.0, response.getTva()); // 20% of 950
-        assertEquals(1140.0, response.getTotalTTC());
+        assertEquals(Money.of(1000), response.getSubtotalHT());
+        assertEquals(Money.of(50), response.getDiscountAmount()); // 5% of 1000
+        assertEquals(Money.of(950), response.getAmountAfterDiscount());
+        assertEquals(Money.of(190), response.getTva()); // 20% of 950
+        assertEquals(Money.of(1140), response.getTotalTTC());
     }
 
     @Test
@@ -173,9 +220,9 @@ class OrderServiceTest {
         OrderResponse response = orderService.createOrder(testClient.getId(), request);
 
         // ASSERT
-        assertEquals(1000.0, response.getSubtotalHT());
-        assertEquals(100.0, response.getDiscountAmount()); // 10% of 1000
-        assertEquals(900.0, response.getAmountAfterDiscount());
+        assertEquals(Money.of(1000), response.getSubtotalHT());
+        assertEquals(Money.of(100), response.getDiscountAmount()); // 10% of 1000
+        assertEquals(Money.of(900), response.getAmountAfterDiscount());
     }
 
     @Test
@@ -197,9 +244,28 @@ class OrderServiceTest {
 
         // ASSERT
         // SILVER (5%) + PROMO (5%) = 10% total
-        assertEquals(1000.0, response.getSubtotalHT());
-        assertEquals(100.0, response.getDiscountAmount()); // 10% of 1000
-        assertEquals(900.0, response.getAmountAfterDiscount());
+        assertEquals(Money.of(1000), response.getSubtotalHT());
+        assertEquals(Money.of(100), response.getDiscountAmount()); // 10% of 1000
+        assertEquals(Money.of(900), response.getAmountAfterDiscount());
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown promo code before holding stock")
+    void testCreateOrder_UnknownPromoCode_ThrowsException() {
+        // ARRANGE
+        OrderRequest request = new OrderRequest();
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(testProduct1.getId());
+        item.setQuantity(1);
+        request.setItems(List.of(item));
+        request.setPromoCode("PROMO-FAKE");
+
+        // ACT & ASSERT
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            orderService.createOrder(testClient.getId(), request);
+        });
+        assertEquals("Invalid promo code: PROMO-FAKE", exception.getMessage());
+        assertEquals(0, stockHoldService.getHeldQuantity(testProduct1.getId()));
     }
 
     @Test
@@ -249,7 +315,7 @@ class OrderServiceTest {
 
         // Set montant restant to 0 (fully paid)
         var order = orderRepository.findById(createdOrder.getId()).get();
-        order.setMontantRestant(0.0);
+        order.setMontantRestant(Money.ZERO);
         orderRepository.save(order);
 
         // ACT & ASSERT - Should fail because stock (2) < ordered (5)
@@ -281,4 +347,305 @@ class OrderServiceTest {
 
         assertTrue(exception.getMessage().contains("must be fully paid"));
     }
+
+    @Test
+    @DisplayName("Should not confirm an order whose payment is rejected while it waits for the lock")
+    void testConfirmOrder_RejectionDuringConfirm_ThrowsException() throws Exception {
+        // ARRANGE - paid in full by a cheque not yet cashed
+        OrderRequest request = new OrderRequest();
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(testProduct1.getId());
+        item.setQuantity(1);
+        request.setItems(List.of(item));
+        OrderResponse createdOrder = orderService.createOrder(testClient.getId(), request);
+
+        PaymentRequest cheque = new PaymentRequest();
+        cheque.setOrderId(createdOrder.getId());
+        cheque.setMontant(createdOrder.getTotalTTC().toDouble());
+        cheque.setTypePaiement("CHEQUE");
+        cheque.setReference("CHQ-RACE");
+        cheque.setBanque("BMCE Bank");
+        cheque.setDateEcheance(LocalDateTime.now().plusDays(30));
+        Long paymentId = paymentService.addPayment(cheque).getId();
+
+        // ACT - the cheque is rejected while the confirmation waits for the order's lock
+        CompletableFuture<OrderResponse> confirmation = orderLocks.withLock(createdOrder.getId(), () -> {
+            CompletableFuture<OrderResponse> started =
+                    CompletableFuture.supplyAsync(() -> orderService.confirmOrder(createdOrder.getId()));
+            assertThrows(TimeoutException.class, () -> started.get(200, TimeUnit.MILLISECONDS));
+            paymentService.rejeterPayment(paymentId);
+            return started;
+        });
+
+        // ASSERT
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> confirmation.get(30, TimeUnit.SECONDS));
+        assertTrue(exception.getCause().getMessage().contains("must be fully paid"));
+        assertEquals(OrderStatus.PENDING, orderRepository.findById(createdOrder.getId()).get().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should merge lines that reference the same product")
+    void testCreateOrder_DuplicateProducts_CoalescesLines() {
+        // ARRANGE
+        OrderItemRequest first = new OrderItemRequest();
+        first.setProductId(testProduct2.getId());
+        first.setQuantity(3);
+
+        OrderItemRequest second = new OrderItemRequest();
+        second.setProductId(testProduct2.getId());
+        second.setQuantity(4);
+
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(first, second));
+
+        // ACT
+        OrderResponse response = orderService.createOrder(testClient.getId(), request);
+
+        // ASSERT
+        assertEquals(1, response.getItems().size());
+        assertEquals(7, response.getItems().get(0).getQuantity());
+        assertEquals(Money.of(350), response.getSubtotalHT()); // 7 x 50
+    }
+
+    @Test
+    @DisplayName("Should check stock against the merged quantity of duplicate lines")
+    void testCreateOrder_DuplicateProductsExceedStock_ThrowsException() {
+        // ARRANGE - stock is 10, 6 + 6 = 12
+        OrderItemRequest first = new OrderItemRequest();
+        first.setProductId(testProduct1.getId());
+        first.setQuantity(6);
+
+        OrderItemRequest second = new OrderItemRequest();
+        second.setProductId(testProduct1.getId());
+        second.setQuantity(6);
+
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(first, second));
+
+        // ACT & ASSERT
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            orderService.createOrder(testClient.getId(), request);
+        });
+        assertTrue(exception.getMessage().contains("Insufficient stock"));
+    }
+
+    @Test
+    @DisplayName("Should load all order lines with one product query whatever the line count")
+    void testCreateOrder_ManyLines_SingleProductQuery() {
+        // ARRANGE
+        List<OrderItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Bulk product " + i)
+                    .priceHT(10.0)
+                    .stockQuantity(100)
+                    .build());
+            OrderItemRequest item = new OrderItemRequest();
+            item.setProductId(product.getId());
+            item.setQuantity(1);
+            items.add(item);
+        }
+
+        // ACT - latency and round trips for 1, 10 and 60 lines
+        for (int lines : new int[]{1, 10, 60}) {
+            OrderRequest request = new OrderRequest();
+            request.setItems(items.subList(0, lines));
+
+            SqlStatementCounter.reset();
+            long start = System.nanoTime();
+            OrderResponse response = orderService.createOrder(testClient.getId(), request);
+            long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+            // ASSERT
+            assertEquals(lines, response.getItems().size());
+            assertEquals(1, SqlStatementCounter.selects("products"),
+                    lines + " lines (" + elapsedMicros + " us) should resolve products in one query");
+        }
+    }
+
+    @Test
+    @DisplayName("Should not promise stock already held by a pending order")
+    void testCreateOrder_StockHeldByPendingOrder_ThrowsException() {
+        // ARRANGE - stock is 10, first order holds 6
+        OrderRequest first = new OrderRequest();
+        OrderItemRequest firstItem = new OrderItemRequest();
+        firstItem.setProductId(testProduct1.getId());
+        firstItem.setQuantity(6);
+        first.setItems(List.of(firstItem));
+        orderService.createOrder(testClient.getId(), first);
+
+        OrderRequest second = new OrderRequest();
+        OrderItemRequest secondItem = new OrderItemRequest();
+        secondItem.setProductId(testProduct1.getId());
+        secondItem.setQuantity(6);
+        second.setItems(List.of(secondItem));
+
+        // ACT & ASSERT
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            orderService.createOrder(testClient.getId(), second);
+        });
+        assertTrue(exception.getMessage().contains("Insufficient stock"));
+        assertEquals(6, stockHoldService.getHeldQuantity(testProduct1.getId()));
+    }
+
+    @Test
+    @DisplayName("Should give held stock back when the order fails after holding it")
+    void testCreateOrder_FailsAfterHold_ReleasesHold() {
+        // ARRANGE - the subtotal of 2 units overflows the centime count
+        Product priceless = productRepository.save(Product.builder()
+                .name("Priceless")
+                .priceHT(9.0e16)
+                .stockQuantity(5)
+                .build());
+        OrderRequest request = new OrderRequest();
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(priceless.getId());
+        item.setQuantity(2);
+        request.setItems(List.of(item));
+
+        // ACT
+        assertThrows(ArithmeticException.class, () -> orderService.createOrder(testClient.getId(), request));
+
+        // ASSERT
+        assertEquals(0, stockHoldService.getHeldQuantity(priceless.getId()));
+        assertEquals(0, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should release held stock when the order is canceled")
+    void testCancelOrder_ReleasesHold() {
+        // ARRANGE
+        OrderRequest request = new OrderRequest();
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(testProduct1.getId());
+        item.setQuantity(8);
+        request.setItems(List.of(item));
+        OrderResponse created = orderService.createOrder(testClient.getId(), request);
+        assertEquals(8, stockHoldService.getHeldQuantity(testProduct1.getId()));
+
+        // ACT
+        orderService.cancelOrder(created.getId());
+
+        // ASSERT - the same quantity can be ordered again
+        assertEquals(0, stockHoldService.getHeldQuantity(testProduct1.getId()));
+        OrderResponse again = orderService.createOrder(testClient.getId(), request);
+        assertEquals(OrderStatus.PENDING, again.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should read orders with a fixed number of queries whatever their count")
+    void testOrderReads_FixedQueryCount() {
+        // ARRANGE
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Product bulkProduct = productRepository.save(Product.builder()
+                .name("Paper ream")
+                .priceHT(40.0)
+                .stockQuantity(1000)
+                .build());
+
+        long[] listStatements = new long[2];
+        long[] clientStatements = new long[2];
+        int[] orderCounts = {3, 12};
+
+        for (int run = 0; run < orderCounts.length; run++) {
+            while (orderRepository.count() < orderCounts[run]) {
+                createPaidOrder(bulkProduct);
+            }
+
+            // ACT
+            statistics.clear();
+            List<OrderResponse> all = orderService.getOrders(null, 50, false).getData();
+            listStatements[run] = statistics.getPrepareStatementCount();
+
+            statistics.clear();
+            List<OrderResponse> clientOrders = orderService.getClientOrders(testClient.getId(), null, 50, false).getData();
+            clientStatements[run] = statistics.getPrepareStatementCount();
+
+            // ASSERT
+            assertEquals(orderCounts[run], all.size());
+            assertEquals(orderCounts[run], clientOrders.size());
+            assertTrue(all.stream().allMatch(o -> o.getPayments().size() == 1 && o.getItems().size() == 2));
+        }
+
+        assertEquals(listStatements[0], listStatements[1],
+                "getOrders query count grew with the number of orders");
+        assertEquals(clientStatements[0], clientStatements[1],
+                "getClientOrders query count grew with the number of orders");
+
+        // Detail view: order graph + payments
+        Long orderId = orderRepository.findAll().get(0).getId();
+        SqlStatementCounter.reset();
+        orderService.getOrder(orderId);
+        assertEquals(2, SqlStatementCounter.total());
+    }
+
+    @Test
+    @DisplayName("Should walk all orders newest first with cursor pages")
+    void testGetOrders_CursorPages_NoGapsOrDuplicates() {
+        // ARRANGE
+        Product bulkProduct = productRepository.save(Product.builder()
+                .name("Toner")
+                .priceHT(30.0)
+                .stockQuantity(1000)
+                .build());
+        for (int i = 0; i < 12; i++) {
+            createPaidOrder(bulkProduct);
+        }
+
+        // ACT - pages of 5: 5 + 5 + 2
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PagedResponse<OrderResponse> page = orderService.getOrders(cursor, 5, pages == 0);
+            if (pages == 0) {
+                assertEquals(12L, page.getCursor().getTotalItems());
+            } else {
+                assertNull(page.getCursor().getTotalItems());
+            }
+            page.getData().forEach(order -> seen.add(order.getId()));
+            cursor = page.getCursor().getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // ASSERT
+        assertEquals(3, pages);
+        assertEquals(12, seen.size());
+        assertEquals(12, seen.stream().distinct().count());
+        List<Long> newestFirst = orderRepository.findAll().stream()
+                .sorted(Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+        assertEquals(newestFirst, seen);
+    }
+
+    @Test
+    @DisplayName("Should reject a tampered cursor")
+    void testGetOrders_InvalidCursor_ThrowsException() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            orderService.getOrders("not-a-cursor", 5, false);
+        });
+        assertTrue(exception.getMessage().contains("Invalid pagination cursor"));
+    }
+
+    private void createPaidOrder(Product bulkProduct) {
+        OrderItemRequest item1 = new OrderItemRequest();
+        item1.setProductId(bulkProduct.getId());
+        item1.setQuantity(1);
+        OrderItemRequest item2 = new OrderItemRequest();
+        item2.setProductId(testProduct2.getId());
+        item2.setQuantity(1);
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(item1, item2));
+
+        OrderResponse created = orderService.createOrder(testClient.getId(), request);
+        paymentRepository.save(Payment.builder()
+                .order(orderRepository.getReferenceById(created.getId()))
+                .numeroPaiement(1)
+                .montant(created.getTotalTTC())
+                .typePaiement("ESPECES")
+                .datePaiement(LocalDateTime.now())
+                .build());
+    }
 }
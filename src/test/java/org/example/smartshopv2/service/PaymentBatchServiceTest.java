@@ -0,0 +1,253 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.BulkPaymentResult;
+import org.example.smartshopv2.entity.BatchJobCheckpoint;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.Payment;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.enums.PaymentStatus;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.BatchJobCheckpointRepository;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.PaymentLedgerRepository;
+import org.example.smartshopv2.repository.PaymentRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Integration tests for PaymentBatchService
+ *
+ * 2500 cheques, 2000 of them due: the job needs two full chunks of 1000.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("PaymentBatchService Integration Tests")
+class PaymentBatchServiceTest {
+
+    private static final int DUE = 2000;
+    private static final int NOT_DUE = 500;
+
+    @Autowired
+    private PaymentBatchService paymentBatchService;
+
+    @Autowired
+    private BatchJobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PaymentLedgerService paymentLedgerService;
+
+    @Autowired
+    private PaymentLedgerRepository ledgerRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderLocks orderLocks;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private Order order;
+    private List<Payment> duePayments;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("batchclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+
+        Client client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Batch Corp")
+                .loyaltyLevel(LoyaltyLevel.BASIC)
+                .build());
+
+        // Every cheque is 10 DH and already deducted from the balance
+        order = orderRepository.save(Order.builder()
+                .client(client)
+                .subtotalHT(Money.of(25000))
+                .amountAfterDiscount(Money.of(25000))
+                .tva(Money.of(5000))
+                .totalTTC(Money.of(30000))
+                .montantRestant(Money.of(30000 - (DUE + NOT_DUE) * 10))
+                .status(OrderStatus.PENDING)
+                .build());
+
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < DUE + NOT_DUE; i++) {
+            payments.add(Payment.builder()
+                    .order(order)
+                    .numeroPaiement(i + 1)
+                    .montant(Money.of(10))
+                    .typePaiement("CHEQUE")
+                    .datePaiement(now.minusDays(30))
+                    .dateEcheance(i < DUE ? now.minusDays(1) : now.plusDays(10))
+                    .build());
+        }
+        payments = paymentRepository.saveAll(payments);
+        payments.sort(Comparator.comparing(Payment::getId));
+        duePayments = payments.stream().filter(p -> p.getDateEcheance().isBefore(now)).toList();
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkpointRepository.deleteAll();
+        ledgerRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        orderRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should encaisser only due payments, chunk by chunk")
+    void testEncaisserDuePayments_OnlyDue() {
+        // ACT
+        BulkPaymentResult result = paymentBatchService.encaisserDuePayments(now);
+
+        // ASSERT
+        assertEquals(DUE, result.getUpdated());
+        assertEquals(2, result.getChunks());
+        assertEquals(DUE, countByStatus(PaymentStatus.ENCAISSE));
+        assertEquals(NOT_DUE, countByStatus(PaymentStatus.EN_ATTENTE));
+
+        BatchJobCheckpoint checkpoint = checkpointRepository.findById(PaymentBatchService.DUE_PAYMENTS_JOB).get();
+        assertEquals(0L, checkpoint.getLastProcessedId()); // run complete
+        assertNull(checkpoint.getRunStartedAt());
+        assertNotNull(checkpoint.getLastCompletedAt());
+    }
+
+    @Test
+    @DisplayName("Should resume an interrupted run from its checkpoint")
+    void testEncaisserDuePayments_ResumesFromCheckpoint() {
+        // ARRANGE - a run that stopped after the first chunk (the chunk was rolled back by hand)
+        checkpointRepository.save(BatchJobCheckpoint.builder()
+                .jobName(PaymentBatchService.DUE_PAYMENTS_JOB)
+                .lastProcessedId(duePayments.get(999).getId())
+                .processedCount(1000L)
+                .runStartedAt(now.minusMinutes(5))
+                .build());
+
+        // ACT
+        BulkPaymentResult result = paymentBatchService.encaisserDuePayments(now);
+
+        // ASSERT - only the second half is processed
+        assertEquals(1000, result.getUpdated());
+        assertEquals(PaymentStatus.EN_ATTENTE, paymentRepository.findById(duePayments.get(0).getId()).get().getStatus());
+        assertEquals(PaymentStatus.ENCAISSE, paymentRepository.findById(duePayments.get(1000).getId()).get().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should refuse a second due payments run while one is in progress")
+    void testEncaisserDuePayments_AlreadyRunning_Throws() throws Exception {
+        // ARRANGE - the first chunk of the run waits before writing its ledger entries
+        CountDownLatch inRun = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        PaymentLedgerService waiting = spy(paymentLedgerService);
+        doAnswer(invocation -> {
+            inRun.countDown();
+            resume.await(30, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(waiting).record(anyList());
+        PaymentBatchService service = new PaymentBatchService(jdbcTemplate, transactionTemplate,
+                checkpointRepository, orderLocks, waiting, 1000);
+        CompletableFuture<BulkPaymentResult> run =
+                CompletableFuture.supplyAsync(() -> service.encaisserDuePayments(now));
+        assertTrue(inRun.await(30, TimeUnit.SECONDS));
+
+        // ACT
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> service.encaisserDuePayments(now));
+        resume.countDown();
+
+        // ASSERT - the first run is not disturbed, and the next one may start
+        assertEquals("Due payments job already running", exception.getMessage());
+        assertEquals(DUE, run.get(60, TimeUnit.SECONDS).getUpdated());
+        assertEquals(0, service.encaisserDuePayments(now).getUpdated());
+    }
+
+    @Test
+    @DisplayName("Should encaisser a list of IDs and skip unknown or settled ones")
+    void testEncaisserPayments_SkipsNonPending() {
+        // ARRANGE
+        Payment rejected = duePayments.get(0);
+        rejected.setStatus(PaymentStatus.REJETE);
+        paymentRepository.save(rejected);
+
+        List<Long> ids = new ArrayList<>(duePayments.stream().map(Payment::getId).toList());
+        ids.add(-1L);
+        ids.add(duePayments.get(1).getId()); // duplicate
+
+        // ACT
+        BulkPaymentResult result = paymentBatchService.encaisserPayments(ids);
+
+        // ASSERT
+        assertEquals(DUE + 1, result.getRequested());
+        assertEquals(DUE - 1, result.getUpdated());
+        assertEquals(2, result.getSkipped());
+        assertEquals(3, result.getChunks());
+        assertEquals(PaymentStatus.REJETE, paymentRepository.findById(rejected.getId()).get().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should reject a list of IDs and restore the order balance")
+    void testRejeterPayments_RestoresBalance() {
+        // ARRANGE
+        Money before = paymentLedgerService.balance(order.getId()).montantRestant();
+        List<Long> ids = duePayments.stream().map(Payment::getId).limit(1500).toList();
+
+        // ACT
+        BulkPaymentResult result = paymentBatchService.rejeterPayments(ids);
+        BulkPaymentResult again = paymentBatchService.rejeterPayments(ids);
+
+        // ASSERT
+        assertEquals(1500, result.getUpdated());
+        assertEquals(0, again.getUpdated()); // already rejected, balance not restored twice
+        assertEquals(before.plus(Money.of(15000)), paymentLedgerService.balance(order.getId()).montantRestant());
+        assertEquals(1500, countByStatus(PaymentStatus.REJETE));
+    }
+
+    private long countByStatus(PaymentStatus status) {
+        return paymentRepository.findAll().stream().filter(p -> p.getStatus() == status).count();
+    }
+}
@@ -5,15 +5,20 @@ import org.example.smartshopv2.dto.PaymentResponse;
 import org.example.smartshopv2.entity.Client;
 import org.example.smartshopv2.entity.Order;
 import org.example.smartshopv2.entity.Payment;
+import org.example.smartshopv2.entity.PaymentLedgerEntry;
 import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.LedgerEntryType;
 import org.example.smartshopv2.enums.LoyaltyLevel;
 import org.example.smartshopv2.enums.OrderStatus;
 import org.example.smartshopv2.enums.PaymentStatus;
 import org.example.smartshopv2.enums.Role;
 import org.example.smartshopv2.repository.ClientRepository;
 import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.PaymentLedgerRepository;
 import org.example.smartshopv2.repository.PaymentRepository;
 import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.support.SqlStatementCounter;
+import org.example.smartshopv2.util.Money;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,6 +27,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,7 +48,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * - Multi-payment support
  * - Cash limit enforcement (20,000 DH)
  * - Payment status transitions
- * - Order montantRestant updates
+ * - Order montantRestant updates (through the payment ledger)
  */
 @SpringBootTest
 @org.springframework.test.context.ActiveProfiles("test")
@@ -54,6 +70,12 @@ class PaymentServiceTest {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentLedgerService paymentLedgerService;
+
+    @Autowired
+    private PaymentLedgerRepository ledgerRepository;
+
     private Order testOrder;
 
     @BeforeEach
@@ -76,12 +98,12 @@ class PaymentServiceTest {
         // Create test order
         testOrder = Order.builder()
                 .client(client)
-                .subtotalHT(25000.0)
-                .discountAmount(0.0)
-                .amountAfterDiscount(25000.0)
-                .tva(5000.0)
-                .totalTTC(30000.0)
-                .montantRestant(30000.0)
+                .subtotalHT(Money.of(25000))
+                .discountAmount(Money.ZERO)
+                .amountAfterDiscount(Money.of(25000))
+                .tva(Money.of(5000))
+                .totalTTC(Money.of(30000))
+                .montantRestant(Money.of(30000))
                 .status(OrderStatus.PENDING)
                 .build();
         testOrder = orderRepository.save(testOrder);
@@ -89,6 +111,7 @@ class PaymentServiceTest {
 
     @AfterEach
     void tearDown() {
+        ledgerRepository.deleteAll();
         paymentRepository.deleteAll();
         orderRepository.deleteAll();
         clientRepository.deleteAll();
@@ -111,14 +134,13 @@ class PaymentServiceTest {
 
         // ASSERT
         assertNotNull(response);
-        assertEquals(5000.0, response.getMontant());
+        assertEquals(Money.of(5000), response.getMontant());
         assertEquals("ESPECES", response.getTypePaiement());
         assertEquals(PaymentStatus.ENCAISSE, response.getStatus());
         assertNotNull(response.getDateEncaissement());
 
         // Verify order montantRestant updated
-        Order updatedOrder = orderRepository.findById(testOrder.getId()).get();
-        assertEquals(25000.0, updatedOrder.getMontantRestant());
+        assertEquals(Money.of(25000), montantRestant());
     }
 
     @Test
@@ -143,8 +165,7 @@ class PaymentServiceTest {
         assertNull(response.getDateEncaissement());
 
         // Verify order montantRestant still updated
-        Order updatedOrder = orderRepository.findById(testOrder.getId()).get();
-        assertEquals(18000.0, updatedOrder.getMontantRestant());
+        assertEquals(Money.of(18000), montantRestant());
     }
 
     @Test
@@ -176,7 +197,7 @@ class PaymentServiceTest {
         Payment payment = Payment.builder()
                 .order(testOrder)
                 .numeroPaiement(1)
-                .montant(12000.0)
+                .montant(Money.of(12000))
                 .typePaiement("CHEQUE")
                 .reference("CHQ-123")
                 .datePaiement(LocalDateTime.now())
@@ -207,8 +228,7 @@ class PaymentServiceTest {
         PaymentResponse addedPayment = paymentService.addPayment(request);
 
         // Verify montantRestant was reduced
-        Order orderAfterPayment = orderRepository.findById(testOrder.getId()).get();
-        assertEquals(25000.0, orderAfterPayment.getMontantRestant());
+        assertEquals(Money.of(25000), montantRestant());
 
         // ACT - Reject the payment
         PaymentResponse rejectedPayment = paymentService.rejeterPayment(addedPayment.getId());
@@ -217,8 +237,7 @@ class PaymentServiceTest {
         assertEquals(PaymentStatus.REJETE, rejectedPayment.getStatus());
 
         // Verify montantRestant restored
-        Order orderAfterReject = orderRepository.findById(testOrder.getId()).get();
-        assertEquals(30000.0, orderAfterReject.getMontantRestant());
+        assertEquals(Money.of(30000), montantRestant());
     }
 
     @Test
@@ -255,7 +274,188 @@ class PaymentServiceTest {
         assertEquals(3, payment3.getNumeroPaiement());
 
         // Verify order fully paid
-        Order finalOrder = orderRepository.findById(testOrder.getId()).get();
-        assertEquals(0.0, finalOrder.getMontantRestant());
+        assertEquals(Money.ZERO, montantRestant());
+    }
+
+    @Test
+    @DisplayName("Should leave nothing to pay after split payments with centimes")
+    void testAddPayment_SplitPayments_SettleExactly() {
+        // ARRANGE
+        testOrder.setMontantRestant(Money.of(100));
+        orderRepository.save(testOrder);
+
+        // ACT
+        for (double montant : new double[]{33.33, 33.33, 33.34}) {
+            PaymentRequest request = new PaymentRequest();
+            request.setOrderId(testOrder.getId());
+            request.setMontant(montant);
+            request.setTypePaiement("ESPECES");
+            paymentService.addPayment(request);
+        }
+
+        // ASSERT
+        assertEquals(Money.ZERO, montantRestant());
+    }
+
+    @Test
+    @DisplayName("Should number payments without reading the payments table")
+    void testAddPayment_DoesNotLoadPayments() {
+        // ARRANGE
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(testOrder.getId());
+        request.setMontant(1000.0);
+        request.setTypePaiement("VIREMENT");
+        paymentService.addPayment(request);
+
+        // ACT
+        SqlStatementCounter.reset();
+        PaymentResponse second = paymentService.addPayment(request);
+
+        // ASSERT
+        assertEquals(2, second.getNumeroPaiement());
+        assertEquals(0, SqlStatementCounter.selects("payments"));
+    }
+
+    @Test
+    @DisplayName("Should number and bound 32 parallel payments on one order")
+    void testAddPayment_ParallelPayments_NoDuplicatesNoOverpayment() throws Exception {
+        // ARRANGE - 32 x 1000 DH against 30000 DH: exactly 30 fit
+        int payers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(payers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PaymentResponse>> results = new ArrayList<>();
+
+        for (int i = 0; i < payers; i++) {
+            results.add(executor.submit(() -> {
+                PaymentRequest request = new PaymentRequest();
+                request.setOrderId(testOrder.getId());
+                request.setMontant(1000.0);
+                request.setTypePaiement("ESPECES");
+                start.await();
+                try {
+                    return paymentService.addPayment(request);
+                } catch (RuntimeException e) {
+                    assertEquals("Payment amount exceeds remaining balance", e.getMessage());
+                    return null;
+                }
+            }));
+        }
+
+        // ACT
+        start.countDown();
+        Set<Integer> numbers = new TreeSet<>();
+        for (Future<PaymentResponse> result : results) {
+            PaymentResponse payment = result.get(60, TimeUnit.SECONDS);
+            if (payment != null) {
+                numbers.add(payment.getNumeroPaiement());
+            }
+        }
+        executor.shutdown();
+
+        // ASSERT
+        assertEquals(30, numbers.size());
+        assertEquals(IntStream.rangeClosed(1, 30).boxed().collect(Collectors.toSet()), numbers);
+        assertEquals(Money.ZERO, montantRestant());
+        assertEquals(30, paymentLedgerService.balance(testOrder.getId()).paymentCount());
+        assertEquals(30, paymentRepository.countByOrderId(testOrder.getId()));
+    }
+
+    @Test
+    @DisplayName("Should settle a payment once when it is cashed and rejected in parallel")
+    void testEncaisserRejeter_Parallel_SettledOnce() throws Exception {
+        // ARRANGE - 8 threads cash the cheque, 8 reject it
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(testOrder.getId());
+        request.setMontant(5000.0);
+        request.setTypePaiement("CHEQUE");
+        Long paymentId = paymentService.addPayment(request).getId();
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PaymentResponse>> results = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+            boolean cash = i % 2 == 0;
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return cash ? paymentService.encaisserPayment(paymentId) : paymentService.rejeterPayment(paymentId);
+                } catch (RuntimeException e) {
+                    return null;
+                }
+            }));
+        }
+
+        // ACT
+        start.countDown();
+        List<PaymentResponse> settled = new ArrayList<>();
+        for (Future<PaymentResponse> result : results) {
+            PaymentResponse payment = result.get(60, TimeUnit.SECONDS);
+            if (payment != null) {
+                settled.add(payment);
+            }
+        }
+        executor.shutdown();
+
+        // ASSERT
+        assertEquals(1, settled.size());
+        assertEquals(settled.get(0).getStatus(), paymentRepository.findById(paymentId).get().getStatus());
+        assertEquals(2, ledgerRepository.findByOrderIdOrderById(testOrder.getId()).size());
+        Money expected = settled.get(0).getStatus() == PaymentStatus.REJETE ? Money.of(30000) : Money.of(25000);
+        assertEquals(expected, montantRestant());
+    }
+
+    @Test
+    @DisplayName("Should write payments to the ledger without updating the order row")
+    void testAddPayment_WritesLedgerNotOrder() {
+        // ARRANGE
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(testOrder.getId());
+        request.setMontant(4000.0);
+        request.setTypePaiement("ESPECES");
+
+        // ACT
+        SqlStatementCounter.reset();
+        PaymentResponse payment = paymentService.addPayment(request);
+
+        // ASSERT
+        assertEquals(0, SqlStatementCounter.count("update", "orders"));
+        List<PaymentLedgerEntry> entries = ledgerRepository.findByOrderIdOrderById(testOrder.getId());
+        assertEquals(List.of(LedgerEntryType.PAIEMENT, LedgerEntryType.ENCAISSEMENT),
+                entries.stream().map(PaymentLedgerEntry::getType).toList());
+        assertEquals(payment.getId(), entries.get(0).getPaymentId());
+        assertEquals(Money.of(-4000), entries.get(0).getDelta());
+        assertEquals(Money.of(30000), orderRepository.findById(testOrder.getId()).get().getMontantRestant());
+        assertEquals(Money.of(26000), montantRestant());
+    }
+
+    @Test
+    @DisplayName("Should fold ledger entries into the order snapshot without changing the balance")
+    void testSnapshot_FoldsLedgerIntoOrder() {
+        // ARRANGE - two payments, one of them rejected
+        PaymentRequest request = new PaymentRequest();
+        request.setOrderId(testOrder.getId());
+        request.setMontant(1000.0);
+        request.setTypePaiement("CHEQUE");
+        paymentService.addPayment(request);
+        PaymentResponse rejected = paymentService.addPayment(request);
+        paymentService.rejeterPayment(rejected.getId());
+
+        // ACT
+        int folded = paymentLedgerService.snapshot();
+
+        // ASSERT
+        assertEquals(1, folded);
+        Order snapshot = orderRepository.findById(testOrder.getId()).get();
+        assertEquals(Money.of(29000), snapshot.getMontantRestant());
+        assertEquals(2, snapshot.getPaymentCount());
+        assertEquals(0, paymentLedgerService.snapshot()); // nothing left to fold
+        assertEquals(Money.of(29000),
+                paymentLedgerService.balances(List.of(testOrder.getId())).get(testOrder.getId()).montantRestant());
+        assertEquals(3, paymentService.addPayment(request).getNumeroPaiement());
+    }
+
+    private Money montantRestant() {
+        return paymentLedgerService.balance(testOrder.getId()).montantRestant();
     }
 }
@@ -0,0 +1,241 @@
+package org.example.smartshopv2.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.example.smartshopv2.dto.ProductImportResult;
+import org.example.smartshopv2.dto.WarehouseRequest;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.StockLevelRepository;
+import org.example.smartshopv2.repository.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ProductImportService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("ProductImportService Integration Tests")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+
+    private Product oil;
+
+    @BeforeEach
+    void setUp() {
+        // Products left by other test classes
+        productRepository.deleteAll();
+        oil = productRepository.save(Product.builder()
+                .sku("OIL-1").name("Huile d'olive").priceHT(80.0).stockQuantity(10).build());
+        catalogCache.reload();
+        productSearchService.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        catalogCache.reload();
+        productSearchService.reload();
+    }
+
+    @Test
+    @DisplayName("Should create new SKUs, update existing ones and publish them to the catalog")
+    void testImportJson_Upserts() throws IOException {
+        // ARRANGE
+        long versionBefore = catalogVersionService.current();
+        String json = """
+                [
+                  {"sku": "OIL-1", "name": "Huile d'olive extra", "priceHT": 85.0, "stockQuantity": 12},
+                  {"sku": "TEA-1", "name": "Thé vert", "description": "Gunpowder", "priceHT": 30.0, "stockQuantity": 40},
+                  {"sku": "TEA-2", "name": "Thé noir", "priceHT": 25.0, "stockQuantity": 5}
+                ]
+                """;
+
+        // ACT
+        ProductImportResult result = productImportService.importJson(stream(json));
+
+        // ASSERT
+        assertEquals(3, result.getRows());
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getFailed());
+
+        Product updated = productRepository.findById(oil.getId()).orElseThrow();
+        assertEquals("Huile d'olive extra", updated.getName());
+        assertEquals(12, updated.getStockQuantity());
+        assertEquals(3, productRepository.count());
+        assertEquals(versionBefore + 3, catalogVersionService.current());
+
+        Product tea = productRepository.findAll().stream()
+                .filter(product -> "TEA-1".equals(product.getSku())).findFirst().orElseThrow();
+        assertEquals("Thé vert", catalogCache.getSnapshot().get(tea.getId()).name());
+        assertEquals(40, catalogCache.getStock(tea.getId()));
+        assertEquals(12, catalogCache.getStock(oil.getId()));
+        assertEquals(2, productSearchService.search("the", 10).total());
+
+        // New products get IDs the entity generator does not hand out again
+        Product created = productRepository.save(Product.builder().name("Sel").priceHT(5.0).stockQuantity(1).build());
+        assertFalse(List.of(oil.getId(), tea.getId()).contains(created.getId()));
+    }
+
+    @Test
+    @DisplayName("Should report invalid and duplicate rows and import the others")
+    void testImportCsv_ReportsRowErrors() throws IOException {
+        // ARRANGE
+        String csv = """
+                sku,name,priceHT,stockQuantity
+                TEA-1,Thé vert,30,40
+                TEA-2,,25,5
+                TEA-3,Thé noir,abc,5
+                TEA-1,"Thé vert, bis",31,40
+                OIL-1,Huile d'olive,80,-1
+                MINT-1,"Menthe ""fraîche""\",12.5,7
+                """;
+
+        // ACT
+        ProductImportResult result = productImportService.importCsv(stream(csv));
+
+        // ASSERT
+        assertEquals(6, result.getRows());
+        assertEquals(2, result.getCreated());
+        assertEquals(0, result.getUpdated());
+        assertEquals(4, result.getFailed());
+        assertEquals(List.of(3L, 4L, 5L, 6L),
+                result.getErrors().stream().map(ProductImportResult.RowError::getRow).toList());
+        assertEquals("Product name is required", result.getErrors().get(0).getError());
+        assertEquals("Invalid priceHT", result.getErrors().get(1).getError());
+        assertEquals("Duplicate SKU, already in row 2", result.getErrors().get(2).getError());
+        assertEquals("Stock quantity must be positive", result.getErrors().get(3).getError());
+
+        assertEquals(10, productRepository.findById(oil.getId()).orElseThrow().getStockQuantity());
+        assertTrue(productRepository.findAll().stream()
+                .anyMatch(product -> "Menthe \"fraîche\"".equals(product.getName())));
+    }
+
+    @Test
+    @DisplayName("Should restore deleted products and keep pending stock adjustments, across chunks")
+    void testImport_SmallChunks() throws IOException {
+        // ARRANGE
+        Product salt = productRepository.save(Product.builder()
+                .sku("SALT-1").name("Sel").priceHT(5.0).stockQuantity(3).deleted(true).build());
+        catalogCache.applyPendingStock(Map.of(oil.getId(), 2));
+        ProductImportService smallChunks = new ProductImportService(jdbcTemplate, transactionTemplate,
+                catalogVersionService, catalogCache, productSearchService, objectMapper, validator, 2);
+        String csv = """
+                sku,stockQuantity,name,priceHT
+                OIL-1,20,Huile d'olive,80
+                SALT-1,6,Sel,5
+                SUGAR-1,9,Sucre,7
+                """;
+
+        // ACT
+        ProductImportResult result = smallChunks.importCsv(stream(csv));
+
+        // ASSERT
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getUpdated());
+        assertFalse(productRepository.findById(salt.getId()).orElseThrow().getDeleted());
+        assertEquals(6, catalogCache.getStock(salt.getId()));
+        // Set to 20: 18 in the table until the pending +2 is written
+        assertEquals(20, catalogCache.getStock(oil.getId()));
+        assertEquals(18, productRepository.findById(oil.getId()).orElseThrow().getStockQuantity());
+        assertEquals(3, catalogCache.getSnapshot().size());
+        catalogCache.completePendingStock(catalogCache.drainPendingStock());
+    }
+
+    @Test
+    @DisplayName("Should refuse stock changes for products stocked in warehouses")
+    void testImport_WarehouseStocked() throws IOException {
+        // ARRANGE - 4 of the 10 in a warehouse
+        WarehouseRequest depot = new WarehouseRequest();
+        depot.setCode("cas-1");
+        depot.setName("Depot cas-1");
+        depot.setLatitude(33.57);
+        depot.setLongitude(-7.59);
+        Long casablanca = warehouseService.createWarehouse(depot).getId();
+        warehouseService.setStockLevels(casablanca, Map.of(oil.getId(), 4));
+        String csv = """
+                sku,stockQuantity,name,priceHT
+                OIL-1,20,Huile d'olive extra,85
+                """;
+        String sameStock = """
+                sku,stockQuantity,name,priceHT
+                OIL-1,14,Huile d'olive vierge,90
+                """;
+
+        try {
+            // ACT
+            ProductImportResult refused = productImportService.importCsv(stream(csv));
+            ProductImportResult updated = productImportService.importCsv(stream(sameStock));
+
+            // ASSERT
+            assertEquals(0, refused.getUpdated());
+            assertEquals(1, refused.getFailed());
+            assertEquals(new ProductImportResult.RowError(2, "OIL-1",
+                    "Stock is held in warehouses, set it through their stock levels"), refused.getErrors().get(0));
+            assertEquals(1, updated.getUpdated());
+            Product product = productRepository.findById(oil.getId()).orElseThrow();
+            assertEquals("Huile d'olive vierge", product.getName());
+            assertEquals(14, product.getStockQuantity());
+            assertEquals(14, catalogCache.getStock(oil.getId()));
+        } finally {
+            stockLevelRepository.deleteAll();
+            warehouseRepository.deleteAll();
+            warehouseService.reloadLocations();
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ProductRequest;
+import org.example.smartshopv2.dto.ProductResponse;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ProductSearchService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("ProductSearchService Integration Tests")
+class ProductSearchServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Products left by other test classes
+        productRepository.deleteAll();
+        catalogCache.reload();
+        productSearchService.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        catalogCache.reload();
+        productSearchService.reload();
+    }
+
+    @Test
+    @DisplayName("Should follow created, updated and deleted products")
+    void testSearch_FollowsProductChanges() {
+        // ARRANGE
+        ProductResponse tea = productService.createProduct(request("Thé à la menthe", "Feuilles de Chine", 30.0));
+        ProductResponse oil = productService.createProduct(request("Huile d'argan", "Pressée à froid", 120.0));
+
+        // ACT + ASSERT
+        assertEquals(List.of(tea.getId()), ids(productService.searchProducts("menth", PageRequest.of(0, 20))));
+        assertEquals(List.of(oil.getId()), ids(productService.searchProducts("pressee", PageRequest.of(0, 20))));
+
+        productService.updateProduct(tea.getId(), request("Thé vert", "Gunpowder", 30.0));
+        assertEquals(0, productService.searchProducts("menthe", PageRequest.of(0, 20)).getTotalElements());
+        Page<ProductResponse> green = productService.searchProducts("vert", PageRequest.of(0, 20));
+        assertEquals("Thé vert", green.getContent().get(0).getName());
+
+        productService.deleteProduct(oil.getId());
+        assertEquals(0, productService.searchProducts("argan", PageRequest.of(0, 20)).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should keep the latest product version when commits index out of order")
+    void testIndex_OutOfOrder() {
+        // ARRANGE - the product is deleted, then an older update is handed over
+        ProductResponse tea = productService.createProduct(request("Thé à la menthe", "Feuilles de Chine", 30.0));
+        long version = productRepository.findById(tea.getId()).get().getCatalogVersion();
+        Product older = Product.builder().id(tea.getId()).name("Thé vert").description("Gunpowder").priceHT(30.0)
+                .catalogVersion(version + 1).build();
+        Product deleted = Product.builder().id(tea.getId()).name("Thé vert").priceHT(30.0).deleted(true)
+                .catalogVersion(version + 2).build();
+
+        // ACT
+        transactionTemplate.executeWithoutResult(status -> productSearchService.indexAfterCommit(deleted));
+        transactionTemplate.executeWithoutResult(status -> productSearchService.indexAfterCommit(older));
+
+        // ASSERT
+        assertEquals(0, productSearchService.search("vert", 20).total());
+        assertEquals(0, productSearchService.search("menthe", 20).total());
+    }
+
+    @Test
+    @DisplayName("Should page through ranked results")
+    void testSearch_Paginated() {
+        // ARRANGE - "savon" in the name of one product, in the description of the others
+        for (int i = 0; i < 5; i++) {
+            productService.createProduct(request("Gant " + i, "Pour savon noir", 15.0));
+        }
+        ProductResponse soap = productService.createProduct(request("Savon noir", null, 25.0));
+
+        // ACT
+        Page<ProductResponse> first = productService.searchProducts("savon", PageRequest.of(0, 4));
+        Page<ProductResponse> second = productService.searchProducts("savon", PageRequest.of(1, 4));
+
+        // ASSERT
+        assertEquals(6, first.getTotalElements());
+        assertEquals(2, first.getTotalPages());
+        assertEquals(soap.getId(), first.getContent().get(0).getId());
+        assertEquals(4, first.getContent().size());
+        assertEquals(2, second.getContent().size());
+    }
+
+    private static ProductRequest request(String name, String description, double price) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription(description);
+        request.setPriceHT(price);
+        request.setStockQuantity(10);
+        return request;
+    }
+
+    private static List<Long> ids(Page<ProductResponse> page) {
+        return page.getContent().stream().map(ProductResponse::getId).toList();
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.CatalogChangesResponse;
+import org.example.smartshopv2.dto.ProductChangeResponse;
+import org.example.smartshopv2.dto.ProductRequest;
+import org.example.smartshopv2.dto.ProductResponse;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ProductService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("ProductService Integration Tests")
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Products left by other test classes
+        productRepository.deleteAll();
+        catalogCache.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        catalogCache.reload();
+    }
+
+    @Test
+    @DisplayName("Should return created, updated and deleted products after a version, oldest change first")
+    void testGetChangesSince_FollowsWrites() {
+        // ARRANGE
+        ProductResponse cable = productService.createProduct(request("Cable", 20.0));
+        ProductResponse screen = productService.createProduct(request("Screen", 1500.0));
+        long start = productService.getChangesSince(-1, 100).getVersion();
+
+        // ACT
+        productService.updateProduct(cable.getId(), request("Cable HDMI", 25.0));
+        ProductResponse mouse = productService.createProduct(request("Mouse", 80.0));
+        productService.deleteProduct(screen.getId());
+        catalogCache.applyPendingStock(Map.of(cable.getId(), 7));
+        CatalogChangesResponse changes = productService.getChangesSince(start, 100);
+        catalogCache.completePendingStock(catalogCache.drainPendingStock());
+
+        // ASSERT
+        assertFalse(changes.isHasMore());
+        assertEquals(List.of(cable.getId(), mouse.getId(), screen.getId()), ids(changes));
+        assertEquals("Cable HDMI", changes.getChanges().get(0).getName());
+        // Stock as the list shows it, with the adjustment not yet written
+        assertEquals(107, changes.getChanges().get(0).getStockQuantity());
+        assertTrue(changes.getChanges().get(2).getDeleted());
+        assertNull(changes.getChanges().get(2).getName());
+        assertEquals(start + 3, changes.getVersion());
+        assertEquals(0, productService.getChangesSince(changes.getVersion(), 100).getChanges().size());
+    }
+
+    @Test
+    @DisplayName("Should page through changes without splitting a version")
+    void testGetChangesSince_Paginated() {
+        // ARRANGE - two rows written without a version, then three through the service
+        productRepository.saveAll(List.of(product("Seed 1"), product("Seed 2")));
+        for (int i = 0; i < 3; i++) {
+            productService.createProduct(request("Product " + i, 10.0));
+        }
+
+        // ACT
+        CatalogChangesResponse first = productService.getChangesSince(-1, 1);
+        CatalogChangesResponse second = productService.getChangesSince(first.getVersion(), 2);
+        CatalogChangesResponse third = productService.getChangesSince(second.getVersion(), 2);
+
+        // ASSERT
+        assertEquals(2, first.getChanges().size());
+        assertEquals(0, first.getVersion());
+        assertTrue(first.isHasMore());
+        assertEquals(2, second.getChanges().size());
+        assertTrue(second.isHasMore());
+        assertEquals(1, third.getChanges().size());
+        assertFalse(third.isHasMore());
+    }
+
+    @Test
+    @DisplayName("Should change the catalog entity tag on product writes, stock moves and holds")
+    void testCatalogETag_Changes() {
+        // ARRANGE
+        ProductResponse cable = productService.createProduct(request("Cable", 20.0));
+        String created = productService.getCatalogETag();
+
+        // ACT + ASSERT
+        assertEquals(created, productService.getCatalogETag());
+
+        transactionTemplate.executeWithoutResult(status -> stockReservationService.reserve(Map.of(cable.getId(), 5)));
+        String reserved = productService.getCatalogETag();
+        assertNotEquals(created, reserved);
+
+        productService.updateProduct(cable.getId(), request("Cable HDMI", 25.0));
+        assertNotEquals(reserved, productService.getCatalogETag());
+    }
+
+    private static ProductRequest request(String name, double price) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setPriceHT(price);
+        request.setStockQuantity(100);
+        return request;
+    }
+
+    private static Product product(String name) {
+        return Product.builder().name(name).priceHT(10.0).stockQuantity(10).build();
+    }
+
+    private static List<Long> ids(CatalogChangesResponse changes) {
+        return changes.getChanges().stream().map(ProductChangeResponse::getId).toList();
+    }
+}
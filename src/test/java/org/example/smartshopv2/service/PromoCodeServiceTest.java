@@ -0,0 +1,262 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.OrderItemRequest;
+import org.example.smartshopv2.dto.OrderRequest;
+import org.example.smartshopv2.dto.PromoCodeRequest;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.PromoCodeRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for PromoCodeService
+ *
+ * Includes concurrent order creation against a capped code.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("PromoCodeService Integration Tests")
+class PromoCodeServiceTest {
+
+    private static final int CREATORS = 64;
+    private static final long MAX_USES = 10;
+
+    @Autowired
+    private PromoCodeService promoCodeService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PromoCodeRepository promoCodeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Client client;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("promoclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+
+        client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Promo Corp")
+                .loyaltyLevel(LoyaltyLevel.BASIC)
+                .build());
+
+        product = productRepository.save(Product.builder()
+                .name("Casque")
+                .priceHT(200.0)
+                .stockQuantity(1000)
+                .build());
+
+        promoCodeService.createPromoCode(promoRequest("LIMITED", MAX_USES, null, null));
+        promoCodeService.createPromoCode(promoRequest("SUMMER", null,
+                LocalDate.of(2026, 6, 1), LocalDate.of(2026, 6, 30)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        promoCodeRepository.deleteAll();
+        promoCodeService.loadIndex();
+    }
+
+    @Test
+    @DisplayName("Should never exceed the usage cap with 64 concurrent orders")
+    void testCreateOrder_ConcurrentOrders_CapHolds() throws Exception {
+        // ARRANGE
+        ExecutorService executor = Executors.newFixedThreadPool(CREATORS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < CREATORS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrder(client.getId(), orderRequest("limited"));
+                    return true;
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().contains("usage limit"), e.getMessage());
+                    return false;
+                }
+            }));
+        }
+
+        // ACT
+        start.countDown();
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(60, TimeUnit.SECONDS)) {
+                created++;
+            }
+        }
+        executor.shutdown();
+        promoCodeService.flushUsage();
+
+        // ASSERT
+        assertEquals(MAX_USES, created);
+        assertEquals(MAX_USES, orderRepository.count());
+        assertEquals(MAX_USES, promoCodeService.getUsedCount("LIMITED"));
+        assertEquals(MAX_USES, promoCodeRepository.findByCode("LIMITED").get().getUsedCount());
+    }
+
+    @Test
+    @DisplayName("Should give the use back when order creation fails")
+    void testCreateOrder_Rollback_ReleasesUse() {
+        // ARRANGE - the code is taken first, then the unknown product fails the order
+        OrderRequest request = orderRequest("LIMITED");
+        request.getItems().get(0).setProductId(-1L);
+
+        // ACT
+        assertThrows(RuntimeException.class, () -> orderService.createOrder(client.getId(), request));
+
+        // ASSERT
+        assertEquals(0, promoCodeService.getUsedCount("LIMITED"));
+        assertEquals(0, promoCodeService.flushUsage());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown codes and codes outside their dates")
+    void testRedeem_UnknownOrExpired_Throws() {
+        assertThrows(RuntimeException.class, () -> promoCodeService.redeem("NOPE", LocalDateTime.now()));
+        assertThrows(RuntimeException.class,
+                () -> promoCodeService.redeem("SUMMER", LocalDateTime.of(2026, 7, 1, 0, 0)));
+        assertEquals(0, promoCodeService.redeem(null, LocalDateTime.now()));
+
+        // The last day still counts
+        assertEquals(5, promoCodeService.redeem("summer", LocalDateTime.of(2026, 6, 30, 23, 59)));
+    }
+
+    @Test
+    @DisplayName("Should accept every code created concurrently")
+    void testCreatePromoCode_Concurrent_AllIndexed() throws Exception {
+        // ARRANGE
+        ExecutorService executor = Executors.newFixedThreadPool(CREATORS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < CREATORS; i++) {
+            String code = "BULK" + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                return promoCodeService.createPromoCode(promoRequest(code, null, null, null));
+            }));
+        }
+
+        // ACT
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // ASSERT
+        for (int i = 0; i < CREATORS; i++) {
+            assertEquals(5, promoCodeService.redeem("BULK" + i, LocalDateTime.now()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep a code usable when its deactivation rolls back")
+    void testDeactivatePromoCode_Rollback_KeepsCodeActive() {
+        // ARRANGE
+        Long id = promoCodeRepository.findByCode("LIMITED").get().getId();
+
+        // ACT
+        transactionTemplate.executeWithoutResult(status -> {
+            promoCodeService.deactivatePromoCode(id);
+            status.setRollbackOnly();
+        });
+
+        // ASSERT
+        assertEquals(5, promoCodeService.redeem("LIMITED", LocalDateTime.now()));
+        promoCodeService.deactivatePromoCode(id);
+        assertThrows(RuntimeException.class, () -> promoCodeService.redeem("LIMITED", LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Should recount uses from the orders on reload")
+    void testLoadIndex_RecountsFromOrders() {
+        // ARRANGE - two orders, but the counter in the table is off
+        orderService.createOrder(client.getId(), orderRequest("LIMITED"));
+        orderService.createOrder(client.getId(), orderRequest("LIMITED"));
+        jdbcTemplate.update("UPDATE promo_codes SET used_count = 999 WHERE code = 'LIMITED'");
+
+        // ACT
+        promoCodeService.loadIndex();
+
+        // ASSERT
+        assertEquals(2, promoCodeService.getUsedCount("LIMITED"));
+        assertEquals(2L, promoCodeRepository.findByCode("LIMITED").get().getUsedCount());
+    }
+
+    private OrderRequest orderRequest(String promoCode) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(product.getId());
+        item.setQuantity(1);
+        OrderRequest request = new OrderRequest();
+        request.setItems(new ArrayList<>(List.of(item)));
+        request.setPromoCode(promoCode);
+        return request;
+    }
+
+    private static PromoCodeRequest promoRequest(String code, Long maxUses, LocalDate from, LocalDate until) {
+        PromoCodeRequest request = new PromoCodeRequest();
+        request.setCode(code);
+        request.setPercent(5);
+        request.setMaxUses(maxUses);
+        request.setValidFrom(from);
+        request.setValidUntil(until);
+        return request;
+    }
+}
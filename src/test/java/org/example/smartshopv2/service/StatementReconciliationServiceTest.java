@@ -0,0 +1,168 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.ReconciliationReport;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.Payment;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.LoyaltyLevel;
+import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.enums.PaymentStatus;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.PaymentLedgerRepository;
+import org.example.smartshopv2.repository.PaymentRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for StatementReconciliationService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("StatementReconciliationService Integration Tests")
+class StatementReconciliationServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PaymentBatchService paymentBatchService;
+
+    @Autowired
+    private PaymentLedgerService paymentLedgerService;
+
+    @Autowired
+    private PaymentLedgerRepository ledgerRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private Order order;
+    private Payment cheque1;
+    private Payment cheque2;
+    private Payment virement;
+    private Payment unknownBank;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("statementclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+
+        Client client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Statement Corp")
+                .loyaltyLevel(LoyaltyLevel.BASIC)
+                .build());
+
+        order = orderRepository.save(Order.builder()
+                .client(client)
+                .subtotalHT(Money.of(5000))
+                .amountAfterDiscount(Money.of(5000))
+                .tva(Money.of(1000))
+                .totalTTC(Money.of(6000))
+                .montantRestant(Money.of(1000))
+                .status(OrderStatus.PENDING)
+                .build());
+
+        cheque1 = payment(1, "CHQ-1", "Attijariwafa", Money.of(1500));
+        cheque2 = payment(2, "CHQ-2", "BMCE", Money.of(2000));
+        virement = payment(3, "VIR-3", "CIH", Money.of(500.5));
+        unknownBank = payment(4, "CHQ-4", "BMCE", Money.of(999.5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerRepository.deleteAll();
+        paymentRepository.deleteAll();
+        orderRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should match statement lines and apply encaisser/rejeter")
+    void testReconcile_MatchesAndUpdates() throws IOException {
+        // ARRANGE - a 64 byte window makes every few lines cross a boundary
+        StatementReconciliationService service = new StatementReconciliationService(
+                jdbcTemplate, paymentBatchService, DataSize.ofBytes(64), 1000);
+        Path statement = Files.writeString(tempDir.resolve("statement.csv"),
+                "Reference;Banque;Montant;Statut\r\n" +
+                "chq-1; attijariwafa ;1 500,00;encaisse\r\n" +
+                "CHQ-2;BMCE;-2000;REJETE\n" +
+                "VIR-3;CIH;500.50;ENCAISSE;2026-10-01\n" +
+                "\n" +
+                "CHQ-4;CIH;999.50;ENCAISSE\n" +
+                "CHQ-2;BMCE;2000;REJETE\n" +
+                "not a statement line\n" +
+                "CHQ-9;BMCE;12.345;ENCAISSE");
+
+        // ACT
+        ReconciliationReport report = service.reconcile(statement);
+
+        // ASSERT
+        assertEquals(7, report.getLines());
+        assertEquals(3, report.getMatched());
+        assertEquals(2, report.getUnmatched()); // wrong bank, CHQ-2 already matched
+        assertEquals(2, report.getMalformed()); // garbage, three decimals
+        assertEquals(2, report.getEncaisses());
+        assertEquals(1, report.getRejetes());
+        assertEquals(60.0, report.getMatchRate());
+        assertEquals(Files.size(statement), report.getBytes());
+
+        assertEquals(PaymentStatus.ENCAISSE, status(cheque1));
+        assertEquals(PaymentStatus.REJETE, status(cheque2));
+        assertEquals(PaymentStatus.ENCAISSE, status(virement));
+        assertEquals(PaymentStatus.EN_ATTENTE, status(unknownBank));
+        assertEquals(Money.of(3000), paymentLedgerService.balance(order.getId()).montantRestant());
+    }
+
+    private Payment payment(int numero, String reference, String banque, Money montant) {
+        return paymentRepository.save(Payment.builder()
+                .order(order)
+                .numeroPaiement(numero)
+                .montant(montant)
+                .typePaiement(reference.startsWith("VIR") ? "VIREMENT" : "CHEQUE")
+                .reference(reference)
+                .banque(banque)
+                .datePaiement(LocalDateTime.now())
+                .dateEcheance(LocalDateTime.now().plusDays(30))
+                .build());
+    }
+
+    private PaymentStatus status(Payment payment) {
+        return paymentRepository.findById(payment.getId()).get().getStatus();
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.entity.Client;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the stock allocation strategies and WarehouseAllocationService's in-memory pass
+ */
+@DisplayName("StockAllocationStrategy Unit Tests")
+class StockAllocationStrategyTest {
+
+    private static final int WAREHOUSES = 20;
+    private static final int LINES = 100;
+
+    private final List<StockAllocationStrategy.Source> sources = List.of(
+            new StockAllocationStrategy.Source(1, 4, 300.0),
+            new StockAllocationStrategy.Source(2, 10, 50.0),
+            new StockAllocationStrategy.Source(3, 6, Double.POSITIVE_INFINITY));
+
+    @Test
+    @DisplayName("Should ship from the nearest warehouses first")
+    void testNearest() {
+        // ACT
+        Map<Long, Integer> taken = new NearestWarehouseStrategy().allocate(13, sources);
+
+        // ASSERT
+        assertEquals(Map.of(2L, 10, 1L, 3), taken);
+    }
+
+    @Test
+    @DisplayName("Should ship from the fullest warehouses first")
+    void testFullest() {
+        // ACT
+        Map<Long, Integer> taken = new FullestWarehouseStrategy().allocate(13, sources);
+
+        // ASSERT
+        assertEquals(Map.of(2L, 10, 3L, 3), taken);
+    }
+
+    @Test
+    @DisplayName("Should split in proportion to stock, rounding to the largest remainders")
+    void testSplit() {
+        // ACT
+        Map<Long, Integer> taken = new SplitWarehouseStrategy().allocate(10, sources);
+
+        // ASSERT - exact shares 2, 5 and 3
+        assertEquals(Map.of(1L, 2, 2L, 5, 3L, 3), taken);
+        assertEquals(Map.of(2L, 1), new SplitWarehouseStrategy().allocate(1, sources));
+        assertEquals(Map.of(1L, 4, 2L, 10, 3L, 6), new SplitWarehouseStrategy().allocate(20, sources));
+    }
+
+    @Test
+    @DisplayName("Should allocate a 100-line order across 20 warehouses with every strategy")
+    void testAllocate_LargeOrder() {
+        // ARRANGE - warehouses spread north-south, each holding some of every product
+        Map<Long, WarehouseService.Location> locations = new HashMap<>();
+        for (long w = 1; w <= WAREHOUSES; w++) {
+            locations.put(w, new WarehouseService.Location(27.0 + w * 0.5, -7.0));
+        }
+        WarehouseService warehouseService = mock(WarehouseService.class);
+        when(warehouseService.getLocations()).thenReturn(locations);
+
+        List<WarehouseAllocationService.Level> levels = new ArrayList<>();
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        for (long p = 1; p <= LINES; p++) {
+            for (long w = 1; w <= WAREHOUSES; w++) {
+                levels.add(new WarehouseAllocationService.Level(p, w, (int) ((p * 7 + w * 13) % 11)));
+            }
+            lines.put(p, (int) (p % 40) + 1);
+        }
+        Client client = Client.builder().latitude(33.57).longitude(-7.59).build();
+
+        for (StockAllocationStrategy strategy : List.of(new NearestWarehouseStrategy(),
+                new FullestWarehouseStrategy(), new SplitWarehouseStrategy())) {
+            WarehouseAllocationService service = new WarehouseAllocationService(null, warehouseService, null,
+                    null, List.of(strategy), strategy.name());
+
+            // ACT
+            long start = System.nanoTime();
+            WarehouseAllocationService.Result result = service.allocate(client, lines, levels);
+            long micros = (System.nanoTime() - start) / 1000;
+
+            // ASSERT - every line fully allocated, no warehouse giving more than it holds
+            assertEquals(List.of(), result.missing(), strategy.name() + " (" + micros + " us)");
+            assertEquals(LINES, result.allocations().size());
+            for (WarehouseAllocationService.Level level : levels) {
+                int taken = result.allocations().get(level.productId()).getOrDefault(level.warehouseId(), 0);
+                assertTrue(taken <= level.quantity(), strategy.name() + " overdraws " + level);
+            }
+            lines.forEach((productId, quantity) -> assertEquals(quantity,
+                    result.allocations().get(productId).values().stream().mapToInt(Integer::intValue).sum()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should report lines the warehouses cannot cover and skip products without levels")
+    void testAllocate_Missing() {
+        // ARRANGE
+        WarehouseService warehouseService = mock(WarehouseService.class);
+        when(warehouseService.getLocations()).thenReturn(Map.of(1L, new WarehouseService.Location(null, null)));
+        WarehouseAllocationService service = new WarehouseAllocationService(null, warehouseService, null, null,
+                List.of(new NearestWarehouseStrategy()), "nearest");
+        List<WarehouseAllocationService.Level> levels = List.of(
+                new WarehouseAllocationService.Level(1, 1, 5),
+                new WarehouseAllocationService.Level(2, 1, 0));
+
+        // ACT
+        WarehouseAllocationService.Result result = service.allocate(null, Map.of(1L, 5, 2L, 1, 3L, 9), levels);
+
+        // ASSERT
+        assertEquals(List.of(2L), result.missing());
+        assertEquals(Map.of(1L, Map.of(1L, 5)), result.allocations());
+    }
+}
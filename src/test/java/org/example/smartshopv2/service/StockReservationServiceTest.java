@@ -0,0 +1,157 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.OrderItem;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.OrderStatus;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency tests for stock reservation during order confirmation
+ *
+ * Many admins confirming orders for the same product at once
+ * must never take more stock than there is.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("StockReservationService Concurrency Tests")
+class StockReservationServiceTest {
+
+    private static final int CONFIRMERS = 64;
+    private static final int STOCK = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+    private List<Long> orderIds;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("stockclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+
+        Client client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Stock Corp")
+                .build());
+
+        product = productRepository.save(Product.builder()
+                .name("Hot product")
+                .priceHT(100.0)
+                .stockQuantity(STOCK)
+                .build());
+
+        // Fully paid PENDING orders, one unit each
+        orderIds = new ArrayList<>();
+        for (int i = 0; i < CONFIRMERS; i++) {
+            Order order = Order.builder()
+                    .client(client)
+                    .subtotalHT(Money.of(100))
+                    .amountAfterDiscount(Money.of(100))
+                    .tva(Money.of(20))
+                    .totalTTC(Money.of(120))
+                    .montantRestant(Money.ZERO)
+                    .status(OrderStatus.PENDING)
+                    .build();
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(1)
+                    .priceHT(Money.of(100))
+                    .subtotal(Money.of(100))
+                    .build());
+            orderIds.add(orderRepository.save(order).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should never oversell with 64 concurrent confirmations")
+    void testConfirmOrder_ConcurrentConfirmers_NoOversell() throws Exception {
+        // ARRANGE
+        long succeededBefore = stockReservationService.getStats().getSucceeded();
+        ExecutorService executor = Executors.newFixedThreadPool(CONFIRMERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (Long orderId : orderIds) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.confirmOrder(orderId);
+                    return true;
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().contains("Insufficient stock"), e.getMessage());
+                    return false;
+                }
+            }));
+        }
+
+        // ACT
+        start.countDown();
+        int confirmed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(60, TimeUnit.SECONDS)) {
+                confirmed++;
+            }
+        }
+        executor.shutdown();
+
+        // ASSERT
+        assertEquals(STOCK, confirmed);
+        assertEquals(0, productRepository.findById(product.getId()).get().getStockQuantity());
+        assertEquals(STOCK, orderRepository.findAll().stream()
+                .filter(o -> o.getStatus() == OrderStatus.CONFIRMED)
+                .count());
+        assertEquals(STOCK, stockReservationService.getStats().getSucceeded() - succeededBefore);
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.smartshopv2.service;
+
+import org.example.smartshopv2.dto.OrderItemRequest;
+import org.example.smartshopv2.dto.OrderRequest;
+import org.example.smartshopv2.dto.OrderResponse;
+import org.example.smartshopv2.dto.StockAllocationResponse;
+import org.example.smartshopv2.dto.WarehouseRequest;
+import org.example.smartshopv2.entity.Client;
+import org.example.smartshopv2.entity.Order;
+import org.example.smartshopv2.entity.Product;
+import org.example.smartshopv2.entity.User;
+import org.example.smartshopv2.enums.Role;
+import org.example.smartshopv2.repository.ClientRepository;
+import org.example.smartshopv2.repository.OrderRepository;
+import org.example.smartshopv2.repository.ProductRepository;
+import org.example.smartshopv2.repository.StockAllocationRepository;
+import org.example.smartshopv2.repository.StockLevelRepository;
+import org.example.smartshopv2.repository.UserRepository;
+import org.example.smartshopv2.repository.WarehouseRepository;
+import org.example.smartshopv2.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for WarehouseService and WarehouseAllocationService
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+@DisplayName("WarehouseService Integration Tests")
+class WarehouseServiceTest {
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+
+    @Autowired
+    private StockAllocationRepository stockAllocationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Client client;
+    private Product couscous;
+    private Long casablanca;
+    private Long marrakech;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .username("warehouseclient")
+                .password("pass123")
+                .role(Role.CLIENT)
+                .build());
+        // Delivered in Rabat: Casablanca is closer than Marrakech
+        client = clientRepository.save(Client.builder()
+                .user(user)
+                .companyName("Rabat Foods")
+                .latitude(34.02)
+                .longitude(-6.84)
+                .build());
+        couscous = productRepository.save(Product.builder().name("Couscous").priceHT(20.0).stockQuantity(0).build());
+        catalogCache.reload();
+
+        casablanca = warehouseService.createWarehouse(warehouse("cas-1", 33.57, -7.59)).getId();
+        marrakech = warehouseService.createWarehouse(warehouse("rak-1", 31.63, -8.01)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockAllocationRepository.deleteAll();
+        stockLevelRepository.deleteAll();
+        warehouseRepository.deleteAll();
+        warehouseService.reloadLocations();
+        orderRepository.deleteAll();
+        clientRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        catalogCache.reload();
+    }
+
+    @Test
+    @DisplayName("Should move the product's total stock with its warehouse levels")
+    void testSetStockLevels_MovesTotal() {
+        // ACT
+        warehouseService.setStockLevels(casablanca, Map.of(couscous.getId(), 5));
+        Map<Long, Integer> stock = warehouseService.setStockLevels(marrakech, Map.of(couscous.getId(), 8));
+        warehouseService.setStockLevels(casablanca, Map.of(couscous.getId(), 2));
+
+        // ASSERT
+        assertEquals(Map.of(couscous.getId(), 13), stock);
+        assertEquals(10, productRepository.findById(couscous.getId()).orElseThrow().getStockQuantity());
+        assertEquals(10, catalogCache.getStock(couscous.getId()));
+        assertEquals(Map.of(couscous.getId(), 2), warehouseService.getStockLevels(casablanca));
+        assertThrows(RuntimeException.class, () -> warehouseService.setStockLevels(casablanca, Map.of(-1L, 1)));
+    }
+
+    @Test
+    @DisplayName("Should take confirmed lines from the nearest warehouse, then the next one")
+    void testConfirmOrder_AllocatesNearestFirst() {
+        // ARRANGE
+        warehouseService.setStockLevels(casablanca, Map.of(couscous.getId(), 5));
+        warehouseService.setStockLevels(marrakech, Map.of(couscous.getId(), 8));
+        OrderResponse created = orderService.createOrder(client.getId(), orderOf(7));
+        markPaid(created.getId());
+
+        // ACT
+        orderService.confirmOrder(created.getId());
+
+        // ASSERT
+        List<StockAllocationResponse> allocations = warehouseService.getAllocations(created.getId());
+        assertEquals(List.of(casablanca, marrakech),
+                allocations.stream().map(StockAllocationResponse::getWarehouseId).toList());
+        assertEquals(List.of(5, 2), allocations.stream().map(StockAllocationResponse::getQuantity).toList());
+        assertEquals(Map.of(couscous.getId(), 0), warehouseService.getStockLevels(casablanca));
+        assertEquals(Map.of(couscous.getId(), 6), warehouseService.getStockLevels(marrakech));
+        assertEquals(6, productRepository.findById(couscous.getId()).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    @DisplayName("Should reject an order its warehouses cannot cover, even if the product's total can")
+    void testCreateOrder_WarehousesShort_ThrowsException() {
+        // ARRANGE - 4 units in a warehouse, 6 more set on the product without one
+        warehouseService.setStockLevels(casablanca, Map.of(couscous.getId(), 4));
+        couscous = productRepository.findById(couscous.getId()).orElseThrow();
+        couscous.setStockQuantity(10);
+        productRepository.save(couscous);
+        catalogCache.reload();
+
+        // ACT
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> orderService.createOrder(client.getId(), orderOf(5)));
+
+        // ASSERT
+        assertEquals("Insufficient stock for product: Couscous", exception.getMessage());
+        assertEquals(1, orderService.createOrder(client.getId(), orderOf(4)).getItems().size());
+    }
+
+    private WarehouseRequest warehouse(String code, double latitude, double longitude) {
+        WarehouseRequest request = new WarehouseRequest();
+        request.setCode(code);
+        request.setName("Depot " + code);
+        request.setLatitude(latitude);
+        request.setLongitude(longitude);
+        return request;
+    }
+
+    private OrderRequest orderOf(int quantity) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(couscous.getId());
+        item.setQuantity(quantity);
+        OrderRequest request = new OrderRequest();
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    private void markPaid(Long orderId) {
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        order.setMontantRestant(Money.ZERO);
+        orderRepository.save(order);
+    }
+}
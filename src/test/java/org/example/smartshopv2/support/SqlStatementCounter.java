@@ -0,0 +1,51 @@
+package org.example.smartshopv2.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Test helper that records every SQL statement Hibernate prepares.
+ * Registered through hibernate.session_factory.statement_inspector in application-test.yml.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql.toLowerCase(Locale.ROOT));
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.clear();
+    }
+
+    /**
+     * Count recorded statements of the given kind (select, insert, update, delete)
+     * that touch the given table.
+     */
+    public static long count(String kind, String table) {
+        String prefix = kind.toLowerCase(Locale.ROOT);
+        String tableRef = " " + table.toLowerCase(Locale.ROOT) + " ";
+        return STATEMENTS.stream()
+                .filter(sql -> sql.startsWith(prefix))
+                .filter(sql -> (sql + " ").contains(tableRef))
+                .count();
+    }
+
+    public static long total() {
+        return STATEMENTS.size();
+    }
+
+    public static long selects(String table) {
+        return count("select", table);
+    }
+
+    public static long inserts(String table) {
+        return count("insert", table);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BloomFilter
+ */
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should never reject an added value and rarely accept others")
+    void testMightContain_FalsePositiveRate() {
+        // ARRANGE
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            codes.add("PROMO-" + i);
+        }
+        BloomFilter filter = new BloomFilter(codes, 0.01);
+
+        // ACT
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("OTHER-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // ASSERT
+        assertTrue(codes.stream().allMatch(filter::mightContain));
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should reject everything when empty")
+    void testMightContain_Empty() {
+        BloomFilter filter = new BloomFilter(List.of(), 0.01);
+        assertFalse(filter.mightContain("PROMO-2024"));
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedCache
+ */
+@DisplayName("BoundedCache Unit Tests")
+class BoundedCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("Should load a key once for concurrent misses")
+    void testGet_SingleFlight() throws Exception {
+        // ARRANGE - the loader blocks until every caller is waiting
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(5), now::get);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // ACT
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> cache.get(1L, id -> {
+                loads.incrementAndGet();
+                await(release);
+                return "client " + id;
+            })));
+        }
+        while (cache.getStats().misses() < 16) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("client 1", result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // ASSERT
+        assertEquals(1, loads.get());
+        BoundedCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.loads());
+        assertEquals(15, stats.coalesced());
+        assertEquals("client 1", cache.get(1L, id -> fail("cached")));
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry and expire entries after the ttl")
+    void testGet_SizeAndTtl() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(2, Duration.ofSeconds(30), now::get);
+        cache.get(1L, id -> "a");
+        cache.get(2L, id -> "b");
+        cache.get(1L, id -> fail("cached"));
+        cache.get(3L, id -> "c");
+
+        assertEquals("b2", cache.get(2L, id -> "b2"));
+        assertEquals(2, cache.getStats().evictions());
+
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertEquals("c2", cache.get(3L, id -> "c2"));
+        assertEquals(1, cache.getStats().expirations());
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    @DisplayName("Should not cache a value loaded before an invalidation, nor a failed load")
+    void testGet_InvalidatedWhileLoading() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(5), now::get);
+
+        String stale = cache.get(1L, id -> {
+            cache.invalidate(id);
+            return "old";
+        });
+        assertEquals("old", stale);
+        assertEquals("new", cache.get(1L, id -> "new"));
+
+        assertThrows(RuntimeException.class, () -> cache.get(2L, id -> {
+            throw new RuntimeException("Client not found");
+        }));
+        assertEquals("found", cache.get(2L, id -> "found"));
+        assertEquals(1, cache.getStats().loadFailures());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
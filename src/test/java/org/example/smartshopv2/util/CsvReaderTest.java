@@ -0,0 +1,47 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CsvReader
+ */
+@DisplayName("CsvReader Unit Tests")
+class CsvReaderTest {
+
+    @Test
+    @DisplayName("Should read quoted fields holding commas, quotes and line breaks")
+    void testNext_QuotedFields() throws IOException {
+        // ARRANGE
+        CsvReader reader = new CsvReader(new StringReader(
+                "sku,name\r\nA-1,\"Huile \"\"extra\"\", 1L\"\r\n\r\nA-2,\"two\nlines\"\nA-3,"));
+
+        // ACT + ASSERT
+        assertEquals(1, reader.line());
+        assertEquals(List.of("sku", "name"), reader.next());
+        assertEquals(2, reader.line());
+        assertEquals(List.of("A-1", "Huile \"extra\", 1L"), reader.next());
+        assertEquals(List.of("A-2", "two\nlines"), reader.next());
+        assertEquals(6, reader.line());
+        assertEquals(List.of("A-3", ""), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("Should reject a quoted field that is never closed")
+    void testNext_UnclosedQuote() throws IOException {
+        // ARRANGE
+        CsvReader reader = new CsvReader(new StringReader("A-1,ok\nA-2,\"broken\nA-3,x\n"));
+
+        // ACT + ASSERT
+        assertEquals(List.of("A-1", "ok"), reader.next());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals("Unclosed quote in the record starting at line 2", e.getMessage());
+    }
+}
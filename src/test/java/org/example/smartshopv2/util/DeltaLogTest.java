@@ -0,0 +1,116 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeltaLog
+ */
+@DisplayName("DeltaLog Unit Tests")
+class DeltaLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should replay the records written after the checkpoint on reopening")
+    void testOpen_ReplaysAfterCheckpoint() {
+        // ARRANGE
+        DeltaLog log = DeltaLog.open(dir, 0);
+        long first = log.append(deltas(1L, 5, 2L, -3));
+        log.sync(first);
+        long second = log.append(deltas(1L, 7));
+        log.sync(second);
+
+        // ACT
+        DeltaLog reopened = DeltaLog.open(dir, first);
+
+        // ASSERT
+        assertEquals(1, first);
+        assertEquals(List.of(new DeltaLog.Record(2, 1L, 7)), reopened.recovered());
+        assertEquals(3, reopened.append(deltas(3L, 1)));
+    }
+
+    @Test
+    @DisplayName("Should stop at a torn record and number new records past the checkpoint")
+    void testOpen_TornTail() throws IOException {
+        // ARRANGE
+        DeltaLog log = DeltaLog.open(dir, 0);
+        log.sync(log.append(deltas(1L, 5, 2L, 6)));
+        Path segment = segments().get(0);
+        Files.write(segment, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20,
+                21, 22, 23, 24}, StandardOpenOption.APPEND);
+
+        // ACT
+        DeltaLog reopened = DeltaLog.open(dir, 0);
+        DeltaLog afterCheckpoint = DeltaLog.open(dir, 40);
+
+        // ASSERT
+        assertEquals(2, reopened.recovered().size());
+        assertEquals(0, afterCheckpoint.recovered().size());
+        assertEquals(41, afterCheckpoint.append(deltas(1L, 1)));
+    }
+
+    @Test
+    @DisplayName("Should drop a batch cut short as a whole")
+    void testOpen_TornBatch() throws IOException {
+        // ARRANGE - the second batch loses its last delta and checksum
+        DeltaLog log = DeltaLog.open(dir, 0);
+        log.sync(log.append(deltas(1L, 5)));
+        log.sync(log.append(deltas(2L, 6, 3L, 7)));
+        Path segment = segments().get(0);
+        byte[] written = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(written, written.length - 16));
+
+        // ACT
+        DeltaLog reopened = DeltaLog.open(dir, 0);
+
+        // ASSERT
+        assertEquals(List.of(new DeltaLog.Record(1, 1L, 5)), reopened.recovered());
+    }
+
+    @Test
+    @DisplayName("Should delete the segments covered by a checkpoint only")
+    void testRotate_DeleteUpTo() throws IOException {
+        // ARRANGE
+        DeltaLog log = DeltaLog.open(dir, 0);
+        log.append(deltas(1L, 5));
+        long rotated = log.rotate();
+        log.sync(log.append(deltas(2L, 6)));
+
+        // ACT
+        log.deleteUpTo(rotated);
+
+        // ASSERT
+        assertEquals(1, rotated);
+        assertEquals(1, segments().size());
+        assertEquals(List.of(new DeltaLog.Record(2, 2L, 6)), DeltaLog.open(dir, 0).recovered());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Map<Long, Integer> deltas(Object... keysAndDeltas) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndDeltas.length; i += 2) {
+            deltas.put((Long) keysAndDeltas[i], (Integer) keysAndDeltas[i + 1]);
+        }
+        return deltas;
+    }
+}
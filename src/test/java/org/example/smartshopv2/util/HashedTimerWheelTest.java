@@ -0,0 +1,85 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HashedTimerWheel
+ *
+ * Time is driven by hand, no thread or sleep involved.
+ */
+@DisplayName("HashedTimerWheel Tests")
+class HashedTimerWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    @DisplayName("Should expire entries only once their deadline has passed")
+    void testAdvance_ExpiresAtDeadline() {
+        // ARRANGE - 100 ms ticks, 8 buckets
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, START);
+        wheel.schedule("soon", START + 250);
+        wheel.schedule("later", START + 5_000); // several rounds around the wheel
+        List<String> expired = new ArrayList<>();
+
+        // ACT & ASSERT
+        wheel.advance(START + 200, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(START + 300, expired::add);
+        assertEquals(List.of("soon"), expired);
+
+        wheel.advance(START + 4_900, expired::add);
+        assertEquals(List.of("soon"), expired);
+
+        wheel.advance(START + 5_000, expired::add);
+        assertEquals(List.of("soon", "later"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should never fire cancelled entries")
+    void testCancel_DoesNotFire() {
+        // ARRANGE
+        HashedTimerWheel<Integer> wheel = new HashedTimerWheel<>(10, 16, START);
+        List<HashedTimerWheel.Timeout<Integer>> timeouts = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            timeouts.add(wheel.schedule(i, START + i));
+        }
+
+        // ACT - cancel every even entry
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            assertTrue(timeouts.get(i).cancel());
+        }
+        List<Integer> expired = new ArrayList<>();
+        int count = wheel.advance(START + 2_000, expired::add);
+
+        // ASSERT
+        assertEquals(500, count);
+        assertTrue(expired.stream().allMatch(i -> i % 2 == 1));
+        assertFalse(timeouts.get(1).cancel()); // already expired
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should expire entries scheduled in the past on the next tick")
+    void testSchedule_PastDeadline_ExpiresImmediately() {
+        // ARRANGE
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, START);
+        wheel.advance(START + 1_000, value -> { });
+        wheel.schedule("late", START + 10);
+        List<String> expired = new ArrayList<>();
+
+        // ACT
+        wheel.advance(START + 1_000, expired::add);
+        wheel.advance(START + 1_100, expired::add);
+
+        // ASSERT
+        assertEquals(List.of("late"), expired);
+    }
+}
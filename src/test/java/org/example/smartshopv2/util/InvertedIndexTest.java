@@ -0,0 +1,89 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InvertedIndex
+ */
+@DisplayName("InvertedIndex Unit Tests")
+class InvertedIndexTest {
+
+    @Test
+    @DisplayName("Should match every query word, the last one as a prefix, ignoring case and accents")
+    void testSearch_WordsAndPrefix() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, "Thé vert à la menthe", "Feuilles de thé de Chine");
+        index.put(2, "Café moulu", "Arabica, torréfaction légère");
+        index.put(3, "Menthe séchée", null);
+
+        assertEquals(List.of(3L, 1L), keys(index.search("MENTHE", 10)));
+        assertEquals(List.of(1L), keys(index.search("the men", 10)));
+        assertEquals(List.of(2L), keys(index.search("torrefac", 10)));
+        // Only the last word is a prefix
+        assertEquals(0, index.search("torrefac arabica", 10).total());
+        assertEquals(0, index.search("cafe chine", 10).total());
+        assertEquals(0, index.search(" ,; ", 10).total());
+    }
+
+    @Test
+    @DisplayName("Should rank name matches and rarer terms first, and count every match")
+    void testSearch_Ranking() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, "Huile d'olive extra vierge", "Pressée à froid");
+        index.put(2, "Savon noir", "Savon à l'huile d'olive");
+        index.put(3, "Huile d'argan", "Huile pure");
+        index.put(4, "Tapenade", "Olives noires");
+
+        // "olives" only as a prefix match, behind the exact word
+        assertEquals(List.of(1L, 2L, 4L), keys(index.search("olive", 10)));
+        InvertedIndex.Result huile = index.search("huile", 2);
+        assertEquals(3, huile.total());
+        assertEquals(2, huile.hits().size());
+        // Name and description both hold the word
+        assertEquals(3L, huile.hits().get(0).key());
+        assertTrue(huile.hits().get(0).score() > huile.hits().get(1).score());
+    }
+
+    @Test
+    @DisplayName("Should match a French spelling of an Arabic name and the reverse")
+    void testSearch_Transliteration() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, "كسكس بالخضر", "Semoule fine");
+        index.put(2, "Zit zitoune", "Huile d'olive");
+        index.put(3, "Chakchouka", null);
+
+        assertEquals(List.of(1L), keys(index.search("couscous", 10)));
+        assertEquals(List.of(2L), keys(index.search("زيت", 10)));
+        assertEquals(List.of(3L), keys(index.search("شكشوكة", 10)));
+        // Arabic letter variants are unified
+        assertEquals(List.of(1L), keys(index.search("كُسْكُس", 10)));
+    }
+
+    @Test
+    @DisplayName("Should reindex updated keys and drop removed ones across compactions")
+    void testPutRemove_Compaction() {
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < 3000; i++) {
+            index.put(i, "Produit " + i, i % 2 == 0 ? "pair" : "impair");
+        }
+        for (int i = 0; i < 2500; i++) {
+            index.remove(i);
+        }
+        index.put(2999, "Article 2999", "pair");
+
+        assertEquals(500, index.size());
+        assertEquals(499, index.search("produit", 10).total());
+        assertEquals(List.of(2999L), keys(index.search("article", 10)));
+        assertEquals(251, index.search("pair", 1000).total());
+        assertEquals(List.of(2600L), keys(index.search("produit 2600", 10)));
+    }
+
+    private static List<Long> keys(InvertedIndex.Result result) {
+        return result.hits().stream().map(InvertedIndex.Hit::key).toList();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MappedLineReader
+ */
+@DisplayName("MappedLineReader Tests")
+class MappedLineReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should read lines across window boundaries")
+    void testForEachLine_AcrossWindows() throws IOException {
+        // ARRANGE
+        List<String> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            String line = "line-" + i + ";" + "x".repeat(i % 13);
+            expected.add(line);
+            content.append(line).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        content.append("last line without newline");
+        expected.add("last line without newline");
+        Path file = Files.writeString(tempDir.resolve("lines.txt"), content);
+
+        // ACT
+        List<String> lines = new ArrayList<>();
+        long bytes = MappedLineReader.forEachLine(file, 37, (buffer, start, end) -> {
+            byte[] line = new byte[end - start];
+            buffer.get(start, line);
+            lines.add(new String(line, StandardCharsets.UTF_8));
+        });
+
+        // ASSERT
+        assertEquals(expected, lines);
+        assertEquals(Files.size(file), bytes);
+    }
+
+    @Test
+    @DisplayName("Should fail on a line longer than the window")
+    void testForEachLine_LineTooLong() throws IOException {
+        // ARRANGE
+        Path file = Files.writeString(tempDir.resolve("long.txt"), "short\n" + "y".repeat(100) + "\nshort\n");
+
+        // ACT & ASSERT
+        IOException exception = assertThrows(IOException.class,
+                () -> MappedLineReader.forEachLine(file, 64, (buffer, start, end) -> { }));
+        assertTrue(exception.getMessage().contains("Line longer than 64 bytes"));
+    }
+}
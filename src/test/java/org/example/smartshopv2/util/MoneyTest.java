@@ -0,0 +1,59 @@
+package org.example.smartshopv2.util;
+
+import org.example.smartshopv2.entity.MoneyConverter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Money
+ */
+@DisplayName("Money Tests")
+class MoneyTest {
+
+    @Test
+    @DisplayName("Should settle split payments to exactly zero")
+    void testMinus_SplitPayments_ReachZero() {
+        // ARRANGE - with doubles, 100 - 33.33 - 33.33 - 33.34 leaves 1.4E-14
+        Money remaining = Money.of(100);
+
+        // ACT
+        remaining = remaining.minus(Money.of(33.33)).minus(Money.of(33.33)).minus(Money.of(33.34));
+
+        // ASSERT
+        assertTrue(remaining.isZero());
+        assertFalse(remaining.isPositive());
+    }
+
+    @Test
+    @DisplayName("Should round percentages half-up to the centime")
+    void testPercent_RoundsHalfUp() {
+        assertEquals(Money.of(450), Money.of(2250).percent(20));
+        assertEquals(Money.ofCentimes(3), Money.ofCentimes(5).percent(50));    // 2.5 -> 3
+        assertEquals(Money.ofCentimes(2), Money.ofCentimes(7).percent(30));    // 2.1 -> 2
+        assertEquals(Money.ofCentimes(-3), Money.ofCentimes(-5).percent(50));  // away from zero
+        assertEquals(Money.ofCentimes(101), Money.of(1.005));                  // as written, not 1.00499...
+    }
+
+    @Test
+    @DisplayName("Should format with two decimals")
+    void testToString_TwoDecimals() {
+        assertEquals("2700.00", Money.of(2700).toString());
+        assertEquals("12.05", Money.ofCentimes(1205).toString());
+        assertEquals("-0.05", Money.ofCentimes(-5).toString());
+        assertEquals(new BigDecimal("33.34"), Money.of(33.34).toBigDecimal());
+    }
+
+    @Test
+    @DisplayName("Should round-trip through the double column unchanged")
+    void testConverter_RoundTrip() {
+        MoneyConverter converter = new MoneyConverter();
+        for (long centimes = 0; centimes < 100_000; centimes += 7) {
+            Money money = Money.ofCentimes(centimes);
+            assertEquals(money, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(money)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.smartshopv2.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TrigramIndex
+ */
+@DisplayName("TrigramIndex Unit Tests")
+class TrigramIndexTest {
+
+    @Test
+    @DisplayName("Should find words by prefix or substring, ignoring case and accents")
+    void testSearch_PrefixAndSubstring() {
+        TrigramIndex index = new TrigramIndex(4, 2);
+        index.put(1, "Société Générale", "contact@sg.ma");
+        index.put(2, "Atlas Négoce", "ventes@atlas.ma");
+        index.put(3, "Général Transports", null);
+
+        assertEquals(List.of(3L, 1L), keys(index.search("gene", 10)));
+        assertEquals(List.of(1L), keys(index.search("SOCIETE gen", 10)));
+        assertEquals(List.of(2L), keys(index.search("a", 10)));
+        assertEquals(List.of(2L), keys(index.search("egoc", 10)));
+        // Two letters only match the start of a word
+        assertEquals(0, index.search("eg", 10).total());
+        assertEquals(0, index.search("atlas sg", 10).total());
+        assertEquals(0, index.search("  ", 10).total());
+    }
+
+    @Test
+    @DisplayName("Should match phone numbers whatever their separators")
+    void testSearch_Phone() {
+        TrigramIndex index = new TrigramIndex(1);
+        index.put(7, "+212 6-12-34-56-78");
+
+        assertEquals(List.of(7L), keys(index.search("12 34 56", 10)));
+        assertEquals(List.of(7L), keys(index.search("2126", 10)));
+        assertEquals(0, index.search("999", 10).total());
+    }
+
+    @Test
+    @DisplayName("Should rank exact and prefix matches first and count every match")
+    void testSearch_RankingAndLimit() {
+        TrigramIndex index = new TrigramIndex(1);
+        index.put(1, "Maroc Telecom");
+        index.put(2, "Telecom");
+        index.put(3, "Intelecom");
+        index.put(4, "Telecom Services");
+
+        TrigramIndex.Result result = index.search("telecom", 2);
+
+        assertEquals(4, result.total());
+        assertEquals(List.of(2L, 4L), keys(result));
+    }
+
+    @Test
+    @DisplayName("Should forget old values on update and removal, also after compaction")
+    void testPutAndRemove() {
+        TrigramIndex index = new TrigramIndex(1);
+        for (int i = 0; i < 3000; i++) {
+            index.put(i, "Client " + i);
+        }
+        index.put(5, "Renamed");
+        for (int i = 100; i < 3000; i++) {
+            index.remove(i);
+        }
+
+        assertEquals(100, index.size());
+        assertEquals(List.of(5L), keys(index.search("renamed", 10)));
+        assertFalse(keys(index.search("client 5", 200)).contains(5L));
+        assertEquals(List.of(42L), keys(index.search("client 42", 10)));
+        assertEquals(99, index.search("client", 200).total());
+    }
+
+    private static List<Long> keys(TrigramIndex.Result result) {
+        return result.hits().stream().map(TrigramIndex.Hit::key).toList();
+    }
+}